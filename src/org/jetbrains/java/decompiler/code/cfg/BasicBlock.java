@@ -22,6 +22,7 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.modules.decompiler.decompose.IGraphNode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class BasicBlock implements IGraphNode {
@@ -110,7 +111,7 @@ public class BasicBlock implements IGraphNode {
   }
 
   public void removePredecessor(BasicBlock block) {
-    while (preds.remove(block)) ;
+    preds.removeAll(Collections.singleton(block));
   }
 
   public void addSuccessor(BasicBlock block) {
@@ -119,7 +120,7 @@ public class BasicBlock implements IGraphNode {
   }
 
   public void removeSuccessor(BasicBlock block) {
-    while (succs.remove(block)) ;
+    succs.removeAll(Collections.singleton(block));
     block.removePredecessor(this);
   }
 
@@ -147,7 +148,7 @@ public class BasicBlock implements IGraphNode {
   }
 
   public void removePredecessorException(BasicBlock block) {
-    while (predExceptions.remove(block)) ;
+    predExceptions.removeAll(Collections.singleton(block));
   }
 
   public void addSuccessorException(BasicBlock block) {
@@ -158,7 +159,7 @@ public class BasicBlock implements IGraphNode {
   }
 
   public void removeSuccessorException(BasicBlock block) {
-    while (succExceptions.remove(block)) ;
+    succExceptions.removeAll(Collections.singleton(block));
     block.removePredecessorException(this);
   }
 
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.code.cfg;
+
+import org.jetbrains.java.decompiler.util.IntIntMap;
+
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Snapshot of the edges of a control flow graph over dense block indices. Blocks are numbered in the order
+ * of ControlFlowGraph.getBlocks(), the dummy exit block comes last. Successor arrays list regular successors
+ * before exception successors, so walks over them visit blocks in the same order as the block lists do.
+ * The snapshot is not updated when the graph changes.
+ */
+public class BlockAdjacency {
+
+  private final BasicBlock[] blocks;
+
+  private final IntIntMap mapIdIndex;
+
+  private final int[][] succs;
+  private final int[][] preds;
+
+  // number of regular successors at the front of succs
+  private final int[] regularSuccs;
+
+  public BlockAdjacency(List<BasicBlock> lstBlocks, BasicBlock last) {
+
+    int size = lstBlocks.size() + (last == null ? 0 : 1);
+
+    blocks = new BasicBlock[size];
+    mapIdIndex = new IntIntMap(size);
+
+    for (int i = 0; i < lstBlocks.size(); i++) {
+      blocks[i] = lstBlocks.get(i);
+    }
+    if (last != null) {
+      blocks[size - 1] = last;
+    }
+
+    for (int i = 0; i < size; i++) {
+      mapIdIndex.put(blocks[i].id, i);
+    }
+
+    succs = new int[size][];
+    preds = new int[size][];
+    regularSuccs = new int[size];
+
+    for (int i = 0; i < size; i++) {
+      BasicBlock block = blocks[i];
+      regularSuccs[i] = block.getSuccs().size();
+      succs[i] = toIndices(block.getSuccs(), block.getSuccExceptions());
+      preds[i] = toIndices(block.getPreds(), block.getPredExceptions());
+    }
+  }
+
+  private int[] toIndices(List<BasicBlock> lst1, List<BasicBlock> lst2) {
+    int[] res = new int[lst1.size() + lst2.size()];
+    int k = 0;
+    for (BasicBlock block : lst1) {
+      res[k++] = getIndex(block);
+    }
+    for (BasicBlock block : lst2) {
+      res[k++] = getIndex(block);
+    }
+    return res;
+  }
+
+  public int size() {
+    return blocks.length;
+  }
+
+  public BasicBlock getBlock(int index) {
+    return blocks[index];
+  }
+
+  // index of the block or -1 if it is not part of the graph
+  public int getIndex(BasicBlock block) {
+    int index = mapIdIndex.get(block.id, -1);
+    return index >= 0 && blocks[index] == block ? index : -1;
+  }
+
+  // regular and exception successors, entries of blocks outside of the graph are -1
+  public int[] getSuccessors(int index) {
+    return succs[index];
+  }
+
+  public int getRegularSuccessorCount(int index) {
+    return regularSuccs[index];
+  }
+
+  // regular and exception predecessors, entries of blocks outside of the graph are -1
+  public int[] getPredecessors(int index) {
+    return preds[index];
+  }
+
+  public BitSet getReachable(int start) {
+
+    BitSet reached = new BitSet(blocks.length);
+    int[] worklist = new int[blocks.length];
+    int count = 0;
+
+    reached.set(start);
+    worklist[count++] = start;
+
+    while (count > 0) {
+      for (int succ : succs[worklist[--count]]) {
+        if (succ >= 0 && !reached.get(succ)) {
+          reached.set(succ);
+          worklist[count++] = succ;
+        }
+      }
+    }
+
+    return reached;
+  }
+
+  // blocks reachable from start in reverse postorder of a depth-first walk
+  public int[] getReversePostOrder(int start) {
+
+    BitSet visited = new BitSet(blocks.length);
+    int[] order = new int[blocks.length];
+    int count = 0;
+
+    int[] stackNode = new int[blocks.length];
+    int[] stackIndex = new int[blocks.length];
+    int depth = 0;
+
+    stackNode[0] = start;
+    stackIndex[0] = 0;
+    visited.set(start);
+
+    while (depth >= 0) {
+      int node = stackNode[depth];
+      int[] lstSuccs = succs[node];
+
+      int index = stackIndex[depth];
+      for (; index < lstSuccs.length; index++) {
+        int succ = lstSuccs[index];
+        if (succ >= 0 && !visited.get(succ)) {
+          break;
+        }
+      }
+
+      if (index < lstSuccs.length) {
+        int succ = lstSuccs[index];
+        stackIndex[depth] = index + 1;
+        stackNode[++depth] = succ;
+        stackIndex[depth] = 0;
+        visited.set(succ);
+      }
+      else {
+        order[count++] = node;
+        depth--;
+      }
+    }
+
+    int[] res = new int[count];
+    for (int i = 0; i < count; i++) {
+      res[i] = order[count - 1 - i];
+    }
+    return res;
+  }
+}
@@ -18,13 +18,18 @@ package org.jetbrains.java.decompiler.code.cfg;
 import org.jetbrains.java.decompiler.code.*;
 import org.jetbrains.java.decompiler.code.interpreter.InstructionImpact;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
+import org.jetbrains.java.decompiler.modules.decompiler.decompose.GenericDominatorEngine;
+import org.jetbrains.java.decompiler.modules.decompiler.decompose.IGraph;
+import org.jetbrains.java.decompiler.modules.decompiler.decompose.IGraphNode;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.struct.gen.DataPoint;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.util.IntIndexedCollection;
 import org.jetbrains.java.decompiler.util.ListStack;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -37,7 +42,7 @@ public class ControlFlowGraph implements CodeConstants {
   // private fields
   // *****************************************************************************
 
-  private VBStyleCollection<BasicBlock, Integer> blocks;
+  private IntIndexedCollection<BasicBlock> blocks;
 
   private BasicBlock first;
 
@@ -45,10 +50,21 @@ public class ControlFlowGraph implements CodeConstants {
 
   private List<ExceptionRangeCFG> exceptions;
 
+  // incremented when a range is added or removed or changes its handler
+  private int rangesVersion;
+
+  // ranges of each handler in list order, built for handlerRangesVersion
+  private Map<BasicBlock, List<ExceptionRangeCFG>> handlerRanges;
+  private int handlerRangesVersion;
+
   private Map<BasicBlock, BasicBlock> subroutines;
 
   private Set<BasicBlock> finallyExits = new HashSet<BasicBlock>();
 
+  // blocks created by copying subroutine code in inlineJsr() and their upper limit, 0 for none
+  private int inlinedBlocks;
+  private int maxInlinedBlocks;
+
   // *****************************************************************************
   // constructors
   // *****************************************************************************
@@ -72,6 +88,7 @@ public class ControlFlowGraph implements CodeConstants {
     first = null;
     last = null;
     exceptions.clear();
+    rangesVersion++;
     finallyExits.clear();
   }
 
@@ -123,13 +140,38 @@ public class ControlFlowGraph implements CodeConstants {
     return buf.toString();
   }
 
-  public void inlineJsr(StructMethod mt) {
+  public boolean inlineJsr(StructMethod mt) {
+    maxInlinedBlocks = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.MAX_JSR_INLINED_BLOCKS).toString());
+
+    // jsr and ret instructions are removed in any case
+    boolean res = containsJsr();
+
     processJsr();
     removeJsr(mt);
 
+    if (inlinedBlocks > 0) {
+      DecompilerContext.getLogger().writeMessage("JSR inlining created " + inlinedBlocks + " blocks in " + mt.getName(),
+                                                 IFernflowerLogger.Severity.TRACE);
+    }
+
     removeMarkers();
 
-    DeadCodeHelper.removeEmptyBlocks(this);
+    res |= DeadCodeHelper.removeEmptyBlocks(this);
+
+    return res;
+  }
+
+  private boolean containsJsr() {
+    for (BasicBlock block : blocks) {
+      InstructionSequence seq = block.getSeq();
+      for (int i = 0; i < seq.length(); i++) {
+        int opcode = seq.getInstr(i).opcode;
+        if (opcode == CodeConstants.opc_jsr || opcode == CodeConstants.opc_ret) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   public void removeBlock(BasicBlock block) {
@@ -158,13 +200,14 @@ public class ControlFlowGraph implements CodeConstants {
       ExceptionRangeCFG range = exceptions.get(i);
       if (range.getHandler() == block) {
         exceptions.remove(i);
+        rangesVersion++;
       }
       else {
-        List<BasicBlock> lstRange = range.getProtectedRange();
-        lstRange.remove(block);
+        range.removeProtectedBlock(block);
 
-        if (lstRange.isEmpty()) {
+        if (range.getProtectedRange().isEmpty()) {
           exceptions.remove(i);
+          rangesVersion++;
         }
       }
     }
@@ -180,18 +223,29 @@ public class ControlFlowGraph implements CodeConstants {
 
   public ExceptionRangeCFG getExceptionRange(BasicBlock handler, BasicBlock block) {
 
-    //List<ExceptionRangeCFG> ranges = new ArrayList<ExceptionRangeCFG>();
+    if (handlerRanges == null || handlerRangesVersion != rangesVersion) {
+      handlerRanges = new HashMap<BasicBlock, List<ExceptionRangeCFG>>();
+      for (ExceptionRangeCFG range : exceptions) {
+        List<ExceptionRangeCFG> lst = handlerRanges.get(range.getHandler());
+        if (lst == null) {
+          handlerRanges.put(range.getHandler(), lst = new ArrayList<ExceptionRangeCFG>());
+        }
+        lst.add(range);
+      }
+      handlerRangesVersion = rangesVersion;
+    }
 
-    for (int i = exceptions.size() - 1; i >= 0; i--) {
-      ExceptionRangeCFG range = exceptions.get(i);
-      if (range.getHandler() == handler && range.getProtectedRange().contains(block)) {
-        return range;
-        //ranges.add(range);
+    List<ExceptionRangeCFG> lst = handlerRanges.get(handler);
+    if (lst != null) {
+      for (int i = lst.size() - 1; i >= 0; i--) {
+        ExceptionRangeCFG range = lst.get(i);
+        if (range.isProtected(block)) {
+          return range;
+        }
       }
     }
 
     return null;
-    //return ranges.isEmpty() ? null : ranges;
   }
 
   //	public String getExceptionsUniqueString(BasicBlock handler, BasicBlock block) {
@@ -225,7 +279,7 @@ public class ControlFlowGraph implements CodeConstants {
     short[] states = findStartInstructions(instrseq);
 
     Map<Integer, BasicBlock> mapInstrBlocks = new HashMap<Integer, BasicBlock>();
-    VBStyleCollection<BasicBlock, Integer> colBlocks = createBasicBlocks(states, instrseq, mapInstrBlocks);
+    IntIndexedCollection<BasicBlock> colBlocks = createBasicBlocks(states, instrseq, mapInstrBlocks);
 
     blocks = colBlocks;
 
@@ -288,11 +342,11 @@ public class ControlFlowGraph implements CodeConstants {
   }
 
 
-  private VBStyleCollection<BasicBlock, Integer> createBasicBlocks(short[] startblock,
+  private IntIndexedCollection<BasicBlock> createBasicBlocks(short[] startblock,
                                                                    InstructionSequence instrseq,
                                                                    Map<Integer, BasicBlock> mapInstrBlocks) {
 
-    VBStyleCollection<BasicBlock, Integer> col = new VBStyleCollection<BasicBlock, Integer>();
+    IntIndexedCollection<BasicBlock> col = new IntIndexedCollection<BasicBlock>();
 
     InstructionSequence currseq = null;
     ArrayList<Integer> lstOffs = null;
@@ -370,6 +424,7 @@ public class ControlFlowGraph implements CodeConstants {
   private void setExceptionEdges(InstructionSequence instrseq, Map<Integer, BasicBlock> instrBlocks) {
 
     exceptions = new ArrayList<ExceptionRangeCFG>();
+    rangesVersion++;
 
     Map<String, ExceptionRangeCFG> mapRanges = new HashMap<String, ExceptionRangeCFG>();
 
@@ -484,12 +539,27 @@ public class ControlFlowGraph implements CodeConstants {
 
     List<JsrRecord> lstJsrAll = new ArrayList<JsrRecord>();
 
+    GenericDominatorEngine engine = null;
+    if (!subroutines.isEmpty()) {
+      engine = new GenericDominatorEngine(new IGraph() {
+        public List<? extends IGraphNode> getReversePostOrderList() {
+          return getReversePostOrder();
+        }
+
+        public Set<? extends IGraphNode> getRoots() {
+          return new HashSet<IGraphNode>(Arrays.asList(new IGraphNode[]{first}));
+        }
+      });
+
+      engine.initialize();
+    }
+
     // get all jsr ranges
     for (Entry<BasicBlock, BasicBlock> ent : subroutines.entrySet()) {
       BasicBlock jsr = ent.getKey();
       BasicBlock ret = ent.getValue();
 
-      lstJsrAll.add(new JsrRecord(jsr, getJsrRange(jsr, ret), ret));
+      lstJsrAll.add(new JsrRecord(jsr, getJsrRange(jsr, ret, engine), ret));
     }
 
     // sort ranges
@@ -530,7 +600,7 @@ public class ControlFlowGraph implements CodeConstants {
     return 0;
   }
 
-  private Set<BasicBlock> getJsrRange(BasicBlock jsr, BasicBlock ret) {
+  private Set<BasicBlock> getJsrRange(BasicBlock jsr, BasicBlock ret, GenericDominatorEngine engine) {
 
     Set<BasicBlock> blocks = new HashSet<BasicBlock>();
 
@@ -568,13 +638,13 @@ public class ControlFlowGraph implements CodeConstants {
 
             if (node != jsr) {
               for (int k = 0; k < child.getPreds().size(); k++) {
-                if (!DeadCodeHelper.isDominator(this, child.getPreds().get(k), dom)) {
+                if (!isDominator(engine, child.getPreds().get(k), dom)) {
                   continue CHILD;
                 }
               }
 
               for (int k = 0; k < child.getPredExceptions().size(); k++) {
-                if (!DeadCodeHelper.isDominator(this, child.getPredExceptions().get(k), dom)) {
+                if (!isDominator(engine, child.getPredExceptions().get(k), dom)) {
                   continue CHILD;
                 }
               }
@@ -594,6 +664,11 @@ public class ControlFlowGraph implements CodeConstants {
     return blocks;
   }
 
+  // blocks unreachable from the first one are dominated by any block
+  private static boolean isDominator(GenericDominatorEngine engine, BasicBlock block, BasicBlock dom) {
+    return !engine.contains(block) || engine.isDominator(block, dom);
+  }
+
   private void splitJsrRange(BasicBlock jsr, BasicBlock ret, Set<BasicBlock> common_blocks) {
 
     List<BasicBlock> lstNodes = new LinkedList<BasicBlock>();
@@ -634,6 +709,11 @@ public class ControlFlowGraph implements CodeConstants {
           }
           else if (common_blocks.contains(child)) {
 
+            if (maxInlinedBlocks > 0 && inlinedBlocks >= maxInlinedBlocks) {
+              throw new RuntimeException("JSR inlining exceeds the limit of " + maxInlinedBlocks + " new blocks");
+            }
+            inlinedBlocks++;
+
             // make a copy of the current block
             BasicBlock copy = (BasicBlock)child.clone();
             copy.id = ++last_id;
@@ -686,20 +766,19 @@ public class ControlFlowGraph implements CodeConstants {
       setBoth.retainAll(lstRange);
 
       if (setBoth.size() > 0) {
-        List<BasicBlock> lstNewRange;
+        ExceptionRangeCFG newRange;
 
         if (setBoth.size() == lstRange.size()) {
-          lstNewRange = new ArrayList<BasicBlock>();
-          ExceptionRangeCFG newRange = new ExceptionRangeCFG(lstNewRange,
-                                                             mapNewNodes.get(range.getHandler().id), range.getExceptionTypes());
-          exceptions.add(newRange);
+          newRange = new ExceptionRangeCFG(new ArrayList<BasicBlock>(),
+                                           mapNewNodes.get(range.getHandler().id), range.getExceptionTypes());
+          addException(newRange);
         }
         else {
-          lstNewRange = lstRange;
+          newRange = range;
         }
 
         for (BasicBlock block : setBoth) {
-          lstNewRange.add(mapNewNodes.get(block.id));
+          newRange.addProtectedBlock(mapNewNodes.get(block.id));
         }
       }
     }
@@ -778,51 +857,23 @@ public class ControlFlowGraph implements CodeConstants {
 
   public List<BasicBlock> getReversePostOrder() {
 
-    List<BasicBlock> res = new LinkedList<BasicBlock>();
-    addToReversePostOrderListIterative(first, res);
+    BlockAdjacency adjacency = getAdjacency();
+
+    List<BasicBlock> res = new ArrayList<BasicBlock>();
+    for (int index : adjacency.getReversePostOrder(adjacency.getIndex(first))) {
+      res.add(adjacency.getBlock(index));
+    }
 
     return res;
   }
 
-  private static void addToReversePostOrderListIterative(BasicBlock root, List<BasicBlock> lst) {
-
-    LinkedList<BasicBlock> stackNode = new LinkedList<BasicBlock>();
-    LinkedList<Integer> stackIndex = new LinkedList<Integer>();
-
-    Set<BasicBlock> setVisited = new HashSet<BasicBlock>();
-
-    stackNode.add(root);
-    stackIndex.add(0);
-
-    while (!stackNode.isEmpty()) {
-
-      BasicBlock node = stackNode.getLast();
-      int index = stackIndex.removeLast();
-
-      setVisited.add(node);
-
-      List<BasicBlock> lstSuccs = new ArrayList<BasicBlock>(node.getSuccs());
-      lstSuccs.addAll(node.getSuccExceptions());
-
-      for (; index < lstSuccs.size(); index++) {
-        BasicBlock succ = lstSuccs.get(index);
-
-        if (!setVisited.contains(succ)) {
-          stackIndex.add(index + 1);
-
-          stackNode.add(succ);
-          stackIndex.add(0);
-
-          break;
-        }
-      }
-
-      if (index == lstSuccs.size()) {
-        lst.add(0, node);
+  // dense indexed view of the current edges, has to be requested again after the graph has been changed
+  public BlockAdjacency getAdjacency() {
+    return new BlockAdjacency(blocks, last);
+  }
 
-        stackNode.removeLast();
-      }
-    }
+  public int getInlinedBlockCount() {
+    return inlinedBlocks;
   }
 
 
@@ -830,11 +881,11 @@ public class ControlFlowGraph implements CodeConstants {
   // getter and setter methods
   // *****************************************************************************
 
-  public VBStyleCollection<BasicBlock, Integer> getBlocks() {
+  public IntIndexedCollection<BasicBlock> getBlocks() {
     return blocks;
   }
 
-  public void setBlocks(VBStyleCollection<BasicBlock, Integer> blocks) {
+  public void setBlocks(IntIndexedCollection<BasicBlock> blocks) {
     this.blocks = blocks;
   }
 
@@ -851,11 +902,28 @@ public class ControlFlowGraph implements CodeConstants {
   }
 
   public List<ExceptionRangeCFG> getExceptions() {
-    return exceptions;
+    return Collections.unmodifiableList(exceptions);
   }
 
   public void setExceptions(List<ExceptionRangeCFG> exceptions) {
-    this.exceptions = exceptions;
+    this.exceptions = new ArrayList<ExceptionRangeCFG>(exceptions);
+    rangesVersion++;
+  }
+
+  public void addException(ExceptionRangeCFG range) {
+    exceptions.add(range);
+    rangesVersion++;
+  }
+
+  public void removeException(ExceptionRangeCFG range) {
+    if (exceptions.remove(range)) {
+      rangesVersion++;
+    }
+  }
+
+  public void setExceptionHandler(ExceptionRangeCFG range, BasicBlock handler) {
+    range.setHandler(handler);
+    rangesVersion++;
   }
 
   public BasicBlock getLast() {
@@ -18,20 +18,26 @@ package org.jetbrains.java.decompiler.code.cfg;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class ExceptionRangeCFG {
 
-  private List<BasicBlock> protectedRange = new ArrayList<BasicBlock>(); // FIXME: replace with set
+  // protected blocks in the order of addition, each block once
+  private final List<BasicBlock> protectedRange = new ArrayList<BasicBlock>();
+
+  // ids of the protected blocks
+  private final BitSet protectedIds = new BitSet();
 
   private BasicBlock handler;
 
   private List<String> exceptionTypes;
 
   public ExceptionRangeCFG(List<BasicBlock> protectedRange, BasicBlock handler, List<String> exceptionType) {
-    this.protectedRange = protectedRange;
+    setProtectedRange(protectedRange);
     this.handler = handler;
 
     if (exceptionType != null) {
@@ -40,7 +46,7 @@ public class ExceptionRangeCFG {
   }
 
   public boolean isCircular() {
-    return protectedRange.contains(handler);
+    return isProtected(handler);
   }
 
   public String toString() {
@@ -69,16 +75,43 @@ public class ExceptionRangeCFG {
     return handler;
   }
 
-  public void setHandler(BasicBlock handler) {
+  // changed through ControlFlowGraph.setExceptionHandler(), which keeps its handler index up to date
+  void setHandler(BasicBlock handler) {
     this.handler = handler;
   }
 
   public List<BasicBlock> getProtectedRange() {
-    return protectedRange;
+    return Collections.unmodifiableList(protectedRange);
   }
 
   public void setProtectedRange(List<BasicBlock> protectedRange) {
-    this.protectedRange = protectedRange;
+    this.protectedRange.clear();
+    protectedIds.clear();
+
+    for (BasicBlock block : protectedRange) {
+      addProtectedBlock(block);
+    }
+  }
+
+  public boolean isProtected(BasicBlock block) {
+    return protectedIds.get(block.id);
+  }
+
+  public void addProtectedBlock(BasicBlock block) {
+    if (!protectedIds.get(block.id)) {
+      protectedIds.set(block.id);
+      protectedRange.add(block);
+    }
+  }
+
+  public boolean removeProtectedBlock(BasicBlock block) {
+    if (!protectedIds.get(block.id)) {
+      return false;
+    }
+
+    protectedIds.clear(block.id);
+    protectedRange.remove(block);
+    return true;
   }
 
   public List<String> getExceptionTypes() {
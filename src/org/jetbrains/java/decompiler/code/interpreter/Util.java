@@ -16,7 +16,6 @@
 package org.jetbrains.java.decompiler.code.interpreter;
 
 import org.jetbrains.java.decompiler.code.Instruction;
-import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
 
 
@@ -253,30 +252,7 @@ public class Util {
 
 
   public static boolean instanceOf(StructContext context, String valclass, String refclass) {
-
-    if (valclass.equals(refclass)) {
-      return true;
-    }
-
-    StructClass cl = context.getClass(valclass);
-    if (cl == null) {
-      return false;
-    }
-
-    if (cl.superClass != null && instanceOf(context, cl.superClass.getString(), refclass)) {
-      return true;
-    }
-
-    int[] interfaces = cl.getInterfaces();
-    for (int i = 0; i < interfaces.length; i++) {
-      String intfc = cl.getPool().getPrimitiveConstant(interfaces[i]).getString();
-
-      if (instanceOf(context, intfc, refclass)) {
-        return true;
-      }
-    }
-
-    return false;
+    return context.getClassHierarchy().isSubtype(valclass, refclass);
   }
 
 
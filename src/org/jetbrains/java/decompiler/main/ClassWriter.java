@@ -247,8 +247,15 @@ public class ClassWriter {
         buffer.append(lineSeparator);
       }
 
-      // FIXME: fields don't matter at the moment
-      total_offset_lines = buffer.count(lineSeparator, start_class_def);
+      // lines are counted from the start of the buffer, which is shared by a root class and its member classes.
+      // Classes written into expressions have buffers of their own, their methods are not mapped.
+      boolean mapped = true;
+      for (ClassNode nd = node; nd != null; nd = nd.parent) {
+        if (nd.type != ClassNode.CLASS_ROOT && nd.type != ClassNode.CLASS_MEMBER) {
+          mapped = false;
+        }
+      }
+      int line_position = 0;
 
       // methods
       for (StructMethod mt : cl.getMethods()) {
@@ -258,16 +265,20 @@ public class ClassWriter {
         if (hide) continue;
 
         int position = buffer.length();
+        total_offset_lines += buffer.count(lineSeparator, line_position);
+        line_position = position;
+
         if (hasContent) {
           buffer.append(lineSeparator);
         }
-        BytecodeMappingTracer method_tracer = new BytecodeMappingTracer(total_offset_lines);
+        BytecodeMappingTracer method_tracer = new BytecodeMappingTracer(total_offset_lines + (hasContent ? 1 : 0));
         boolean methodSkipped = !methodToJava(node, mt, buffer, indent + 1, method_tracer);
         if (!methodSkipped) {
           hasContent = true;
-          DecompilerContext.getBytecodeSourceMapper().addTracer(cl.qualifiedName,
-                                  InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()), method_tracer);
-          total_offset_lines = (method_tracer.getCurrentSourceLine() + 1); // zero-based line index
+          if (mapped) {
+            DecompilerContext.getBytecodeSourceMapper().addTracer(cl.qualifiedName,
+                                    InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()), method_tracer);
+          }
         }
         else {
           buffer.setLength(position);
@@ -495,6 +506,11 @@ public class ClassWriter {
         buffer.append(" = ");
         buffer.append(new ConstExprent(fieldType, constant.value).toJava(indent, tracer));
       }
+      else if (!isEnum && DecompilerContext.getOption(IFernflowerPreferences.STUB_OUTPUT)) {
+        // the static initializer is not written, a blank final would not compile
+        buffer.append(" = ");
+        buffer.append(getDefaultValue(fieldType).toJava(indent, tracer));
+      }
     }
 
     if (!isEnum) {
@@ -503,6 +519,23 @@ public class ClassWriter {
     }
   }
 
+  private static ConstExprent getDefaultValue(VarType type) {
+    if (type.arraydim > 0 || type.type == CodeConstants.TYPE_OBJECT) {
+      return new ConstExprent(VarType.VARTYPE_NULL, null);
+    }
+
+    switch (type.type) {
+      case CodeConstants.TYPE_LONG:
+        return new ConstExprent(type, new Long(0));
+      case CodeConstants.TYPE_FLOAT:
+        return new ConstExprent(type, new Float(0));
+      case CodeConstants.TYPE_DOUBLE:
+        return new ConstExprent(type, new Double(0));
+    }
+
+    return new ConstExprent(type, new Integer(0));
+  }
+
   private static void methodLambdaToJava(ClassNode lambdaNode,
                                          ClassNode classNode,
                                          StructMethod mt,
@@ -560,7 +593,12 @@ public class ClassWriter {
         indent += 1;
       }
 
-      if (!methodWrapper.decompiledWithErrors) {
+      if (methodWrapper.stub) {
+        buffer.appendIndent(indent);
+        buffer.append("throw new UnsupportedOperationException();");
+        buffer.append(DecompilerContext.getNewLineSeparator());
+      }
+      else if (!methodWrapper.decompiledWithErrors) {
         RootStatement root = classWrapper.getMethodWrapper(mt.getName(), mt.getDescriptor()).root;
         if (root != null) { // check for existence
           try {
@@ -834,6 +872,14 @@ public class ClassWriter {
         buffer.append(';');
         buffer.append(lineSeparator);
       }
+      else if (methodWrapper.stub) {
+        // initializer blocks are not part of the signature
+        hideMethod = clinit || dinit;
+
+        buffer.append(" {").appendLineSeparator();
+        buffer.appendIndent(indent + 1).append("throw new UnsupportedOperationException();").appendLineSeparator();
+        buffer.appendIndent(indent).append('}').appendLineSeparator();
+      }
       else {
         if (!clinit && !dinit) {
           buffer.append(' ');
@@ -848,7 +894,8 @@ public class ClassWriter {
 
         if (root != null && !methodWrapper.decompiledWithErrors) { // check for existence
           try {
-            tracer.incrementCurrentSourceLine(buffer.count(lineSeparator, start_index_method));
+            // the code starts on the line after the opening brace
+            tracer.incrementCurrentSourceLine(buffer.count(lineSeparator, start_index_method) + 1);
 
             String code = root.toJava(indent + 1, tracer);
 
@@ -885,10 +932,6 @@ public class ClassWriter {
       DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, outerWrapper);
     }
 
-    // save total lines
-    // TODO: optimize
-    tracer.setCurrentSourceLine(buffer.count(lineSeparator, start_index_method));
-
     return !hideMethod;
   }
 
@@ -24,6 +24,7 @@ import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
 import org.jetbrains.java.decompiler.main.rels.ClassWrapper;
 import org.jetbrains.java.decompiler.main.rels.LambdaProcessor;
+import org.jetbrains.java.decompiler.main.rels.MethodBodyCache;
 import org.jetbrains.java.decompiler.main.rels.NestedClassProcessor;
 import org.jetbrains.java.decompiler.main.rels.NestedMemberAccess;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.InvocationExprent;
@@ -45,8 +46,15 @@ public class ClassesProcessor {
 
   private Map<String, ClassNode> mapRootClasses = new HashMap<String, ClassNode>();
 
+  private MethodBodyCache methodBodyCache;
+
   public ClassesProcessor(StructContext context) {
 
+    int cacheSize = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.METHOD_BODY_CACHE).toString());
+    if (cacheSize > 0) {
+      methodBodyCache = new MethodBodyCache(cacheSize);
+    }
+
     HashMap<String, Object[]> mapInnerClasses = new HashMap<String, Object[]>();
     HashMap<String, HashSet<String>> mapNestedClassReferences = new HashMap<String, HashSet<String>>();
     HashMap<String, HashSet<String>> mapEnclosingClassReferences = new HashMap<String, HashSet<String>>();
@@ -251,9 +259,14 @@ public class ClassesProcessor {
       // build wrappers for all nested classes (that's where actual processing takes place)
       initWrappers(root);
 
-      new NestedClassProcessor().processClass(root, root);
+      if (DecompilerContext.getOption(IFernflowerPreferences.STUB_OUTPUT)) {
+        new NestedClassProcessor().processStubClass(root);
+      }
+      else {
+        new NestedClassProcessor().processClass(root, root);
 
-      new NestedMemberAccess().propagateMemberAccess(root);
+        new NestedMemberAccess().propagateMemberAccess(root);
+      }
 
       TextBuffer classBuffer = new TextBuffer(AVERAGE_CLASS_SIZE);
       new ClassWriter().classToJava(root, classBuffer, 0);
@@ -282,10 +295,10 @@ public class ClassesProcessor {
 
       buffer.append(classBuffer);
 
-      if(DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
-        BytecodeSourceMapper mapper = DecompilerContext.getBytecodeSourceMapper();
-        mapper.addTotalOffset(total_offset_lines);
+      BytecodeSourceMapper mapper = DecompilerContext.getBytecodeSourceMapper();
+      mapper.addTotalOffset(total_offset_lines);
 
+      if(DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
         buffer.append(lineSeparator);
         mapper.dumpMapping(buffer);
       }
@@ -337,6 +350,10 @@ public class ClassesProcessor {
     return mapRootClasses;
   }
 
+  public MethodBodyCache getMethodBodyCache() {
+    return methodBodyCache;
+  }
+
 
   public static class ClassNode {
 
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main;
+
+import java.util.Map;
+
+// source of a root class together with its nested classes, as returned by Fernflower.decompileClass
+public class DecompiledClass {
+
+  private final String qualifiedName;
+  private final String content;
+  private final Map<String, Map<String, Map<Integer, Integer>>> lineMapping;
+
+  public DecompiledClass(String qualifiedName, String content, Map<String, Map<String, Map<Integer, Integer>>> lineMapping) {
+    this.qualifiedName = qualifiedName;
+    this.content = content;
+    this.lineMapping = lineMapping;
+  }
+
+  public String getQualifiedName() {
+    return qualifiedName;
+  }
+
+  // null if the class couldn't be decompiled
+  public String getContent() {
+    return content;
+  }
+
+  // class name -> method key (name and descriptor) -> bytecode offset -> zero-based line in the content,
+  // empty if the content was passed through the formatter (option efm on)
+  public Map<String, Map<String, Map<Integer, Integer>>> getLineMapping() {
+    return lineMapping;
+  }
+}
@@ -55,6 +55,10 @@ public class DecompilerContext {
   public static void initContext(Map<String, Object> propertiesCustom) {
     Map<String, Object> properties = new HashMap<String, Object>(IFernflowerPreferences.DEFAULTS);
     if (propertiesCustom != null) {
+      Object profile = propertiesCustom.get(IFernflowerPreferences.PIPELINE_PROFILE);
+      if (profile != null && IFernflowerPreferences.PROFILE_FAST.equalsIgnoreCase(profile.toString())) {
+        properties.putAll(IFernflowerPreferences.FAST_PROFILE);
+      }
       properties.putAll(propertiesCustom);
     }
     currentContext.set(new DecompilerContext(properties));
@@ -48,7 +48,7 @@ public class EnumProcessor {
           wrapper.getHiddenMembers().add(InterpreterUtil.makeUniqueKey(name, descriptor));
         }
       }
-      else if ("<init>".equals(name)) {
+      else if ("<init>".equals(name) && method.root != null) {
         Statement firstData = findFirstData(method.root);
         if (firstData != null && !firstData.getExprents().isEmpty()) {
           Exprent exprent = firstData.getExprents().get(0);
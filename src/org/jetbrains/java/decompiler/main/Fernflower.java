@@ -15,6 +15,7 @@
  */
 package org.jetbrains.java.decompiler.main;
 
+import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
@@ -22,26 +23,65 @@ import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.modules.renamer.IdentifierConverter;
+import org.jetbrains.java.decompiler.modules.xref.XrefIndex;
+import org.jetbrains.java.decompiler.struct.ClassFilter;
 import org.jetbrains.java.decompiler.struct.IDecompiledData;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
+import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.struct.consts.PooledConstant;
+import org.jetbrains.java.decompiler.struct.consts.PrimitiveConstant;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 
-import java.util.Map;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Fernflower implements IDecompiledData {
 
+  // decompiled root classes kept by decompileClass, least recently used ones are dropped
+  private static final int CACHE_SIZE = 256;
+  // classes scheduled for background decompilation after each request
+  private static final int PREFETCH_LIMIT = 32;
+
   private StructContext structContext;
   private ClassesProcessor classesProcessor;
+  private final DecompilerContext context;
+
+  private final Map<String, DecompiledClass> decompiledClasses = new LinkedHashMap<String, DecompiledClass>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, DecompiledClass> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  private final LinkedList<String> prefetchQueue = new LinkedList<String>();
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  private Thread prefetchThread;
 
   public Fernflower(IBytecodeProvider provider, IResultSaver saver, Map<String, Object> options, IFernflowerLogger logger) {
     structContext = new StructContext(saver, this, new LazyLoader(provider));
     DecompilerContext.initContext(options);
+    context = DecompilerContext.getCurrentContext();
+    structContext.setClassFilter(ClassFilter.create(DecompilerContext.getProperty(IFernflowerPreferences.INCLUDE_CLASSES),
+                                                    DecompilerContext.getProperty(IFernflowerPreferences.EXCLUDE_CLASSES)));
     DecompilerContext.setCounterContainer(new CounterContainer());
     DecompilerContext.setLogger(logger);
   }
 
   public void decompileContext() {
+    prepareContext();
+
+    structContext.saveContext();
+  }
+
+  // renames and builds the class tree once, afterwards single classes can be decompiled with decompileClass
+  public void prepareContext() {
+    if (classesProcessor != null) {
+      return;
+    }
+
     if (DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES)) {
       new IdentifierConverter().rename(structContext);
     }
@@ -50,11 +90,180 @@ public class Fernflower implements IDecompiledData {
 
     DecompilerContext.setClassProcessor(classesProcessor);
     DecompilerContext.setStructContext(structContext);
+  }
 
-    structContext.saveContext();
+  // decompiles the root class of the given own class on the loaded context, null if there is no such class.
+  // Results are cached, with prefetching enabled referenced classes and classes of the same package are
+  // decompiled in the background after the request.
+  public DecompiledClass decompileClass(String qualifiedName) {
+    DecompilerContext callerContext = DecompilerContext.getCurrentContext();
+    pendingRequests.incrementAndGet();
+    try {
+      synchronized (this) {
+        try {
+          return getDecompiledClass(qualifiedName, prefetchThread != null);
+        }
+        finally {
+          pendingRequests.decrementAndGet();
+          notifyAll();
+        }
+      }
+    }
+    finally {
+      DecompilerContext.setCurrentContext(callerContext);
+    }
+  }
+
+  // starts or stops the background decompilation of likely next classes
+  public synchronized void setPrefetchEnabled(boolean enabled) {
+    if (enabled && prefetchThread == null) {
+      prefetchThread = new Thread(new PrefetchWorker(), "Fernflower prefetch");
+      prefetchThread.setDaemon(true);
+      prefetchThread.start();
+    }
+    else if (!enabled && prefetchThread != null) {
+      // the worker finishes the class it is on and stops, interrupting it would fail that class
+      prefetchThread = null;
+      prefetchQueue.clear();
+      notifyAll();
+    }
+  }
+
+  private DecompiledClass getDecompiledClass(String qualifiedName, boolean schedule) {
+    DecompilerContext.setCurrentContext(context);
+    prepareContext();
+
+    ClassNode node = classesProcessor.getMapRootClasses().get(qualifiedName);
+    if (node == null) {
+      return null;
+    }
+    while (node.parent != null) {
+      node = node.parent;
+    }
+
+    StructClass cl = node.classStruct;
+    DecompiledClass result = decompiledClasses.get(cl.qualifiedName);
+
+    if (schedule) {
+      schedulePrefetch(cl);
+    }
+
+    if (result == null) {
+      String content = getClassContent(cl);
+
+      // the formatter moves lines, the mapping only fits the unformatted text
+      Map<String, Map<String, Map<Integer, Integer>>> mapping;
+      if (content != null && !DecompilerContext.getOption(IFernflowerPreferences.ECLIPSE_FORMAT)) {
+        String banner = DecompilerContext.getProperty(IFernflowerPreferences.BANNER).toString();
+        int bannerLines = 0;
+        for (int i = banner.indexOf('\n'); i >= 0; i = banner.indexOf('\n', i + 1)) {
+          bannerLines++;
+        }
+        mapping = DecompilerContext.getBytecodeSourceMapper().getMapping(bannerLines);
+      }
+      else {
+        mapping = Collections.emptyMap();
+      }
+
+      result = new DecompiledClass(cl.qualifiedName, content, mapping);
+      decompiledClasses.put(cl.qualifiedName, result);
+    }
+
+    return result;
+  }
+
+  // own classes referenced in the constant pool first, then the other classes of the package
+  private void schedulePrefetch(StructClass cl) {
+    Map<String, ClassNode> roots = classesProcessor.getMapRootClasses();
+    Set<String> candidates = new LinkedHashSet<String>();
+
+    ConstantPool pool = cl.getPool();
+    for (int i = 0; i < pool.size() && candidates.size() < PREFETCH_LIMIT; i++) {
+      PooledConstant constant = pool.getConstant(i);
+      if (constant != null && constant.type == CodeConstants.CONSTANT_Class) {
+        String name = ((PrimitiveConstant)constant).getString();
+        if (roots.containsKey(name)) {
+          candidates.add(name);
+        }
+      }
+    }
+
+    String packageName = cl.qualifiedName.substring(0, cl.qualifiedName.lastIndexOf('/') + 1);
+    for (ClassNode node : roots.values()) {
+      if (candidates.size() >= PREFETCH_LIMIT) {
+        break;
+      }
+      String name = node.classStruct.qualifiedName;
+      if (node.type == ClassNode.CLASS_ROOT && name.startsWith(packageName) && name.indexOf('/', packageName.length()) < 0) {
+        candidates.add(name);
+      }
+    }
+
+    prefetchQueue.clear();
+    for (String name : candidates) {
+      if (!name.equals(cl.qualifiedName) && !decompiledClasses.containsKey(name)) {
+        prefetchQueue.add(name);
+      }
+    }
+    notifyAll();
+  }
+
+  private class PrefetchWorker implements Runnable {
+    public void run() {
+      synchronized (Fernflower.this) {
+        try {
+          while (prefetchThread == Thread.currentThread()) {
+            // pending requests take precedence, they get the lock once the current class is done
+            if (prefetchQueue.isEmpty() || pendingRequests.get() > 0) {
+              Fernflower.this.wait();
+            }
+            else {
+              getDecompiledClass(prefetchQueue.removeFirst(), false);
+            }
+          }
+        }
+        catch (InterruptedException ignored) { }
+        finally {
+          DecompilerContext.setCurrentContext(null);
+        }
+      }
+    }
+  }
+
+  // cross-reference index of all own classes, no decompilation takes place
+  public void writeXrefIndex(OutputStream out) throws IOException {
+    DecompilerContext.setStructContext(structContext);
+
+    XrefIndex index = new XrefIndex();
+    for (StructClass cl : structContext.getClasses().values()) {
+      if (cl.isOwn()) {
+        index.addClass(cl);
+        cl.releaseResources();
+      }
+    }
+
+    index.write(out);
   }
 
   public void clearContext() {
+    Thread worker;
+    synchronized (this) {
+      worker = prefetchThread;
+      setPrefetchEnabled(false);
+    }
+
+    if (worker != null) {
+      try {
+        worker.join();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized (this) {
+      decompiledClasses.clear();
+    }
     DecompilerContext.setCurrentContext(null);
   }
 
@@ -85,7 +294,11 @@ public class Fernflower implements IDecompiledData {
       TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
       buffer.append(DecompilerContext.getProperty(IFernflowerPreferences.BANNER).toString());
       classesProcessor.writeClass(cl, buffer);
-      return org.spigotmc.fernflower.EclipseFormatter.format(buffer.toString()); // Spigot
+      String content = buffer.toString();
+      if (DecompilerContext.getOption(IFernflowerPreferences.ECLIPSE_FORMAT)) {
+        content = org.spigotmc.fernflower.EclipseFormatter.format(content); // Spigot
+      }
+      return content;
     }
     catch (Throwable ex) {
       DecompilerContext.getLogger().writeMessage("Class " + cl.qualifiedName + " couldn't be fully decompiled.", ex);
@@ -4,6 +4,7 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.TextBuffer;
 
 import java.util.HashMap;
+import java.util.Map;
 import java.util.Map.Entry;
 
 public class BytecodeSourceMapper {
@@ -65,6 +66,27 @@ public class BytecodeSourceMapper {
     }
   }
 
+  // class, method, bytecode offset, source line shifted by the total offset plus the given number of lines
+  public Map<String, Map<String, Map<Integer, Integer>>> getMapping(int extraOffset) {
+    Map<String, Map<String, Map<Integer, Integer>>> result = new HashMap<String, Map<String, Map<Integer, Integer>>>();
+
+    for (Entry<String, HashMap<String, HashMap<Integer, Integer>>> class_entry : mapping.entrySet()) {
+      Map<String, Map<Integer, Integer>> class_mapping = new HashMap<String, Map<Integer, Integer>>();
+      result.put(class_entry.getKey(), class_mapping);
+
+      for (Entry<String, HashMap<Integer, Integer>> method_entry : class_entry.getValue().entrySet()) {
+        Map<Integer, Integer> method_mapping = new HashMap<Integer, Integer>();
+        class_mapping.put(method_entry.getKey(), method_mapping);
+
+        for (Entry<Integer, Integer> line : method_entry.getValue().entrySet()) {
+          method_mapping.put(line.getKey(), line.getValue() + offset_total + extraOffset);
+        }
+      }
+    }
+
+    return result;
+  }
+
   public int getTotalOffset() {
     return offset_total;
   }
@@ -19,7 +19,10 @@ import org.jetbrains.java.decompiler.main.ClassesProcessor;
 import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.TextBuffer;
+import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
+import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructInnerClassesAttribute;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -74,7 +77,14 @@ public class ImportCollector {
       }
     }
     else {
-      fullname = fullname.replace('$', '.');
+      String[] nesting = getFilteredClassNesting(fullname.replace('.', '/'));
+      if (nesting != null) {
+        fullname = nesting[0].replace('/', '.');
+        retname = nesting[1];
+      }
+      else {
+        fullname = fullname.replace('$', '.');
+      }
     }
 
     String nshort = fullname;
@@ -108,6 +118,47 @@ public class ImportCollector {
     return retname == null ? nshort : retname;
   }
 
+  // own classes outside of the class filter have no node, their member nesting is taken from the class file.
+  // Returns the top level class and the qualified simple name, or null if the class is no member class.
+  private static String[] getFilteredClassNesting(String name) {
+    StructContext context = DecompilerContext.getStructContext();
+    if (!context.isFilteredOut(name)) {
+      return null;
+    }
+
+    String simpleName = null;
+    String outerName = name;
+
+    while (true) {
+      StructClass cl = context.getClass(outerName);
+      StructInnerClassesAttribute inner = cl == null ? null :
+        (StructInnerClassesAttribute)cl.getAttributes().getWithKey(StructGeneralAttribute.ATTRIBUTE_INNER_CLASSES);
+
+      String[] member = null;
+      if (inner != null) {
+        for (String[] entry : inner.getStringEntries()) {
+          if (outerName.equals(entry[0])) {
+            member = entry[1] != null && entry[2] != null ? entry : null;
+            break;
+          }
+        }
+      }
+
+      if (member == null) {
+        break;
+      }
+
+      simpleName = simpleName == null ? member[2] : member[2] + "." + simpleName;
+      outerName = member[1];
+    }
+
+    if (simpleName == null) {
+      return null;
+    }
+
+    return new String[]{outerName, outerName.substring(outerName.lastIndexOf('/') + 1) + "." + simpleName};
+  }
+
   public int writeImports(TextBuffer buffer) {
 
     int importlines_written = 0;
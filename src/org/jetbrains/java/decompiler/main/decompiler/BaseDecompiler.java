@@ -15,6 +15,7 @@
  */
 package org.jetbrains.java.decompiler.main.decompiler;
 
+import org.jetbrains.java.decompiler.main.DecompiledClass;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
@@ -44,4 +45,17 @@ public class BaseDecompiler {
       fernflower.clearContext();
     }
   }
+
+  // the loaded context stays resident between calls until close() is invoked
+  public DecompiledClass decompileClass(String qualifiedName) {
+    return fernflower.decompileClass(qualifiedName);
+  }
+
+  public void setPrefetchEnabled(boolean enabled) {
+    fernflower.setPrefetchEnabled(enabled);
+  }
+
+  public void close() {
+    fernflower.clearContext();
+  }
 }
@@ -19,7 +19,9 @@ import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.jetbrains.java.decompiler.main.rels.MethodPipeline;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.io.*;
@@ -36,7 +38,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
   public static void main(String[] args) {
     if (args.length < 2) {
       System.out.println(
-        "Usage: java -jar fernflower.jar [-<option>=<value>]* [<source>]+ <destination>\n" +
+        "Usage: java -jar fernflower.jar [-profile=<default|fast>] [-include=<patterns>]* [-exclude=<patterns>]* [-<option>=<value>]* [<source>]+ <destination>\n" +
         "Example: java -jar fernflower.jar -dgs=true c:\\my\\source\\ c:\\my.jar d:\\decompiled\\");
       return;
     }
@@ -49,8 +51,25 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     for (int i = 0; i < args.length - 1; ++i) { // last parameter - destination
       String arg = args[i];
 
-      if (isOption && arg.startsWith("-") &&
-          arg.length() > 5 && arg.charAt(4) == '=') {
+      if (isOption && arg.startsWith("-" + IFernflowerPreferences.PIPELINE_PROFILE + "=")) {
+        String profile = arg.substring(IFernflowerPreferences.PIPELINE_PROFILE.length() + 2);
+        if (!MethodPipeline.isProfile(profile)) {
+          System.out.println("error: unknown profile '" + profile + "'");
+          return;
+        }
+
+        mapOptions.put(IFernflowerPreferences.PIPELINE_PROFILE, profile);
+      }
+      else if (isOption && (arg.startsWith("-" + IFernflowerPreferences.INCLUDE_CLASSES + "=") ||
+                            arg.startsWith("-" + IFernflowerPreferences.EXCLUDE_CLASSES + "="))) {
+        // repeatable, patterns are case sensitive
+        String key = arg.substring(1, arg.indexOf('='));
+        String patterns = arg.substring(key.length() + 2);
+        Object previous = mapOptions.get(key);
+        mapOptions.put(key, previous == null ? patterns : previous + "," + patterns);
+      }
+      else if (isOption && arg.startsWith("-") &&
+               arg.length() > 5 && arg.charAt(4) == '=') {
         String value = arg.substring(5).toUpperCase(Locale.US);
         if ("TRUE".equals(value)) {
           value = "1";
@@ -101,6 +120,8 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
   // Implementation
   // *******************************************************************
 
+  private static final String XREF_INDEX_FILE = "xref.idx";
+
   private final File root;
   private final Fernflower fernflower;
   private Map<String, ZipOutputStream> mapArchiveStreams = new HashMap<String, ZipOutputStream>();
@@ -122,13 +143,34 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   public void decompileContext() {
     try {
-      fernflower.decompileContext();
+      if (DecompilerContext.getOption(IFernflowerPreferences.XREF_INDEX)) {
+        saveXrefIndex();
+      }
+      else {
+        fernflower.decompileContext();
+      }
     }
     finally {
       fernflower.clearContext();
     }
   }
 
+  private void saveXrefIndex() {
+    File file = new File(root, XREF_INDEX_FILE);
+    try {
+      OutputStream out = new FileOutputStream(file);
+      try {
+        fernflower.writeXrefIndex(out);
+      }
+      finally {
+        out.close();
+      }
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot write cross-reference index " + file, ex);
+    }
+  }
+
   // *******************************************************************
   // Interface IBytecodeProvider
   // *******************************************************************
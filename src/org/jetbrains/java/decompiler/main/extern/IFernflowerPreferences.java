@@ -43,12 +43,23 @@ public interface IFernflowerPreferences {
   String FINALLY_DEINLINE = "fdi";
   String IDEA_NOT_NULL_ANNOTATION = "inn";
   String LAMBDA_TO_ANONYMOUS_CLASS = "lac";
+  String ECLIPSE_FORMAT = "efm";
+  String STUB_OUTPUT = "stb";
+  String XREF_INDEX = "xrf";
 
   String BYTECODE_SOURCE_MAPPING = "bsm";
   String USE_DEBUG_LINE_NUMBERS = "udl";
 
   String LOG_LEVEL = "log";
   String MAX_PROCESSING_METHOD = "mpm";
+  String MAX_JSR_INLINED_BLOCKS = "mjb";
+  String METHOD_BODY_CACHE = "mbc";
+  String PIPELINE_PROFILE = "profile";
+  String INCLUDE_CLASSES = "include";
+  String EXCLUDE_CLASSES = "exclude";
+
+  String PROFILE_DEFAULT = "default";
+  String PROFILE_FAST = "fast";
   String RENAME_ENTITIES = "ren";
   String USER_RENAMER_CLASS = "urc";
   String NEW_LINE_SEPARATOR = "nls";
@@ -81,6 +92,9 @@ public interface IFernflowerPreferences {
     put(FINALLY_DEINLINE, "1");
     put(IDEA_NOT_NULL_ANNOTATION, "1");
     put(LAMBDA_TO_ANONYMOUS_CLASS, "0");
+    put(ECLIPSE_FORMAT, "1");
+    put(STUB_OUTPUT, "0");
+    put(XREF_INDEX, "0");
 
     put(BYTECODE_SOURCE_MAPPING, "0");
     put(USE_DEBUG_LINE_NUMBERS, "0");
@@ -89,8 +103,21 @@ public interface IFernflowerPreferences {
 
     put(LOG_LEVEL, IFernflowerLogger.Severity.INFO.name());
     put(MAX_PROCESSING_METHOD, "0");
+    put(MAX_JSR_INLINED_BLOCKS, "0");
+    put(METHOD_BODY_CACHE, "0");
+    put(PIPELINE_PROFILE, PROFILE_DEFAULT);
     put(RENAME_ENTITIES, "0");
     put(NEW_LINE_SEPARATOR, (InterpreterUtil.IS_WINDOWS ? "0" : "1"));
     put(INDENT_STRING, "    ");
   }});
+
+  // options of the fast profile, explicitly given options take precedence
+  Map<String, Object> FAST_PROFILE = Collections.unmodifiableMap(new HashMap<String, Object>() {{
+    put(DECOMPILE_CLASS_1_4, "0");
+    put(DECOMPILE_ASSERTIONS, "0");
+    put(DECOMPILE_ENUM, "0");
+    put(FINALLY_DEINLINE, "0");
+    put(IDEA_NOT_NULL_ANNOTATION, "0");
+    put(ECLIPSE_FORMAT, "0");
+  }});
 }
@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.main.rels;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.main.collectors.VarNamesCollector;
@@ -25,6 +26,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPaar;
+import org.jetbrains.java.decompiler.struct.ClassFilter;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructField;
 import org.jetbrains.java.decompiler.struct.StructMethod;
@@ -64,6 +66,13 @@ public class ClassWrapper {
     }
 
     int maxsec = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.MAX_PROCESSING_METHOD).toString());
+    boolean stubs = DecompilerContext.getOption(IFernflowerPreferences.STUB_OUTPUT);
+    ClassFilter filter = DecompilerContext.getStructContext().getClassFilter();
+
+    MethodBodyCache cache = DecompilerContext.getClassProcessor().getMethodBodyCache();
+    if (cache != null && !MethodBodyCache.acceptsClass(classStruct)) {
+      cache = null;
+    }
 
     for (StructMethod mt : classStruct.getMethods()) {
 
@@ -84,11 +93,22 @@ public class ClassWrapper {
       RootStatement root = null;
 
       boolean isError = false;
+      boolean stub = mt.containsCode() &&
+                     (stubs || filter != null && !filter.acceptsMethod(classStruct.qualifiedName, mt.getName(), mt.getDescriptor()));
 
       try {
-        if (mt.containsCode()) {
+        if (mt.containsCode() && (!stub || stubs && isNeededByStubs(mt))) {
 
-          if (maxsec == 0) { // blocking wait
+          String key = cache == null ? null : MethodBodyCache.getKey(classStruct, mt);
+          MethodBodyCache.CachedBody cached = key == null ? null : cache.get(key);
+
+          if (cached != null) {
+            mt.releaseResources();
+            root = cached.root;
+            varproc = cached.resetVarProcessor();
+            counter = cached.counter;
+          }
+          else if (maxsec == 0) { // blocking wait
             root = MethodProcessorThread.codeToJava(mt, varproc);
           }
           else {
@@ -117,6 +137,10 @@ public class ClassWrapper {
               root = mtproc.getResult();
             }
           }
+
+          if (key != null && cached == null && root != null) {
+            cache.put(key, root, varproc, counter);
+          }
         }
         else {
           boolean thisvar = !mt.hasModifier(CodeConstants.ACC_STATIC);
@@ -154,6 +178,7 @@ public class ClassWrapper {
 
       MethodWrapper meth = new MethodWrapper(root, varproc, mt, counter);
       meth.decompiledWithErrors = isError;
+      meth.stub = stub;
 
       methods.addWithKey(meth, InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
 
@@ -176,6 +201,25 @@ public class ClassWrapper {
     DecompilerContext.getLogger().endClass();
   }
 
+  // enum constants are written with the arguments from the static initializer of the enum, constant bodies
+  // are anonymous classes passing them on to the super constructor
+  private boolean isNeededByStubs(StructMethod mt) {
+    if (!DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM)) {
+      return false;
+    }
+
+    if (!classStruct.hasModifier(CodeConstants.ACC_ENUM)) {
+      return false;
+    }
+
+    if ("<clinit>".equals(mt.getName())) {
+      return true;
+    }
+
+    ClassNode node = DecompilerContext.getClassProcessor().getMapRootClasses().get(classStruct.qualifiedName);
+    return "<init>".equals(mt.getName()) && node != null && node.type == ClassNode.CLASS_ANONYMOUS;
+  }
+
   @SuppressWarnings("deprecation")
   private static void killThread(Thread thread) {
     thread.stop();
@@ -84,7 +84,12 @@ public class LambdaProcessor {
     Map<String, String> mapMethodsLambda = new HashMap<String, String>();
 
     // iterate over code and find invocations of bootstrap methods. Replace them with anonymous classes.
+    // decoded sequences stay in the method until its code is processed, raw bytes are scanned first to skip the rest
     for (StructMethod mt : cl.getMethods()) {
+      if (!mt.containsOpcode(CodeConstants.opc_invokedynamic)) {
+        continue;
+      }
+
       mt.expandData();
 
       InstructionSequence seq = mt.getInstructionSequence();
@@ -125,8 +130,6 @@ public class LambdaProcessor {
           }
         }
       }
-
-      mt.releaseResources();
     }
 
     // build class hierarchy on lambda
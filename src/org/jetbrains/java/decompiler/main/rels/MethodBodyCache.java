@@ -0,0 +1,213 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.code.ExceptionHandler;
+import org.jetbrains.java.decompiler.code.Instruction;
+import org.jetbrains.java.decompiler.code.InstructionSequence;
+import org.jetbrains.java.decompiler.main.ClassesProcessor.ClassNode;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.StructMethod;
+import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructGenericSignatureAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructLocalVariableTableAttribute;
+import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
+import org.jetbrains.java.decompiler.struct.consts.PooledConstant;
+import org.jetbrains.java.decompiler.struct.consts.PrimitiveConstant;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.LongObjectMap;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Statement trees of decompiled methods keyed by a digest of their code, exception table and the referenced constant
+ * pool bodies in symbolic form, so that byte-identical methods (shaded copies of a utility class, generated helpers)
+ * go through the pipeline only once. A reused tree is rendered anew in every class, which collects the imports of
+ * that class, and its variable names are reset to the pipeline result and renamed against the fields of the class.
+ *
+ * Only trees that are not modified after the pipeline are shared: constructors and static initializers are left out
+ * as well as methods referencing their own class and all methods of classes with nested, local, anonymous classes or
+ * lambdas. Instance methods are keyed with the name of their class, since 'this' is typed by it.
+ */
+public class MethodBodyCache {
+
+  private final Map<String, CachedBody> bodies;
+
+  public MethodBodyCache(final int maxSize) {
+    bodies = new LinkedHashMap<String, CachedBody>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedBody> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  public static boolean acceptsClass(StructClass cl) {
+    ClassNode node = DecompilerContext.getClassProcessor().getMapRootClasses().get(cl.qualifiedName);
+    return node != null && node.type == ClassNode.CLASS_ROOT && node.nested.isEmpty();
+  }
+
+  // null if the method must not share its body
+  public static String getKey(StructClass cl, StructMethod mt) throws IOException {
+    if ("<init>".equals(mt.getName()) || "<clinit>".equals(mt.getName())) {
+      return null;
+    }
+
+    mt.expandData();
+
+    StringBuilder buffer = new StringBuilder();
+    buffer.append(cl.getBytecodeVersion()).append(' ').append(mt.getAccessFlags()).append(' ');
+    buffer.append(mt.getDescriptor()).append(' ').append(mt.getLocalVariables());
+
+    if (!mt.hasModifier(CodeConstants.ACC_STATIC)) {
+      buffer.append(' ').append(cl.qualifiedName);
+      appendSignature(buffer, (StructGenericSignatureAttribute)cl.getAttributes().getWithKey("Signature"));
+    }
+    appendSignature(buffer, (StructGenericSignatureAttribute)mt.getAttributes().getWithKey("Signature"));
+
+    StructLocalVariableTableAttribute lvt =
+      (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+    if (lvt != null) {
+      buffer.append(' ').append(lvt.getMapVarNames());
+    }
+
+    InstructionSequence seq = mt.getInstructionSequence();
+    ConstantPool pool = cl.getPool();
+
+    for (int i = 0; i < seq.length(); i++) {
+      Instruction instr = seq.getInstr(i);
+      buffer.append('\n').append(seq.getOffset(i)).append(' ').append(instr.opcode);
+      if (instr.wide) {
+        buffer.append('w');
+      }
+
+      int operands = instr.operandsCount();
+      int first = 0;
+
+      switch (instr.opcode) {
+        case CodeConstants.opc_invokedynamic:
+          return null;
+        case CodeConstants.opc_ldc:
+        case CodeConstants.opc_ldc_w:
+        case CodeConstants.opc_ldc2_w:
+        case CodeConstants.opc_getstatic:
+        case CodeConstants.opc_putstatic:
+        case CodeConstants.opc_getfield:
+        case CodeConstants.opc_putfield:
+        case CodeConstants.opc_invokevirtual:
+        case CodeConstants.opc_invokespecial:
+        case CodeConstants.opc_invokestatic:
+        case CodeConstants.opc_invokeinterface:
+        case CodeConstants.opc_new:
+        case CodeConstants.opc_anewarray:
+        case CodeConstants.opc_checkcast:
+        case CodeConstants.opc_instanceof:
+        case CodeConstants.opc_multianewarray:
+          if (!appendConstant(buffer, pool, instr.getOperand(0), cl.qualifiedName)) {
+            return null;
+          }
+          first = 1;
+      }
+
+      for (int j = first; j < operands; j++) {
+        buffer.append(' ').append(instr.getOperand(j));
+      }
+    }
+
+    for (ExceptionHandler handler : seq.getExceptionTable().getHandlers()) {
+      buffer.append('\n').append(handler.from).append(' ').append(handler.to).append(' ').append(handler.handler);
+      buffer.append(' ').append(handler.exceptionClass);
+    }
+
+    return InterpreterUtil.getDigest(buffer.toString());
+  }
+
+  private static void appendSignature(StringBuilder buffer, StructGenericSignatureAttribute attr) {
+    if (attr != null) {
+      buffer.append(' ').append(attr.getSignature());
+    }
+  }
+
+  private static boolean appendConstant(StringBuilder buffer, ConstantPool pool, int index, String ownClass) {
+    PooledConstant constant = pool.getConstant(index);
+
+    if (constant instanceof PrimitiveConstant) {
+      PrimitiveConstant primitive = pool.getPrimitiveConstant(index);
+      if (primitive.type == CodeConstants.CONSTANT_Class) {
+        String name = primitive.getString();
+        if (name.equals(ownClass) || name.endsWith("L" + ownClass + ";")) {
+          return false;
+        }
+      }
+      String value = String.valueOf(primitive.value);
+      buffer.append(' ').append(primitive.type).append(' ').append(value.length()).append(' ').append(value);
+      return true;
+    }
+
+    if (constant instanceof LinkConstant && constant.type != CodeConstants.CONSTANT_MethodHandle) {
+      LinkConstant link = pool.getLinkConstant(index);
+      if (link.classname.equals(ownClass)) {
+        return false;
+      }
+      buffer.append(' ').append(link.type).append(' ').append(link.classname).append(' ').append(link.elementname);
+      buffer.append(' ').append(link.descriptor);
+      return true;
+    }
+
+    return false;
+  }
+
+  public CachedBody get(String key) {
+    return bodies.get(key);
+  }
+
+  public void put(String key, RootStatement root, VarProcessor varproc, CounterContainer counter) {
+    bodies.put(key, new CachedBody(root, varproc, counter));
+  }
+
+  public void clear() {
+    bodies.clear();
+  }
+
+  public static class CachedBody {
+    public final RootStatement root;
+    public final VarProcessor varproc;
+    public final CounterContainer counter;
+
+    // variable names as assigned by the pipeline
+    private final LongObjectMap<String> varNames;
+
+    private CachedBody(RootStatement root, VarProcessor varproc, CounterContainer counter) {
+      this.root = root;
+      this.varproc = varproc;
+      this.counter = counter;
+      this.varNames = varproc.copyVarNames();
+    }
+
+    public VarProcessor resetVarProcessor() {
+      varproc.resetVarNames(varNames);
+      return varproc;
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+/*
+ * A step of the method decompilation pipeline. A pass declares the parts of the method representation it reads
+ * and the parts it may change, and reports whether it actually changed anything, so that MethodPassManager can
+ * skip it while its inputs stay untouched.
+ */
+public abstract class MethodPass {
+
+  // parts of the method representation
+  public static final int GRAPH = 1;        // control flow graph of basic blocks
+  public static final int STATEMENTS = 2;   // statement tree and its edges
+  public static final int EXPRESSIONS = 4;  // expressions of the statements
+  public static final int VARIABLES = 8;    // variable versions and definitions
+
+  private final String name;
+  private final int reads;
+  private final int invalidates;
+
+  protected MethodPass(String name, int reads, int invalidates) {
+    this.name = name;
+    this.reads = reads;
+    this.invalidates = invalidates;
+  }
+
+  // returns true if the method representation was changed
+  public abstract boolean run(MethodPassManager manager);
+
+  public String getName() {
+    return name;
+  }
+
+  public int getReads() {
+    return reads;
+  }
+
+  public int getInvalidates() {
+    return invalidates;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.StructMethod;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Runs the passes of a method pipeline and holds the state they work on. A pass reporting no change is skipped
+ * on later invocations until a pass that ran since has invalidated one of the parts it reads. Leaf passes are
+ * timed, the totals are logged at TRACE level.
+ */
+public class MethodPassManager {
+
+  private static final int PARTS = 4;
+
+  private final StructMethod mt;
+  private final VarProcessor varproc;
+  private final boolean isInitializer;
+
+  private ControlFlowGraph graph;
+  private RootStatement root;
+
+  // modification count of each part of the representation
+  private final int[] versions = new int[PARTS];
+
+  // versions seen by passes whose last run changed nothing
+  private final Map<MethodPass, int[]> unchangedPasses = new HashMap<MethodPass, int[]>();
+
+  // name -> {time in ns, runs, skips}
+  private final Map<String, long[]> statistics = new LinkedHashMap<String, long[]>();
+
+  public MethodPassManager(StructMethod mt, VarProcessor varproc, ControlFlowGraph graph) {
+    this.mt = mt;
+    this.varproc = varproc;
+    this.graph = graph;
+    this.isInitializer = "<clinit>".equals(mt.getName()); // for now static initializer only
+  }
+
+  public void run(List<MethodPass> pipeline) {
+    for (MethodPass pass : pipeline) {
+      run(pass);
+    }
+
+    IFernflowerLogger logger = DecompilerContext.getLogger();
+    if (logger.accepts(IFernflowerLogger.Severity.TRACE)) {
+      logger.writeMessage("Passes of " + mt.getName() + ": " + getStatisticsString(), IFernflowerLogger.Severity.TRACE);
+    }
+  }
+
+  public boolean run(MethodPass pass) {
+
+    if (pass instanceof PassLoop) {
+      return pass.run(this); // steps are timed and skipped on their own
+    }
+
+    long[] stats = statistics.get(pass.getName());
+    if (stats == null) {
+      statistics.put(pass.getName(), stats = new long[3]);
+    }
+
+    int[] seen = unchangedPasses.get(pass);
+    if (seen != null && !isInvalidated(pass.getReads(), seen)) {
+      stats[2]++;
+      return false;
+    }
+
+    long start = System.nanoTime();
+    boolean changed = pass.run(this);
+    stats[0] += System.nanoTime() - start;
+    stats[1]++;
+
+    if (changed) {
+      unchangedPasses.remove(pass);
+      invalidate(pass.getInvalidates());
+    }
+    else {
+      unchangedPasses.put(pass, versions.clone());
+    }
+
+    return changed;
+  }
+
+  private boolean isInvalidated(int parts, int[] seen) {
+    for (int i = 0; i < PARTS; i++) {
+      if ((parts & (1 << i)) != 0 && versions[i] != seen[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void invalidate(int parts) {
+    for (int i = 0; i < PARTS; i++) {
+      if ((parts & (1 << i)) != 0) {
+        versions[i]++;
+      }
+    }
+  }
+
+  public String getStatisticsString() {
+    StringBuilder buf = new StringBuilder();
+    for (Map.Entry<String, long[]> entry : statistics.entrySet()) {
+      long[] stats = entry.getValue();
+      if (buf.length() > 0) {
+        buf.append(", ");
+      }
+      buf.append(entry.getKey()).append(' ').append(stats[0] / 1000).append("us/").append(stats[1]);
+      if (stats[2] > 0) {
+        buf.append(" (").append(stats[2]).append(" skipped)");
+      }
+    }
+    return buf.toString();
+  }
+
+  public Map<String, long[]> getStatistics() {
+    return statistics;
+  }
+
+  public StructMethod getMethod() {
+    return mt;
+  }
+
+  public StructClass getClassStruct() {
+    return mt.getClassStruct();
+  }
+
+  public VarProcessor getVarProcessor() {
+    return varproc;
+  }
+
+  public boolean isInitializer() {
+    return isInitializer;
+  }
+
+  public ControlFlowGraph getGraph() {
+    return graph;
+  }
+
+  public void setGraph(ControlFlowGraph graph) {
+    this.graph = graph;
+  }
+
+  public RootStatement getRoot() {
+    return root;
+  }
+
+  public void setRoot(RootStatement root) {
+    this.root = root;
+  }
+}
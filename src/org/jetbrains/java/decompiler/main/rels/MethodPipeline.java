@@ -0,0 +1,311 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.modules.code.DeadCodeHelper;
+import org.jetbrains.java.decompiler.modules.decompiler.*;
+import org.jetbrains.java.decompiler.modules.decompiler.deobfuscator.ExceptionDeobfuscator;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jetbrains.java.decompiler.main.rels.MethodPass.*;
+
+// passes turning the bytecode of a method into a statement tree, in the order of the pipeline profiles
+public class MethodPipeline {
+
+  public static boolean isProfile(String profile) {
+    return IFernflowerPreferences.PROFILE_DEFAULT.equalsIgnoreCase(profile) || IFernflowerPreferences.PROFILE_FAST.equalsIgnoreCase(profile);
+  }
+
+  public static List<MethodPass> create(String profile) {
+    if (profile == null || IFernflowerPreferences.PROFILE_DEFAULT.equalsIgnoreCase(profile)) {
+      return createPipeline(false);
+    }
+    if (IFernflowerPreferences.PROFILE_FAST.equalsIgnoreCase(profile)) {
+      return createPipeline(true);
+    }
+    throw new IllegalArgumentException("Unknown pipeline profile: " + profile);
+  }
+
+  // the fast pipeline leaves finally handlers as catch clauses, does not look for IDEA not-null checks
+  // and simplifies stack variables only once, without another pass after ++/-- expressions were found
+  private static List<MethodPass> createPipeline(boolean fast) {
+
+    List<MethodPass> pipeline = new ArrayList<MethodPass>();
+
+    // control flow graph
+
+    pipeline.add(new MethodPass("removeDeadBlocks", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return DeadCodeHelper.removeDeadBlocks(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("inlineJsr", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return manager.getGraph().inlineJsr(manager.getMethod());
+      }
+    });
+
+    // TODO: move to the start, before jsr inlining
+    pipeline.add(new MethodPass("connectDummyExitBlock", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return DeadCodeHelper.connectDummyExitBlock(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("removeGotos", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return DeadCodeHelper.removeGotos(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("removeCircularRanges", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return ExceptionDeobfuscator.removeCircularRanges(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("restorePopRanges", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return ExceptionDeobfuscator.restorePopRanges(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("removeEmptyRanges", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES) &&
+               ExceptionDeobfuscator.removeEmptyRanges(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("incorporateValueReturns", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        // special case: single return instruction outside of a protected range
+        return DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN) &&
+               DeadCodeHelper.incorporateValueReturns(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("insertEmptyExceptionHandlerBlocks", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return ExceptionDeobfuscator.insertEmptyExceptionHandlerBlocks(manager.getGraph());
+      }
+    });
+
+    pipeline.add(new MethodPass("mergeBasicBlocks", GRAPH, GRAPH) {
+      public boolean run(MethodPassManager manager) {
+        return DeadCodeHelper.mergeBasicBlocks(manager.getGraph());
+      }
+    });
+
+    // statements
+
+    pipeline.add(new MethodPass("parseGraph", GRAPH, STATEMENTS | EXPRESSIONS) {
+      public boolean run(MethodPassManager manager) {
+        ControlFlowGraph graph = manager.getGraph();
+
+        DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, manager.getMethod().getLocalVariables());
+
+        if (ExceptionDeobfuscator.hasObfuscatedExceptions(graph)) {
+          DecompilerContext.getLogger().writeMessage("Heavily obfuscated exception ranges found!", IFernflowerLogger.Severity.WARN);
+        }
+
+        // a new statement tree is built in any case
+        manager.setRoot(DomHelper.parseGraph(graph));
+        return true;
+      }
+    });
+
+    if (!fast) {
+      pipeline.add(new PassLoop("finally")
+                     .add(new MethodPass("iterateFinally", GRAPH | STATEMENTS, GRAPH) {
+                       private FinallyProcessor fproc;
+
+                       public boolean run(MethodPassManager manager) {
+                         if (fproc == null) {
+                           fproc = new FinallyProcessor(manager.getVarProcessor());
+                         }
+                         return fproc.iterateGraph(manager.getMethod(), manager.getRoot(), manager.getGraph());
+                       }
+                     }, PassLoop.NEXT, PassLoop.EXIT)
+                     .add(new MethodPass("reparseGraph", GRAPH, STATEMENTS | EXPRESSIONS) {
+                       public boolean run(MethodPassManager manager) {
+                         manager.setRoot(DomHelper.parseGraph(manager.getGraph()));
+                         return true;
+                       }
+                     }));
+    }
+
+    // remove synchronized exception handler
+    // not until now because of comparison between synchronized statements in the finally cycle
+    pipeline.add(new MethodPass("removeSynchronizedHandler", STATEMENTS, STATEMENTS) {
+      public boolean run(MethodPassManager manager) {
+        return DomHelper.removeSynchronizedHandler(manager.getRoot());
+      }
+    });
+
+    pipeline.add(new MethodPass("condenseSequences", STATEMENTS, STATEMENTS) {
+      public boolean run(MethodPassManager manager) {
+        return SequenceHelper.condenseSequences(manager.getRoot());
+      }
+    });
+
+    pipeline.add(new MethodPass("clearStatements", STATEMENTS, STATEMENTS) {
+      public boolean run(MethodPassManager manager) {
+        return ClearStructHelper.clearStatements(manager.getRoot());
+      }
+    });
+
+    pipeline.add(new MethodPass("processExpressions", STATEMENTS, EXPRESSIONS | VARIABLES) {
+      public boolean run(MethodPassManager manager) {
+        // the expressions are built from scratch
+        new ExprProcessor().processStatement(manager.getRoot(), manager.getClassStruct());
+        return true;
+      }
+    });
+
+    // stack variables
+    PassLoop stackVars = new PassLoop("stackVars")
+      .add(createSimplifyStackVars())
+      .add(createSetVarVersions())
+      .add(new MethodPass("findPPandMM", STATEMENTS | EXPRESSIONS, EXPRESSIONS | VARIABLES) {
+        public boolean run(MethodPassManager manager) {
+          return new PPandMMHelper().findPPandMM(manager.getRoot());
+        }
+      }, fast ? PassLoop.EXIT : PassLoop.NEXT, PassLoop.EXIT);
+    pipeline.add(stackVars);
+
+    // structure
+    PassLoop loopsAndIfs = new PassLoop("loopsAndIfs")
+      .add(new MethodPass("enhanceLoops", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS) {
+        public boolean run(MethodPassManager manager) {
+          return MergeHelper.enhanceLoops(manager.getRoot());
+        }
+      })
+      .add(new MethodPass("extractLoops", STATEMENTS, STATEMENTS) {
+        public boolean run(MethodPassManager manager) {
+          return LoopExtractHelper.extractLoops(manager.getRoot());
+        }
+      }, PassLoop.RESTART, PassLoop.NEXT)
+      .add(new MethodPass("mergeAllIfs", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS) {
+        public boolean run(MethodPassManager manager) {
+          return IfHelper.mergeAllIfs(manager.getRoot());
+        }
+      }, PassLoop.NEXT, PassLoop.EXIT);
+
+    pipeline.add(new PassLoop("structure")
+                   .add(new MethodPass("cleanUpEdges", STATEMENTS | EXPRESSIONS, STATEMENTS) {
+                     public boolean run(MethodPassManager manager) {
+                       return LabelHelper.cleanUpEdges(manager.getRoot());
+                     }
+                   })
+                   .add(loopsAndIfs)
+                   .add(new MethodPass("removeNotNullChecks", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS | VARIABLES) {
+                     public boolean run(MethodPassManager manager) {
+                       if (DecompilerContext.getOption(IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION)) {
+                         RootStatement root = manager.getRoot();
+
+                         if (IdeaNotNullHelper.removeHardcodedChecks(root, manager.getMethod())) {
+
+                           SequenceHelper.condenseSequences(root);
+
+                           StackVarsProcessor stackproc = new StackVarsProcessor();
+                           stackproc.simplifyStackVars(root, manager.getMethod(), manager.getClassStruct());
+
+                           manager.getVarProcessor().setVarVersions(root);
+
+                           return true;
+                         }
+                       }
+                       return false;
+                     }
+                   })
+                   .add(new MethodPass("identifyLabels", STATEMENTS | EXPRESSIONS, STATEMENTS) {
+                     public boolean run(MethodPassManager manager) {
+                       return LabelHelper.identifyLabels(manager.getRoot());
+                     }
+                   })
+                   .add(new MethodPass("inlineSingleBlocks", STATEMENTS, STATEMENTS) {
+                     public boolean run(MethodPassManager manager) {
+                       return InlineSingleBlockHelper.inlineSingleBlocks(manager.getRoot());
+                     }
+                   }, PassLoop.RESTART, PassLoop.NEXT)
+                   .add(new MethodPass("condenseExits", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS) {
+                     public boolean run(MethodPassManager manager) {
+                       // initializer may have at most one return point, so no transformation of method exits permitted
+                       return !manager.isInitializer() && ExitHelper.condenseExits(manager.getRoot());
+                     }
+                   }, PassLoop.NEXT, PassLoop.EXIT));
+
+    // finishing
+
+    pipeline.add(new MethodPass("removeRedundantReturns", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS) {
+      public boolean run(MethodPassManager manager) {
+        return ExitHelper.removeRedundantReturns(manager.getRoot());
+      }
+    });
+
+    pipeline.add(new MethodPass("identifySecondaryFunctions", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS) {
+      public boolean run(MethodPassManager manager) {
+        return SecondaryFunctionsHelper.identifySecondaryFunctions(manager.getRoot());
+      }
+    });
+
+    pipeline.add(new MethodPass("setVarDefinitions", STATEMENTS | EXPRESSIONS | VARIABLES, EXPRESSIONS | VARIABLES) {
+      public boolean run(MethodPassManager manager) {
+        // definitions are always recomputed
+        manager.getVarProcessor().setVarDefinitions(manager.getRoot());
+        return true;
+      }
+    });
+
+    // must be the last invocation, because it makes the statement structure inconsistent
+    // FIXME: new edge type needed
+    pipeline.add(new MethodPass("replaceContinueWithBreak", STATEMENTS, STATEMENTS) {
+      public boolean run(MethodPassManager manager) {
+        return LabelHelper.replaceContinueWithBreak(manager.getRoot());
+      }
+    });
+
+    return pipeline;
+  }
+
+  private static MethodPass createSimplifyStackVars() {
+    return new MethodPass("simplifyStackVars", STATEMENTS | EXPRESSIONS, STATEMENTS | EXPRESSIONS | VARIABLES) {
+      public boolean run(MethodPassManager manager) {
+        return new StackVarsProcessor().simplifyStackVars(manager.getRoot(), manager.getMethod(), manager.getClassStruct());
+      }
+    };
+  }
+
+  private static MethodPass createSetVarVersions() {
+    return new MethodPass("setVarVersions", STATEMENTS | EXPRESSIONS, EXPRESSIONS | VARIABLES) {
+      public boolean run(MethodPassManager manager) {
+        // the variable versions are rebuilt in any case
+        manager.getVarProcessor().setVarVersions(manager.getRoot());
+        return true;
+      }
+    };
+  }
+}
@@ -17,7 +17,6 @@ package org.jetbrains.java.decompiler.main.rels;
 
 import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
-import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarProcessor;
 import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionPaar;
@@ -43,6 +42,9 @@ public class MethodWrapper {
 
   public boolean decompiledWithErrors;
 
+  // body written as a stub, decompiled only if stubs need it
+  public boolean stub;
+
   public HashSet<String> setOuterVarNames = new HashSet<String>();
 
   public MethodWrapper(RootStatement root, VarProcessor varproc, StructMethod methodStruct, CounterContainer counter) {
@@ -54,8 +56,7 @@ public class MethodWrapper {
 
   public DirectGraph getOrBuildGraph() {
     if (graph == null && root != null) {
-      FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-      graph = flatthelper.buildDirectGraph(root);
+      graph = root.getFlattening().getDirectGraph();
     }
     return graph;
   }
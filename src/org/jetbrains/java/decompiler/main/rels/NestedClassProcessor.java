@@ -51,13 +51,7 @@ public class NestedClassProcessor {
 
   public void processClass(ClassNode root, ClassNode node) {
 
-    // hide synthetic lambda content methods
-    if (node.type == ClassNode.CLASS_LAMBDA && !node.lambda_information.is_method_reference) {
-      ClassNode node_content = DecompilerContext.getClassProcessor().getMapRootClasses().get(node.classStruct.qualifiedName);
-      if (node_content != null && node_content.wrapper != null) {
-        node_content.wrapper.getHiddenMembers().add(node.lambda_information.content_method_key);
-      }
-    }
+    hideLambdaContent(node);
 
     if (node.nested.isEmpty()) {
       return;
@@ -75,6 +69,87 @@ public class NestedClassProcessor {
       checkNotFoundClasses(root, node);
     }
 
+    setMissingNames(node);
+
+    for (ClassNode child : node.nested) {
+      if (child.type == ClassNode.CLASS_LAMBDA) {
+        setLambdaVars(node, child);
+      }
+      else {
+        if (child.type != ClassNode.CLASS_MEMBER) {
+          MethodWrapper enclosingMethod = node.wrapper.getMethods().getWithKey(child.enclosingMethod);
+          if (enclosingMethod == null || !enclosingMethod.stub) { // not written within a stub body
+            insertLocalVars(node, child);
+
+            if (child.type == ClassNode.CLASS_LOCAL) {
+              setLocalClassDefinition(enclosingMethod, child);
+            }
+          }
+        }
+        else if ((child.access & CodeConstants.ACC_STATIC) == 0) {
+          insertLocalVars(node, child);
+        }
+      }
+    }
+
+    for (ClassNode child : node.nested) {
+      processClass(root, child);
+    }
+  }
+
+  // method bodies are not decompiled in stub mode, only the parts of the processing visible in signatures are done
+  public void processStubClass(ClassNode node) {
+
+    hideLambdaContent(node);
+
+    if (node.nested.isEmpty()) {
+      return;
+    }
+
+    setMissingNames(node);
+
+    for (ClassNode child : node.nested) {
+      if (child.type == ClassNode.CLASS_MEMBER && (child.access & (CodeConstants.ACC_STATIC | CodeConstants.ACC_INTERFACE)) == 0) {
+        hideOuterInstance(node, child);
+      }
+      else if (child.type == ClassNode.CLASS_ANONYMOUS) {
+        setSuperInvocation(child);
+      }
+    }
+
+    for (ClassNode child : node.nested) {
+      processStubClass(child);
+    }
+  }
+
+  // constructors of anonymous classes are decompiled in stub mode for enum constant bodies only
+  private static void setSuperInvocation(final ClassNode child) {
+    for (MethodWrapper meth : child.wrapper.getMethods()) {
+      if ("<init>".equals(meth.methodStruct.getName()) && meth.root != null) {
+        meth.getOrBuildGraph().iterateExprents(new DirectGraph.ExprentIterator() {
+          public int processExprent(Exprent exprent) {
+            if (exprent.type == Exprent.EXPRENT_INVOCATION && ((InvocationExprent)exprent).getFunctype() == InvocationExprent.TYP_INIT) {
+              child.superInvocation = (InvocationExprent)exprent;
+              return 1;
+            }
+            return 0;
+          }
+        });
+      }
+    }
+  }
+
+  private static void hideLambdaContent(ClassNode node) {
+    // hide synthetic lambda content methods
+    if (node.type == ClassNode.CLASS_LAMBDA && !node.lambda_information.is_method_reference) {
+      ClassNode node_content = DecompilerContext.getClassProcessor().getMapRootClasses().get(node.classStruct.qualifiedName);
+      if (node_content != null && node_content.wrapper != null) {
+        node_content.wrapper.getHiddenMembers().add(node.lambda_information.content_method_key);
+      }
+    }
+  }
+
+  private static void setMissingNames(ClassNode node) {
     int nameless = 0, synthetics = 0;
     for (ClassNode child : node.nested) {
       // ensure not-empty class name
@@ -90,24 +165,29 @@ public class NestedClassProcessor {
         }
       }
     }
+  }
 
-    for (ClassNode child : node.nested) {
-      if (child.type == ClassNode.CLASS_LAMBDA) {
-        setLambdaVars(node, child);
-      }
-      else {
-        if (child.type != ClassNode.CLASS_MEMBER || (child.access & CodeConstants.ACC_STATIC) == 0) {
-          insertLocalVars(node, child);
+  // without the constructor code the enclosing instance is recognized by its type only
+  private static void hideOuterInstance(ClassNode parent, ClassNode child) {
+    ClassWrapper wrapper = child.wrapper;
+    VarType outerType = new VarType(parent.classStruct.qualifiedName, true);
 
-          if (child.type == ClassNode.CLASS_LOCAL) {
-            setLocalClassDefinition(node.wrapper.getMethods().getWithKey(child.enclosingMethod), child);
-          }
+    for (MethodWrapper meth : wrapper.getMethods()) {
+      StructMethod mt = meth.methodStruct;
+      if ("<init>".equals(mt.getName())) {
+        MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
+        if (md.params.length > 0 && outerType.equals(md.params[0])) {
+          List<VarVersionPaar> fields = new ArrayList<VarVersionPaar>(Collections.<VarVersionPaar>nCopies(md.params.length, null));
+          fields.set(0, new VarVersionPaar(-1, 0));
+          meth.signatureFields = fields;
         }
       }
     }
 
-    for (ClassNode child : node.nested) {
-      processClass(root, child);
+    for (StructField fd : wrapper.getClassStruct().getFields()) {
+      if (fd.isSynthetic() && outerType.equals(new VarType(fd.getDescriptor()))) {
+        wrapper.getHiddenMembers().add(InterpreterUtil.makeUniqueKey(fd.getName(), fd.getDescriptor()));
+      }
     }
   }
 
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.main.rels;
+
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Fixpoint loop over a sequence of passes. After each step the loop either goes on with the next step, starts
+ * over from the first one or ends, depending on whether the step changed something. Reaching the end of the
+ * sequence starts it over.
+ */
+public class PassLoop extends MethodPass {
+
+  public static final int NEXT = 0;
+  public static final int RESTART = 1;
+  public static final int EXIT = 2;
+
+  private final List<MethodPass> steps = new ArrayList<MethodPass>();
+  private final List<int[]> actions = new ArrayList<int[]>();
+
+  // 0 means no upper limit
+  private int maxIterations;
+
+  public PassLoop(String name) {
+    super(name, 0, 0);
+  }
+
+  public PassLoop add(MethodPass pass) {
+    return add(pass, NEXT, NEXT);
+  }
+
+  public PassLoop add(MethodPass pass, int onChange, int onNoChange) {
+    steps.add(pass);
+    actions.add(new int[]{onChange, onNoChange});
+    return this;
+  }
+
+  public int getReads() {
+    int reads = 0;
+    for (MethodPass pass : steps) {
+      reads |= pass.getReads();
+    }
+    return reads;
+  }
+
+  public int getInvalidates() {
+    int invalidates = 0;
+    for (MethodPass pass : steps) {
+      invalidates |= pass.getInvalidates();
+    }
+    return invalidates;
+  }
+
+  public boolean run(MethodPassManager manager) {
+
+    boolean changed = false;
+    int iteration = 0;
+
+    while (true) {
+      if (maxIterations > 0 && iteration++ == maxIterations) {
+        IFernflowerLogger logger = DecompilerContext.getLogger();
+        if (logger.accepts(IFernflowerLogger.Severity.WARN)) {
+          logger.writeMessage("Pass loop " + getName() + " of " + manager.getMethod().getName() + " stopped after " +
+                              maxIterations + " iterations", IFernflowerLogger.Severity.WARN);
+        }
+        return changed;
+      }
+
+      int action = NEXT;
+      for (int i = 0; i < steps.size(); i++) {
+        boolean res = manager.run(steps.get(i));
+        changed |= res;
+
+        action = actions.get(i)[res ? 0 : 1];
+        if (action != NEXT) {
+          break;
+        }
+      }
+
+      if (action == EXIT) {
+        return changed;
+      }
+    }
+  }
+
+  public List<MethodPass> getSteps() {
+    return steps;
+  }
+
+  public int getMaxIterations() {
+    return maxIterations;
+  }
+
+  public void setMaxIterations(int maxIterations) {
+    this.maxIterations = maxIterations;
+  }
+}
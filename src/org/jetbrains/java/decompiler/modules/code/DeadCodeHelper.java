@@ -19,6 +19,7 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.code.Instruction;
 import org.jetbrains.java.decompiler.code.InstructionSequence;
 import org.jetbrains.java.decompiler.code.cfg.BasicBlock;
+import org.jetbrains.java.decompiler.code.cfg.BlockAdjacency;
 import org.jetbrains.java.decompiler.code.cfg.ControlFlowGraph;
 import org.jetbrains.java.decompiler.code.cfg.ExceptionRangeCFG;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
@@ -28,39 +29,29 @@ import java.util.*;
 
 public class DeadCodeHelper {
 
-  public static void removeDeadBlocks(ControlFlowGraph graph) {
+  public static boolean removeDeadBlocks(ControlFlowGraph graph) {
 
-    LinkedList<BasicBlock> stack = new LinkedList<BasicBlock>();
-    HashSet<BasicBlock> setStacked = new HashSet<BasicBlock>();
+    BlockAdjacency adjacency = graph.getAdjacency();
+    BitSet reached = adjacency.getReachable(adjacency.getIndex(graph.getFirst()));
 
-    stack.add(graph.getFirst());
-    setStacked.add(graph.getFirst());
-
-    while (!stack.isEmpty()) {
-      BasicBlock block = stack.removeFirst();
-
-      List<BasicBlock> lstSuccs = new ArrayList<BasicBlock>(block.getSuccs());
-      lstSuccs.addAll(block.getSuccExceptions());
-
-      for (BasicBlock succ : lstSuccs) {
-        if (!setStacked.contains(succ)) {
-          stack.add(succ);
-          setStacked.add(succ);
-        }
+    List<BasicBlock> lstDead = new ArrayList<BasicBlock>();
+    for (BasicBlock block : graph.getBlocks()) {
+      if (!reached.get(adjacency.getIndex(block))) {
+        lstDead.add(block);
       }
     }
 
-    HashSet<BasicBlock> setAllBlocks = new HashSet<BasicBlock>(graph.getBlocks());
-    setAllBlocks.removeAll(setStacked);
-
-    for (BasicBlock block : setAllBlocks) {
+    for (BasicBlock block : lstDead) {
       graph.removeBlock(block);
     }
+
+    return !lstDead.isEmpty();
   }
 
-  public static void removeEmptyBlocks(ControlFlowGraph graph) {
+  public static boolean removeEmptyBlocks(ControlFlowGraph graph) {
 
     List<BasicBlock> blocks = graph.getBlocks();
+    int size = blocks.size();
 
     boolean cont;
     do {
@@ -76,6 +67,9 @@ public class DeadCodeHelper {
       }
     }
     while (cont);
+
+    // blocks are only removed here
+    return blocks.size() != size;
   }
 
   private static boolean removeEmptyBlock(ControlFlowGraph graph, BasicBlock block, boolean merging) {
@@ -143,7 +137,7 @@ public class DeadCodeHelper {
           if (lst.size() == 1 && lst.get(0) == block) {
             if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
               block.removeSuccessorException(range.getHandler());
-              lstRanges.remove(i);
+              graph.removeException(range);
 
               deletedRanges = true;
             }
@@ -203,72 +197,39 @@ public class DeadCodeHelper {
   }
 
 
-  public static boolean isDominator(ControlFlowGraph graph, BasicBlock block, BasicBlock dom) {
-
-    HashSet<BasicBlock> marked = new HashSet<BasicBlock>();
+  public static boolean removeGotos(ControlFlowGraph graph) {
 
-    if (block == dom) {
-      return true;
-    }
-
-    LinkedList<BasicBlock> lstNodes = new LinkedList<BasicBlock>();
-    lstNodes.add(block);
-
-    while (!lstNodes.isEmpty()) {
-
-      BasicBlock node = lstNodes.remove(0);
-      if (marked.contains(node)) {
-        continue;
-      }
-      else {
-        marked.add(node);
-      }
-
-      if (node == graph.getFirst()) {
-        return false;
-      }
-
-      for (int i = 0; i < node.getPreds().size(); i++) {
-        BasicBlock pred = node.getPreds().get(i);
-        if (!marked.contains(pred) && pred != dom) {
-          lstNodes.add(pred);
-        }
-      }
-
-      for (int i = 0; i < node.getPredExceptions().size(); i++) {
-        BasicBlock pred = node.getPredExceptions().get(i);
-        if (!marked.contains(pred) && pred != dom) {
-          lstNodes.add(pred);
-        }
-      }
-    }
-
-    return true;
-  }
-
-  public static void removeGotos(ControlFlowGraph graph) {
+    boolean res = false;
 
     for (BasicBlock block : graph.getBlocks()) {
       Instruction instr = block.getLastInstruction();
 
       if (instr != null && instr.opcode == CodeConstants.opc_goto) {
         block.getSeq().removeInstruction(block.getSeq().length() - 1);
+        res = true;
       }
     }
 
-    removeEmptyBlocks(graph);
+    res |= removeEmptyBlocks(graph);
+
+    return res;
   }
 
-  public static void connectDummyExitBlock(ControlFlowGraph graph) {
+  public static boolean connectDummyExitBlock(ControlFlowGraph graph) {
 
     BasicBlock exit = graph.getLast();
-    for (BasicBlock block : new HashSet<BasicBlock>(exit.getPreds())) {
+    Set<BasicBlock> setPreds = new HashSet<BasicBlock>(exit.getPreds());
+    for (BasicBlock block : setPreds) {
       exit.removePredecessor(block);
       block.addSuccessor(exit);
     }
+
+    return !setPreds.isEmpty();
   }
 
-  public static void incorporateValueReturns(ControlFlowGraph graph) {
+  public static boolean incorporateValueReturns(ControlFlowGraph graph) {
+
+    boolean res = false;
 
     for (BasicBlock block : graph.getBlocks()) {
       InstructionSequence seq = block.getSeq();
@@ -334,8 +295,9 @@ public class DeadCodeHelper {
             for (BasicBlock handler : setPredHandlersIntersection) {
               ExceptionRangeCFG range = graph.getExceptionRange(handler, predecessor);
 
-              range.getProtectedRange().add(block);
+              range.addProtectedBlock(block);
               block.addSuccessorException(handler);
+              res = true;
             }
 
             // remove redundant ranges
@@ -346,8 +308,9 @@ public class DeadCodeHelper {
               ExceptionRangeCFG range = graph.getExceptionRange(handler, block);
 
               if (range.getProtectedRange().size() > 1) {
-                range.getProtectedRange().remove(block);
+                range.removeProtectedBlock(block);
                 block.removeSuccessorException(handler);
+                res = true;
               }
             }
           }
@@ -363,8 +326,9 @@ public class DeadCodeHelper {
                 if (!block.getSuccExceptions().contains(succ)) {
                   ExceptionRangeCFG range = graph.getExceptionRange(succ, bpred);
 
-                  range.getProtectedRange().add(block);
+                  range.addProtectedBlock(block);
                   block.addSuccessorException(succ);
+                  res = true;
                 }
               }
 
@@ -374,8 +338,9 @@ public class DeadCodeHelper {
                   ExceptionRangeCFG range = graph.getExceptionRange(succ, block);
 
                   if (range.getProtectedRange().size() > 1) {
-                    range.getProtectedRange().remove(block);
+                    range.removeProtectedBlock(block);
                     block.removeSuccessorException(succ);
+                    res = true;
                   }
                 }
               }
@@ -384,10 +349,14 @@ public class DeadCodeHelper {
         }
       }
     }
+
+    return res;
   }
 
 
-  public static void mergeBasicBlocks(ControlFlowGraph graph) {
+  public static boolean mergeBasicBlocks(ControlFlowGraph graph) {
+
+    boolean res = false;
 
     while (true) {
 
@@ -407,8 +376,7 @@ public class DeadCodeHelper {
               // TODO: implement a dummy start block
               boolean sameRanges = true;
               for (ExceptionRangeCFG range : graph.getExceptions()) {
-                if (range.getProtectedRange().contains(block) ^
-                    range.getProtectedRange().contains(next)) {
+                if (range.isProtected(block) ^ range.isProtected(next)) {
                   sameRanges = false;
                   break;
                 }
@@ -421,6 +389,7 @@ public class DeadCodeHelper {
                 removeEmptyBlock(graph, next, true);
 
                 merged = true;
+                res = true;
                 break;
               }
             }
@@ -432,5 +401,7 @@ public class DeadCodeHelper {
         break;
       }
     }
+
+    return res;
   }
 }
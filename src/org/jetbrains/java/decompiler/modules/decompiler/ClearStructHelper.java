@@ -23,7 +23,9 @@ import java.util.LinkedList;
 
 public class ClearStructHelper {
 
-  public static void clearStatements(RootStatement root) {
+  public static boolean clearStatements(RootStatement root) {
+
+    boolean res = false;
 
     LinkedList<Statement> stack = new LinkedList<Statement>();
     stack.add(root);
@@ -32,9 +34,11 @@ public class ClearStructHelper {
 
       Statement stat = stack.removeFirst();
 
-      stat.clearTempInformation();
+      res |= stat.clearTempInformation();
 
       stack.addAll(stat.getStats());
     }
+
+    return res;
   }
 }
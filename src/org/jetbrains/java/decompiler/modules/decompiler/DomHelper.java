@@ -25,8 +25,8 @@ import org.jetbrains.java.decompiler.modules.decompiler.deobfuscator.Irreducible
 import org.jetbrains.java.decompiler.modules.decompiler.stats.*;
 import org.jetbrains.java.decompiler.util.FastFixedSetFactory;
 import org.jetbrains.java.decompiler.util.FastFixedSetFactory.FastFixedSet;
+import org.jetbrains.java.decompiler.util.IntIndexedCollection;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.util.*;
 
@@ -35,8 +35,8 @@ public class DomHelper {
 
   private static RootStatement graphToStatement(ControlFlowGraph graph) {
 
-    VBStyleCollection<Statement, Integer> stats = new VBStyleCollection<Statement, Integer>();
-    VBStyleCollection<BasicBlock, Integer> blocks = graph.getBlocks();
+    IntIndexedCollection<Statement> stats = new IntIndexedCollection<Statement>();
+    IntIndexedCollection<BasicBlock> blocks = graph.getBlocks();
 
     for (BasicBlock block : blocks) {
       stats.addWithKey(new BasicBlockStatement(block), block.id);
@@ -102,7 +102,7 @@ public class DomHelper {
     return new RootStatement(general, dummyexit);
   }
 
-  public static VBStyleCollection<List<Integer>, Integer> calcPostDominators(Statement container) {
+  public static IntIndexedCollection<List<Integer>> calcPostDominators(Statement container) {
 
     HashMap<Statement, FastFixedSet<Statement>> lists = new HashMap<Statement, FastFixedSet<Statement>>();
 
@@ -177,7 +177,7 @@ public class DomHelper {
     }
     while (!setFlagNodes.isEmpty());
 
-    VBStyleCollection<List<Integer>, Integer> ret = new VBStyleCollection<List<Integer>, Integer>();
+    IntIndexedCollection<List<Integer>> ret = new IntIndexedCollection<List<Integer>>();
     List<Statement> lstRevPost = container.getReversePostOrderList(); // sort order crucial!
 
     final HashMap<Integer, Integer> mapSortOrder = new HashMap<Integer, Integer>();
@@ -227,15 +227,20 @@ public class DomHelper {
     return root;
   }
 
-  public static void removeSynchronizedHandler(Statement stat) {
+  public static boolean removeSynchronizedHandler(Statement stat) {
+
+    boolean res = false;
 
     for (Statement st : stat.getStats()) {
-      removeSynchronizedHandler(st);
+      res |= removeSynchronizedHandler(st);
     }
 
     if (stat.type == Statement.TYPE_SYNCRONIZED) {
       ((SynchronizedStatement)stat).removeExc();
+      res = true;
     }
+
+    return res;
   }
 
 
@@ -417,8 +422,8 @@ public class DomHelper {
 
   private static Statement findGeneralStatement(Statement stat, boolean forceall, HashMap<Integer, Set<Integer>> mapExtPost) {
 
-    VBStyleCollection<Statement, Integer> stats = stat.getStats();
-    VBStyleCollection<List<Integer>, Integer> vbPost;
+    IntIndexedCollection<Statement> stats = stat.getStats();
+    IntIndexedCollection<List<Integer>> vbPost;
 
     if (mapExtPost.isEmpty()) {
       FastExtendedPostdominanceHelper extpost = new FastExtendedPostdominanceHelper();
@@ -426,7 +431,7 @@ public class DomHelper {
     }
 
     if (forceall) {
-      vbPost = new VBStyleCollection<List<Integer>, Integer>();
+      vbPost = new IntIndexedCollection<List<Integer>>();
       List<Statement> lstAll = stat.getPostReversePostOrderList();
 
       for (Statement st : lstAll) {
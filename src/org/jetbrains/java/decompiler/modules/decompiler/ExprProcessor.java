@@ -148,8 +148,8 @@ public class ExprProcessor implements CodeConstants {
 
   public void processStatement(RootStatement root, StructClass cl) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattening();
+    DirectGraph dgraph = flatthelper.getDirectGraph();
 
     //		try {
     //			DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr12_my.dot"));
@@ -335,6 +335,7 @@ public class ExprProcessor implements CodeConstants {
 
       Instruction instr = seq.getInstr(i);
       Integer bytecode_offset = block.getOldOffset(i);
+      int listSize = exprlist.size();
 
       switch (instr.opcode) {
         case opc_aconst_null:
@@ -650,6 +651,17 @@ public class ExprProcessor implements CodeConstants {
         case opc_pop2:
           stack.pop();
       }
+
+      // offsets for the bytecode to source mapping
+      if (bytecode_offset >= 0) {
+        for (int j = listSize; j < exprlist.size(); j++) {
+          Exprent exprent = exprlist.get(j);
+          exprent.bytecode.add(bytecode_offset);
+          if (exprent.type == Exprent.EXPRENT_ASSIGNMENT) {
+            ((AssignmentExprent)exprent).getRight().bytecode.add(bytecode_offset);
+          }
+        }
+      }
     }
   }
 
@@ -807,7 +819,7 @@ public class ExprProcessor implements CodeConstants {
     if (res.contains("$")) { // attempt to invoke foreign member
       // classes correctly
       StructClass cl = DecompilerContext.getStructContext().getClass(name);
-      if (cl == null || !cl.isOwn()) {
+      if (cl == null || !cl.isOwn() && !DecompilerContext.getStructContext().isFilteredOut(name)) {
         res = res.replace('$', '.');
       }
     }
@@ -830,8 +842,11 @@ public class ExprProcessor implements CodeConstants {
     for (Iterator<Exprent> iter = SortUtil.sortIndexed(lst.iterator()); iter.hasNext();) {
       Exprent expr = iter.next();
       // Spigot End
-      String content = expr.toJava(indent, tracer);
+      // mapped on a tracer of its own, lines may still be inserted in front of the expression
+      BytecodeMappingTracer expr_tracer = new BytecodeMappingTracer(tracer.getCurrentSourceLine());
+      String content = expr.toJava(indent, expr_tracer);
       if (content.length() > 0) {
+        int start = buf.length();
 
         if (expr instanceof VarExprent || expr instanceof AssignmentExprent) {
           inVar = true;
@@ -857,6 +872,12 @@ public class ExprProcessor implements CodeConstants {
           }
         }
 
+        if (buf.length() > start) { // blank line
+          expr_tracer.shiftSourceLines(1);
+          tracer.incrementCurrentSourceLine();
+        }
+        tracer.addTracer(expr_tracer);
+
         if (expr.type != Exprent.EXPRENT_VAR || !((VarExprent)expr).isClassdef()) {
           buf.append(indstr);
         }
@@ -869,6 +890,10 @@ public class ExprProcessor implements CodeConstants {
         }
         buf.append(new_line_separator);
 
+        // the content may span several lines, e.g. with anonymous classes
+        for (int i = content.indexOf(new_line_separator); i >= 0; i = content.indexOf(new_line_separator, i + 1)) {
+          tracer.incrementCurrentSourceLine();
+        }
         tracer.incrementCurrentSourceLine();
       }
     }
@@ -29,7 +29,6 @@ import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.VarExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectNode;
-import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAConstructorSparseEx;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.CatchAllStatement;
@@ -219,8 +218,7 @@ public class FinallyProcessor {
 
     VarVersionPaar varpaar = new VarVersionPaar((VarExprent)((AssignmentExprent)lstExprents.get(firstcode == 2 ? 1 : 0)).getLeft());
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    DirectGraph dgraph = root.getFlattening().getDirectGraph();
 
     LinkedList<DirectNode> stack = new LinkedList<DirectNode>();
     stack.add(dgraph.first);
@@ -429,7 +427,7 @@ public class FinallyProcessor {
             newblock.addSuccessorException(hd);
 
             ExceptionRangeCFG range = graph.getExceptionRange(hd, block);
-            range.getProtectedRange().add(newblock);
+            range.addProtectedBlock(newblock);
           }
         }
       }
@@ -471,7 +469,7 @@ public class FinallyProcessor {
 
       if (setCopy.containsAll(range.getProtectedRange())) {
         newheadinit.removeSuccessorException(hd);
-        range.getProtectedRange().remove(newheadinit);
+        range.removeProtectedBlock(newheadinit);
       }
     }
   }
@@ -493,13 +491,13 @@ public class FinallyProcessor {
       newblock.addSuccessorException(hd);
 
       ExceptionRangeCFG range = graph.getExceptionRange(hd, oldblock);
-      range.getProtectedRange().add(newblock);
+      range.addProtectedBlock(newblock);
     }
 
     // replace handler
     for (ExceptionRangeCFG range : graph.getExceptions()) {
       if (range.getHandler() == oldblock) {
-        range.setHandler(newblock);
+        graph.setExceptionHandler(range, newblock);
       }
     }
 
@@ -922,7 +920,7 @@ public class FinallyProcessor {
         newblock.addSuccessorException(hd);
 
         ExceptionRangeCFG range = graph.getExceptionRange(hd, sample);
-        range.getProtectedRange().add(newblock);
+        range.addProtectedBlock(newblock);
       }
     }
 
@@ -1045,7 +1043,7 @@ public class FinallyProcessor {
       if (setCommonRemovedExceptionRanges != null) {
         for (ExceptionRangeCFG range : setCommonRemovedExceptionRanges) {
           emptyblock.addSuccessorException(range.getHandler());
-          range.getProtectedRange().add(emptyblock);
+          range.addProtectedBlock(emptyblock);
         }
       }
 
@@ -25,7 +25,9 @@ import java.util.Map.Entry;
 public class LabelHelper {
 
 
-  public static void cleanUpEdges(RootStatement root) {
+  public static boolean cleanUpEdges(RootStatement root) {
+
+    List<Object> before = getEdgeState(root);
 
     resetAllEdges(root);
 
@@ -36,9 +38,13 @@ public class LabelHelper {
     lowContinueLabels(root, new HashSet<StatEdge>());
 
     lowClosures(root);
+
+    return !before.equals(getEdgeState(root));
   }
 
-  public static void identifyLabels(RootStatement root) {
+  public static boolean identifyLabels(RootStatement root) {
+
+    List<Object> before = getEdgeState(root);
 
     setExplicitEdges(root);
 
@@ -47,6 +53,44 @@ public class LabelHelper {
     processStatementLabel(root);
 
     setRetEdgesUnlabeled(root);
+
+    return !before.equals(getEdgeState(root));
+  }
+
+  // snapshot of everything the label passes may modify
+  private static List<Object> getEdgeState(Statement root) {
+
+    List<Object> state = new ArrayList<Object>();
+
+    LinkedList<Statement> stack = new LinkedList<Statement>();
+    stack.add(root);
+
+    while (!stack.isEmpty()) {
+      Statement stat = stack.removeFirst();
+
+      state.add(stat);
+      for (StatEdge edge : stat.getAllSuccessorEdges()) {
+        state.add(edge);
+        state.add(edge.getType());
+        state.add(edge.getDestination());
+        state.add(edge.closure);
+        state.add(edge.labeled);
+        state.add(edge.explicit);
+      }
+      state.add(new HashSet<StatEdge>(stat.getLabelEdges()));
+
+      if (stat.type == Statement.TYPE_SWITCH) {
+        SwitchStatement swst = (SwitchStatement)stat;
+        state.add(new ArrayList<Statement>(swst.getCaseStatements()));
+        for (List<StatEdge> lst : swst.getCaseEdges()) {
+          state.add(new ArrayList<StatEdge>(lst));
+        }
+      }
+
+      stack.addAll(stat.getStats());
+    }
+
+    return state;
   }
 
   private static void liftClosures(Statement stat) {
@@ -457,7 +501,9 @@ public class LabelHelper {
     return new HashSet[] { setBreak, setContinue };
   }
 
-  public static void replaceContinueWithBreak(Statement stat) {
+  public static boolean replaceContinueWithBreak(Statement stat) {
+
+    boolean res = false;
 
     if (stat.type == Statement.TYPE_DO) {
 
@@ -473,14 +519,17 @@ public class LabelHelper {
             edge.getSource().changeEdgeType(Statement.DIRECTION_FORWARD, edge, StatEdge.TYPE_BREAK);
             edge.labeled = false;
             minclosure.addLabeledEdge(edge);
+            res = true;
           }
         }
       }
     }
 
     for (Statement st : stat.getStats()) {
-      replaceContinueWithBreak(st);
+      res |= replaceContinueWithBreak(st);
     }
+
+    return res;
   }
 
   private static Statement getMinContinueClosure(StatEdge edge) {
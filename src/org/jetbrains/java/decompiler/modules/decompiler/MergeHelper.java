@@ -28,11 +28,16 @@ import java.util.Set;
 
 public class MergeHelper {
 
-  public static void enhanceLoops(Statement root) {
+  public static boolean enhanceLoops(Statement root) {
 
-    while (enhanceLoopsRec(root)) ;
+    boolean res = false;
+    while (enhanceLoopsRec(root)) {
+      res = true;
+    }
 
-    SequenceHelper.condenseSequences(root);
+    res |= SequenceHelper.condenseSequences(root);
+
+    return res;
   }
 
   private static boolean enhanceLoopsRec(Statement stat) {
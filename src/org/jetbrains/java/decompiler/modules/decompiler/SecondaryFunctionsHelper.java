@@ -72,6 +72,7 @@ public class SecondaryFunctionsHelper {
           ifelsestat.getStats().removeWithKey(ifstat.id);
 
           ifelsestat.iftype = IfStatement.IFTYPE_IF;
+          ifelsestat.markStructureChanged();
           ifelsestat.setIfstat(ifelsestat.getElsestat());
           ifelsestat.setElsestat(null);
 
@@ -93,6 +94,7 @@ public class SecondaryFunctionsHelper {
 
           // negate head expression
           ifelsestat.setNegated(!ifelsestat.isNegated());
+          ifelsestat.markStructureChanged();
           ifelsestat.getHeadexprentList().set(0, ((IfExprent)ifelsestat.getHeadexprent().copy()).negateIf());
 
           return true;
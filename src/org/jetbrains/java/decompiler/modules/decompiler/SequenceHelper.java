@@ -31,11 +31,13 @@ import java.util.List;
 public class SequenceHelper {
 
 
-  public static void condenseSequences(Statement root) {
-    condenseSequencesRec(root);
+  public static boolean condenseSequences(Statement root) {
+    return condenseSequencesRec(root);
   }
 
-  private static void condenseSequencesRec(Statement stat) {
+  private static boolean condenseSequencesRec(Statement stat) {
+
+    boolean res = false;
 
     if (stat.type == Statement.TYPE_SEQUENCE) {
 
@@ -49,7 +51,7 @@ public class SequenceHelper {
         Statement st = lst.get(i);
         if (st.type == Statement.TYPE_SEQUENCE) {
 
-          removeEmptyStatements((SequenceStatement)st);
+          res |= removeEmptyStatements((SequenceStatement)st);
 
           if (i == lst.size() - 1 || isSequenceDisbandable(st, lst.get(i + 1))) {
             // move predecessors
@@ -106,13 +108,14 @@ public class SequenceHelper {
         stat.getParent().replaceStatement(stat, sequence);
 
         stat = sequence;
+        res = true;
       }
     }
 
     // sequence consisting of one statement -> disband
     if (stat.type == Statement.TYPE_SEQUENCE) {
 
-      removeEmptyStatements((SequenceStatement)stat);
+      res |= removeEmptyStatements((SequenceStatement)stat);
 
       if (stat.getStats().size() == 1) {
 
@@ -136,6 +139,7 @@ public class SequenceHelper {
         if (ok) {
           stat.getParent().replaceStatement(stat, st);
           stat = st;
+          res = true;
         }
       }
     }
@@ -146,6 +150,7 @@ public class SequenceHelper {
       for (Statement st : stat.getStats()) {
         if ((st.getStats().isEmpty() || st.getExprents() != null) && st.type != Statement.TYPE_BASICBLOCK) {
           destroyAndFlattenStatement(st);
+          res = true;
           continue outer;
         }
       }
@@ -154,8 +159,10 @@ public class SequenceHelper {
 
     // recursion
     for (int i = 0; i < stat.getStats().size(); i++) {
-      condenseSequencesRec(stat.getStats().get(i));
+      res |= condenseSequencesRec(stat.getStats().get(i));
     }
+
+    return res;
   }
 
   private static boolean isSequenceDisbandable(Statement block, Statement next) {
@@ -177,13 +184,13 @@ public class SequenceHelper {
     return true;
   }
 
-  private static void removeEmptyStatements(SequenceStatement sequence) {
+  private static boolean removeEmptyStatements(SequenceStatement sequence) {
 
     if (sequence.getStats().size() <= 1) {
-      return;
+      return false;
     }
 
-    mergeFlatStatements(sequence);
+    boolean res = mergeFlatStatements(sequence);
 
     while (true) {
 
@@ -227,6 +234,7 @@ public class SequenceHelper {
 
           if (found) {
             sequence.getStats().removeWithKey(st.id);
+            res = true;
             break;
           }
         }
@@ -238,9 +246,13 @@ public class SequenceHelper {
     }
 
     sequence.setFirst(sequence.getStats().get(0));
+
+    return res;
   }
 
-  private static void mergeFlatStatements(SequenceStatement sequence) {
+  private static boolean mergeFlatStatements(SequenceStatement sequence) {
+
+    boolean res = false;
 
     while (true) {
 
@@ -274,7 +286,10 @@ public class SequenceHelper {
       if (!found) {
         break;
       }
+      res = true;
     }
+
+    return res;
   }
 
   private static Statement getFirstExprentlist(Statement stat) {
@@ -28,7 +28,7 @@ import org.jetbrains.java.decompiler.modules.decompiler.vars.VarVersionsGraph;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
-import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.IntSet;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 
 import java.util.*;
@@ -37,15 +37,33 @@ import java.util.Map.Entry;
 
 public class StackVarsProcessor {
 
-  public void simplifyStackVars(RootStatement root, StructMethod mt, StructClass cl) {
+  // set when the last call of iterateStatements changed the statement structure
+  private boolean structureChanged;
+
+  // set when the last call of iterateStatements changed any exprent list
+  private boolean exprentsChanged;
+
+  // variables of the exprents replaced or removed by the last call of iterateStatements
+  private IntSet changedVars = new IntSet();
+
+  // variable exprents and their versions at the end of the last call of iterateStatements
+  private List<VarExprent> lstVersionedVars = new ArrayList<VarExprent>();
+  private int[] versions;
+
+  public boolean simplifyStackVars(RootStatement root, StructMethod mt, StructClass cl) {
+
+    boolean res = false;
 
     HashSet<Integer> setReorderedIfs = new HashSet<Integer>();
 
     SSAUConstructorSparseEx ssau = null;
 
+    boolean found;
+    boolean simplified;
     while (true) {
 
-      boolean found = false;
+      found = false;
+      simplified = false;
 
       //			System.out.println("--------------- \r\n"+root.toJava());
 
@@ -59,6 +77,7 @@ public class StackVarsProcessor {
       while (sehelper.simplifyStackVarsStatement(root, setReorderedIfs, ssa, cl)) {
         //				System.out.println("--------------- \r\n"+root.toJava());
         found = true;
+        simplified = true;
       }
 
 
@@ -66,10 +85,9 @@ public class StackVarsProcessor {
 
       setVersionsToNull(root);
 
-      SequenceHelper.condenseSequences(root);
+      res |= SequenceHelper.condenseSequences(root);
 
-      ssau = new SSAUConstructorSparseEx();
-      ssau.splitVariables(root, mt);
+      ssau = updateSSAU(root, mt, ssau, simplified);
 
       //			try {
       //				DotExporter.toDotFile(ssau.getSsuversions(), new File("c:\\Temp\\gr12_my.dot"));
@@ -86,7 +104,9 @@ public class StackVarsProcessor {
 
       //			System.out.println("***************** \r\n"+root.toJava());
 
-      setVersionsToNull(root);
+      saveVersions(root);
+
+      res |= found || exprentsChanged || structureChanged;
 
       if (!found) {
         break;
@@ -94,20 +114,102 @@ public class StackVarsProcessor {
     }
 
     // remove unused assignments
+    // the last pass left the expressions untouched, so the SSAU form only has to be rebuilt
+    // if that pass changed the statement structure
+    if (structureChanged) {
+      ssau = updateSSAU(root, mt, ssau, simplified);
+
+      //		try {
+      //			DotExporter.toDotFile(ssau.getSsuversions(), new File("c:\\Temp\\gr12_my.dot"));
+      //		} catch(Exception ex) {
+      //			ex.printStackTrace();
+      //		}
+
+      res |= iterateStatements(root, ssau) || exprentsChanged || structureChanged;
+
+      //		System.out.println("~~~~~~~~~~~~~~~~~~~~~~ \r\n"+root.toJava());
+
+      setVersionsToNull(root);
+    }
+
+    return res;
+  }
+
+  // The SSAU form of the previous pass is updated instead of rebuilt if only the replacements of that pass
+  // changed the expressions. Versions of the unchanged variables are restored for this.
+  private SSAUConstructorSparseEx updateSSAU(RootStatement root, StructMethod mt, SSAUConstructorSparseEx ssau, boolean simplified) {
+
+    if (ssau != null && !simplified && !structureChanged) {
+      for (int i = 0; i < versions.length; i++) {
+        lstVersionedVars.get(i).setVersion(versions[i]);
+      }
+
+      if (ssau.updateVariables(root, mt, changedVars)) {
+        return ssau;
+      }
+
+      setVersionsToNull(root);
+    }
+
     ssau = new SSAUConstructorSparseEx();
     ssau.splitVariables(root, mt);
+    return ssau;
+  }
+
+  private void saveVersions(Statement root) {
 
-    //		try {
-    //			DotExporter.toDotFile(ssau.getSsuversions(), new File("c:\\Temp\\gr12_my.dot"));
-    //		} catch(Exception ex) {
-    //			ex.printStackTrace();
-    //		}
+    lstVersionedVars.clear();
+    collectVarExprents(root, lstVersionedVars);
 
-    iterateStatements(root, ssau);
+    versions = new int[lstVersionedVars.size()];
+    for (int i = 0; i < versions.length; i++) {
+      VarExprent var = lstVersionedVars.get(i);
+      versions[i] = var.getVersion();
+      var.setVersion(0);
+    }
+  }
 
-    //		System.out.println("~~~~~~~~~~~~~~~~~~~~~~ \r\n"+root.toJava());
+  private static void collectVarExprents(Statement stat, List<VarExprent> lst) {
 
-    setVersionsToNull(root);
+    if (stat.getExprents() == null) {
+      for (Object obj : stat.getSequentialObjects()) {
+        if (obj instanceof Statement) {
+          collectVarExprents((Statement)obj, lst);
+        }
+        else if (obj instanceof Exprent) {
+          collectVarExprents((Exprent)obj, lst);
+        }
+      }
+    }
+    else {
+      for (Exprent exprent : stat.getExprents()) {
+        collectVarExprents(exprent, lst);
+      }
+    }
+  }
+
+  private static void collectVarExprents(Exprent exprent, List<VarExprent> lst) {
+
+    List<Exprent> lstExprents = exprent.getAllExprents(true);
+    lstExprents.add(exprent);
+
+    for (Exprent expr : lstExprents) {
+      if (expr.type == Exprent.EXPRENT_VAR) {
+        lst.add((VarExprent)expr);
+      }
+    }
+  }
+
+  private void addChangedVars(Exprent exprent) {
+
+    List<Exprent> lst = exprent.getAllExprents(true);
+    lst.add(exprent);
+
+    for (Exprent expr : lst) {
+      if (expr.type == Exprent.EXPRENT_VAR) {
+        changedVars.add(((VarExprent)expr).getIndex());
+      }
+    }
   }
 
   private static void setVersionsToNull(Statement stat) {
@@ -144,10 +246,12 @@ public class StackVarsProcessor {
 
   private boolean iterateStatements(RootStatement root, SSAUConstructorSparseEx ssa) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    DirectGraph dgraph = root.getFlattening().getDirectGraph();
 
     boolean res = false;
+    structureChanged = false;
+    exprentsChanged = false;
+    changedVars = new IntSet();
 
     HashSet<DirectNode> setVisited = new HashSet<DirectNode>();
     LinkedList<DirectNode> stack = new LinkedList<DirectNode>();
@@ -167,21 +271,25 @@ public class StackVarsProcessor {
       setVisited.add(nd);
 
       List<List<Exprent>> lstLists = new ArrayList<List<Exprent>>();
+      List<DirectNode> lstListNodes = new ArrayList<DirectNode>();
 
       if (!nd.exprents.isEmpty()) {
         lstLists.add(nd.exprents);
+        lstListNodes.add(nd);
       }
 
       if (nd.succs.size() == 1) {
         DirectNode ndsucc = nd.succs.get(0);
         if (ndsucc.type == DirectNode.NODE_TAIL && !ndsucc.exprents.isEmpty()) {
           lstLists.add(nd.succs.get(0).exprents);
+          lstListNodes.add(ndsucc);
           nd = ndsucc;
         }
       }
 
       for (int i = 0; i < lstLists.size(); i++) {
         List<Exprent> lst = lstLists.get(i);
+        DirectNode listNode = lstListNodes.get(i);
 
         int index = 0;
         while (index < lst.size()) {
@@ -195,10 +303,21 @@ public class StackVarsProcessor {
             next = lst.get(index + 1);
           }
 
+          int size = lst.size();
+          Exprent current = lst.get(index);
+
           int[] ret = iterateExprent(lst, index, next, mapVarValues, ssa);
 
           //System.out.println("***************** \r\n"+root.toJava());
 
+          // only the exprent lists of basic blocks are not part of the flattened structure
+          if (lst.size() != size || lst.get(index) != current) {
+            exprentsChanged = true;
+            if (listNode.type != DirectNode.NODE_DIRECT) {
+              listNode.statement.markStructureChanged();
+            }
+          }
+
           if (ret[0] >= 0) {
             index = ret[0];
           }
@@ -219,6 +338,8 @@ public class StackVarsProcessor {
       if (nd.exprents.isEmpty() &&
           (nd.type == DirectNode.NODE_INIT || nd.type == DirectNode.NODE_CONDITION || nd.type == DirectNode.NODE_INCREMENT)) {
         nd.exprents.add(null);
+        nd.statement.markStructureChanged();
+        exprentsChanged = true;
 
         if (nd.statement.type == Statement.TYPE_DO) {
           DoStatement loop = (DoStatement)nd.statement;
@@ -227,6 +348,7 @@ public class StackVarsProcessor {
               loop.getInitExprent() == null &&
               loop.getIncExprent() == null) { // "downgrade" loop to 'while'
             loop.setLooptype(DoStatement.LOOP_WHILE);
+            structureChanged = true;
           }
         }
       }
@@ -248,9 +370,11 @@ public class StackVarsProcessor {
     return dest;
   }
 
-  private static void replaceSingleVar(Exprent parent, VarExprent var, Exprent dest, SSAUConstructorSparseEx ssau) {
+  private void replaceSingleVar(Exprent parent, VarExprent var, Exprent dest, SSAUConstructorSparseEx ssau) {
 
     parent.replaceExprent(var, dest);
+    changedVars.add(var.getIndex());
+    addChangedVars(dest);
 
     // live sets
     SFormsFastMapDirect livemap = ssau.getLiveVarVersionsMap(new VarVersionPaar(var));
@@ -299,6 +423,7 @@ public class StackVarsProcessor {
             expr = retexpr;
           }
           else {
+            addChangedVars(expr);
             exprent.replaceExprent(expr, retexpr);
           }
           changed = 1;
@@ -344,10 +469,12 @@ public class StackVarsProcessor {
           }
         }
 
+        addChangedVars(exprent);
         lstExprents.set(index, right);
         return new int[]{index + 1, 1};
       }
       else if (right.type == Exprent.EXPRENT_VAR) {
+        addChangedVars(exprent);
         lstExprents.remove(index);
         return new int[]{index, 1};
       }
@@ -418,7 +545,7 @@ public class StackVarsProcessor {
       for (VarVersionPaar usedver : setTempUsedVers) {
         Exprent copy = right.copy();
         if (right.type == Exprent.EXPRENT_FIELD && ssau.getMapFieldVars().containsKey(right.id)) {
-          ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id));
+          ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id, 0));
         }
 
         mapVarValues.put(usedver, copy);
@@ -427,6 +554,7 @@ public class StackVarsProcessor {
 
     if (!notdom && !vernotreplaced) {
       // remove assignment
+      addChangedVars(exprent);
       lstExprents.remove(index);
       return new int[]{index, 1};
     }
@@ -455,7 +583,7 @@ public class StackVarsProcessor {
     return res;
   }
 
-  private static Object[] iterateChildExprent(Exprent exprent,
+  private Object[] iterateChildExprent(Exprent exprent,
                                               Exprent parent,
                                               Exprent next,
                                               HashMap<VarVersionPaar, Exprent> mapVarValues,
@@ -476,6 +604,7 @@ public class StackVarsProcessor {
             expr = retexpr;
           }
           else {
+            addChangedVars(expr);
             exprent.replaceExprent(expr, retexpr);
           }
           changed = true;
@@ -576,7 +705,7 @@ public class StackVarsProcessor {
       for (VarVersionPaar usedver : setTempUsedVers) {
         Exprent copy = right.copy();
         if (right.type == Exprent.EXPRENT_FIELD && ssau.getMapFieldVars().containsKey(right.id)) {
-          ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id));
+          ssau.getMapFieldVars().put(copy.id, ssau.getMapFieldVars().get(right.id, 0));
         }
 
         mapVarValues.put(usedver, copy);
@@ -652,8 +781,7 @@ public class StackVarsProcessor {
     }
 
     // compare protected ranges
-    if (!InterpreterUtil.equalObjects(ssau.getMapVersionFirstRange().get(leftpaar),
-                                      ssau.getMapVersionFirstRange().get(usedvar))) {
+    if (ssau.getMapVersionFirstRange().get(leftpaar.toLong(), -1) != ssau.getMapVersionFirstRange().get(usedvar.toLong(), -1)) {
       return false;
     }
 
@@ -718,7 +846,7 @@ public class StackVarsProcessor {
       }
       else if (expr.type == Exprent.EXPRENT_FIELD) {
         if (ssau.getMapFieldVars().containsKey(expr.id)) {
-          int varindex = ssau.getMapFieldVars().get(expr.id);
+          int varindex = ssau.getMapFieldVars().get(expr.id, 0);
           if (mapLiveVars.containsKey(varindex)) {
             HashSet<VarVersionPaar> verset = new HashSet<VarVersionPaar>();
             for (Integer vers : mapLiveVars.get(varindex)) {
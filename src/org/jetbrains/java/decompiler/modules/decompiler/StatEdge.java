@@ -75,6 +75,7 @@ public class StatEdge {
   }
 
   public void setType(int type) {
+    markStructureChanged();
     this.type = type;
   }
 
@@ -83,7 +84,9 @@ public class StatEdge {
   }
 
   public void setSource(Statement source) {
+    markStructureChanged();
     this.source = source;
+    markStructureChanged();
   }
 
   public Statement getDestination() {
@@ -91,13 +94,25 @@ public class StatEdge {
   }
 
   public void setDestination(Statement destination) {
+    markStructureChanged();
     this.destination = destination;
+    markStructureChanged();
   }
 
   public List<String> getExceptions() {
     return this.exceptions;
   }
 
+  // the edge is part of the structure of both statements
+  private void markStructureChanged() {
+    if (source != null) {
+      source.markStructureChanged();
+    }
+    if (destination != null) {
+      destination.markStructureChanged();
+    }
+  }
+
   //	public void setException(String exception) {
   //		this.exception = exception;
   //	}
@@ -17,9 +17,10 @@ package org.jetbrains.java.decompiler.modules.decompiler;
 
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
 import org.jetbrains.java.decompiler.util.ListStack;
+import org.jetbrains.java.decompiler.util.ObjectIntMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 
@@ -63,17 +64,17 @@ import java.util.List;
 
 public class StrongConnectivityHelper {
 
-  private ListStack<Statement> lstack;
-
-  private int ncounter;
+  private List<List<Statement>> components;
 
-  private HashSet<Statement> tset;
-  private HashMap<Statement, Integer> dfsnummap;
-  private HashMap<Statement, Integer> lowmap;
+  // dense indices of the statements met so far, all per-node data is kept in arrays
+  private ObjectIntMap<Statement> mapIndex;
 
-  private List<List<Statement>> components;
+  private int[] dfsnum;
+  private int[] low;
+  private int[] treenum; // number of the tree a node was added to, 0 if none
+  private boolean[] processed;
 
-  private HashSet<Statement> setProcessed;
+  private int treecounter;
 
   // *****************************************************************************
   // constructors
@@ -93,19 +94,26 @@ public class StrongConnectivityHelper {
   public List<List<Statement>> findComponents(Statement stat) {
 
     components = new ArrayList<List<Statement>>();
-    setProcessed = new HashSet<Statement>();
+
+    int size = stat.getStats().size() + 1;
+    mapIndex = new ObjectIntMap<Statement>(size);
+    dfsnum = new int[size];
+    low = new int[size];
+    treenum = new int[size];
+    processed = new boolean[size];
+    treecounter = 0;
 
     visitTree(stat.getFirst());
 
     for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st) && st.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
+      if (!isProcessed(st) && st.getPredecessorEdges(Statement.STATEDGE_DIRECT_ALL).isEmpty()) {
         visitTree(st);
       }
     }
 
     // should not find any more nodes! FIXME: ??
     for (Statement st : stat.getStats()) {
-      if (!setProcessed.contains(st)) {
+      if (!isProcessed(st)) {
         visitTree(st);
       }
     }
@@ -141,54 +149,113 @@ public class StrongConnectivityHelper {
   // private methods
   // *****************************************************************************
 
+  private int getIndex(Statement stat) {
+    int index = mapIndex.get(stat, -1);
+    if (index < 0) {
+      index = mapIndex.size();
+      mapIndex.put(stat, index);
+
+      if (index == dfsnum.length) {
+        int length = index * 2;
+        dfsnum = Arrays.copyOf(dfsnum, length);
+        low = Arrays.copyOf(low, length);
+        treenum = Arrays.copyOf(treenum, length);
+        processed = Arrays.copyOf(processed, length);
+      }
+    }
+    return index;
+  }
+
+  private boolean isProcessed(Statement stat) {
+    int index = mapIndex.get(stat, -1);
+    return index >= 0 && processed[index];
+  }
+
+  // iterative version of visit(p) above, the explicit frame stack replaces recursion
   private void visitTree(Statement stat) {
-    lstack = new ListStack<Statement>();
-    ncounter = 0;
-    tset = new HashSet<Statement>();
-    dfsnummap = new HashMap<Statement, Integer>();
-    lowmap = new HashMap<Statement, Integer>();
 
-    visit(stat);
+    int tree = ++treecounter;
+    List<Statement> lstTree = new ArrayList<Statement>();
 
-    setProcessed.addAll(tset);
-    setProcessed.add(stat);
-  }
+    ListStack<Statement> lstack = new ListStack<Statement>();
+    ListStack<Frame> frames = new ListStack<Frame>();
+    int ncounter = 0;
 
-  private void visit(Statement stat) {
+    // the start node is not put into the tree, so it may be visited a second time
+    frames.push(enter(stat, lstack, ncounter++));
 
-    lstack.push(stat);
-    dfsnummap.put(stat, ncounter);
-    lowmap.put(stat, ncounter);
-    ncounter++;
+    while (!frames.empty()) {
+      Frame frame = frames.get(frames.getPointer() - 1);
 
-    List<Statement> lstSuccs = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD); // TODO: set?
-    lstSuccs.removeAll(setProcessed);
+      if (frame.cursor < frame.succs.size()) {
+        Statement succ = frame.succs.get(frame.cursor++);
+        int index = getIndex(succ);
 
-    for (int i = 0; i < lstSuccs.size(); i++) {
-      Statement succ = lstSuccs.get(i);
-      int secvalue;
+        if (treenum[index] == tree) {
+          low[frame.index] = Math.min(low[frame.index], dfsnum[index]);
+        }
+        else {
+          treenum[index] = tree;
+          lstTree.add(succ);
+          frames.push(enter(succ, lstack, ncounter++));
+        }
+        continue;
+      }
 
-      if (tset.contains(succ)) {
-        secvalue = dfsnummap.get(succ);
+      frames.pop();
+
+      if (low[frame.index] == dfsnum[frame.index]) {
+        List<Statement> lst = new ArrayList<Statement>();
+        Statement v;
+        do {
+          v = lstack.pop();
+          lst.add(v);
+        }
+        while (v != frame.stat);
+        components.add(lst);
       }
-      else {
-        tset.add(succ);
-        visit(succ);
-        secvalue = lowmap.get(succ);
+
+      if (!frames.empty()) {
+        Frame parent = frames.get(frames.getPointer() - 1);
+        low[parent.index] = Math.min(low[parent.index], low[frame.index]);
       }
-      lowmap.put(stat, Math.min(lowmap.get(stat), secvalue));
     }
 
+    for (Statement st : lstTree) {
+      processed[getIndex(st)] = true;
+    }
+    processed[getIndex(stat)] = true;
+  }
+
+  private Frame enter(Statement stat, ListStack<Statement> lstack, int num) {
+
+    lstack.push(stat);
+
+    int index = getIndex(stat);
+    dfsnum[index] = num;
+    low[index] = num;
 
-    if (lowmap.get(stat).intValue() == dfsnummap.get(stat).intValue()) {
-      List<Statement> lst = new ArrayList<Statement>();
-      Statement v;
-      do {
-        v = lstack.pop();
-        lst.add(v);
+    List<Statement> lstSuccs = stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
+    List<Statement> lstActive = new ArrayList<Statement>(lstSuccs.size());
+    for (Statement succ : lstSuccs) {
+      if (!isProcessed(succ)) {
+        lstActive.add(succ);
       }
-      while (v != stat);
-      components.add(lst);
+    }
+
+    return new Frame(stat, index, lstActive);
+  }
+
+  private static class Frame {
+    private final Statement stat;
+    private final int index;
+    private final List<Statement> succs;
+    private int cursor;
+
+    private Frame(Statement stat, int index, List<Statement> succs) {
+      this.stat = stat;
+      this.index = index;
+      this.succs = succs;
     }
   }
 
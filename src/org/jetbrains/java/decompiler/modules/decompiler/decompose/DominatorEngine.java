@@ -17,15 +17,21 @@ package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import org.jetbrains.java.decompiler.util.IntIndexedCollection;
+import org.jetbrains.java.decompiler.util.IntIntMap;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class DominatorEngine {
 
   private Statement statement;
 
-  private VBStyleCollection<Integer, Integer> colOrderedIDoms = new VBStyleCollection<Integer, Integer>();
+  private IntIndexedCollection<Integer> colOrderedIDoms = new IntIndexedCollection<Integer>();
+
+  private IntIntMap mapNodeIndex;
+
+  private DominatorTree tree;
 
 
   public DominatorEngine(Statement statement) {
@@ -36,93 +42,57 @@ public class DominatorEngine {
     calcIDoms();
   }
 
-  private void orderStatements() {
-
-    for (Statement stat : statement.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, stat.id);
-    }
-  }
-
-  private static Integer getCommonIDom(Integer key1, Integer key2, VBStyleCollection<Integer, Integer> orderedIDoms) {
-
-    if (key1 == null) {
-      return key2;
-    }
-    else if (key2 == null) {
-      return key1;
-    }
-
-    int index1 = orderedIDoms.getIndexByKey(key1);
-    int index2 = orderedIDoms.getIndexByKey(key2);
-
-    while (index1 != index2) {
-      if (index1 > index2) {
-        key1 = orderedIDoms.getWithKey(key1);
-        index1 = orderedIDoms.getIndexByKey(key1);
-      }
-      else {
-        key2 = orderedIDoms.getWithKey(key2);
-        index2 = orderedIDoms.getIndexByKey(key2);
-      }
-    }
-
-    return key1;
-  }
-
   private void calcIDoms() {
 
-    orderStatements();
-
-    colOrderedIDoms.putWithKey(statement.getFirst().id, statement.getFirst().id);
-
-    // exclude first statement
-    List<Integer> lstIds = colOrderedIDoms.getLstKeys().subList(1, colOrderedIDoms.getLstKeys().size());
+    List<Statement> lstStats = statement.getReversePostOrderList();
+    int size = lstStats.size();
 
-    while (true) {
-
-      boolean changed = false;
+    mapNodeIndex = new IntIntMap(size);
+    for (int i = 0; i < size; i++) {
+      mapNodeIndex.put(lstStats.get(i).id, i);
+    }
 
-      for (Integer id : lstIds) {
+    int[][] preds = new int[size][];
+    boolean[] roots = new boolean[size];
 
-        Statement stat = statement.getStats().getWithKey(id);
-        Integer idom = null;
+    // the first statement is expected to head the list
+    roots[0] = true;
 
-        for (StatEdge edge : stat.getAllPredecessorEdges()) {
-          if (colOrderedIDoms.getWithKey(edge.getSource().id) != null) {
-            idom = getCommonIDom(idom, edge.getSource().id, colOrderedIDoms);
-          }
-        }
+    for (int i = 0; i < size; i++) {
+      List<StatEdge> lstEdges = lstStats.get(i).getAllPredecessorEdges();
+      int[] arr = new int[lstEdges.size()];
+      int count = 0;
 
-        Integer oldidom = colOrderedIDoms.putWithKey(idom, id);
-        if (!idom.equals(oldidom)) {
-          changed = true;
+      for (StatEdge edge : lstEdges) {
+        int index = mapNodeIndex.get(edge.getSource().id, -1);
+        if (index >= 0) {
+          arr[count++] = index;
         }
       }
 
-      if (!changed) {
-        break;
-      }
+      preds[i] = count == arr.length ? arr : Arrays.copyOf(arr, count);
+    }
+
+    tree = new DominatorTree(preds, roots);
+
+    for (int i = 0; i < size; i++) {
+      colOrderedIDoms.addWithKey(lstStats.get(tree.getIDom(i)).id, lstStats.get(i).id);
     }
   }
 
-  public VBStyleCollection<Integer, Integer> getOrderedIDoms() {
+  public IntIndexedCollection<Integer> getOrderedIDoms() {
     return colOrderedIDoms;
   }
 
   public boolean isDominator(Integer node, Integer dom) {
 
-    while (!node.equals(dom)) {
-
-      Integer idom = colOrderedIDoms.getWithKey(node);
-
-      if (idom.equals(node)) {
-        return false; // root node
-      }
-      else {
-        node = idom;
-      }
+    if (node.equals(dom)) {
+      return true;
     }
 
-    return true;
+    // statements unreachable from the first one are not in the tree
+    int index = mapNodeIndex.get(node, -1);
+    int domIndex = mapNodeIndex.get(dom, -1);
+    return index >= 0 && domIndex >= 0 && tree.isDominator(index, domIndex);
   }
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.decompiler.decompose;
+
+import java.util.Arrays;
+
+/*
+ * Dominator tree of a graph with nodes numbered 0..n-1 in reverse postorder. Immediate dominators are computed
+ * with the iterative algorithm of Cooper, Harvey and Kennedy on plain int arrays. There may be several roots;
+ * a node reachable from more than one of them has no immediate dominator and is a root of its own.
+ * Dominance queries are answered in constant time from the entry and exit numbers of a depth-first walk
+ * of the tree. Post-dominators are obtained by passing successors instead of predecessors.
+ */
+public class DominatorTree {
+
+  // immediate dominator of each node, the node itself for roots
+  private final int[] idoms;
+
+  private final int[] entry;
+  private final int[] exit;
+
+  public DominatorTree(int[][] preds, boolean[] roots) {
+
+    int size = preds.length;
+
+    idoms = new int[size];
+    Arrays.fill(idoms, -1);
+
+    boolean changed;
+    do {
+      changed = false;
+
+      for (int node = 0; node < size; node++) {
+
+        int idom = -1;
+
+        if (!roots[node]) {
+          for (int pred : preds[node]) {
+            if (idoms[pred] >= 0) {
+              idom = idom < 0 ? pred : getCommonIDom(idom, pred);
+              if (idom < 0) {
+                break; // no idom found: merging point of two trees
+              }
+            }
+          }
+        }
+
+        if (idom < 0) {
+          idom = node;
+        }
+
+        if (idoms[node] != idom) {
+          idoms[node] = idom;
+          changed = true;
+        }
+      }
+    }
+    while (changed);
+
+    entry = new int[size];
+    exit = new int[size];
+    numberNodes();
+  }
+
+  private int getCommonIDom(int node1, int node2) {
+
+    while (node1 != node2) {
+      if (node1 > node2) {
+        int idom = idoms[node1];
+        if (idom == node1) { // no idom - root or merging point
+          return -1;
+        }
+        node1 = idom;
+      }
+      else {
+        int idom = idoms[node2];
+        if (idom == node2) {
+          return -1;
+        }
+        node2 = idom;
+      }
+    }
+
+    return node1;
+  }
+
+  private void numberNodes() {
+
+    int size = idoms.length;
+
+    // children of each node as linked lists over int arrays
+    int[] firstChild = new int[size];
+    int[] nextSibling = new int[size];
+    Arrays.fill(firstChild, -1);
+
+    for (int node = size - 1; node >= 0; node--) {
+      int idom = idoms[node];
+      if (idom != node) {
+        nextSibling[node] = firstChild[idom];
+        firstChild[idom] = node;
+      }
+    }
+
+    int[] stack = new int[size];
+    int[] cursor = new int[size];
+    int counter = 0;
+
+    for (int root = 0; root < size; root++) {
+      if (idoms[root] != root) {
+        continue;
+      }
+
+      int depth = 0;
+      stack[0] = root;
+      cursor[0] = firstChild[root];
+      entry[root] = counter++;
+
+      while (depth >= 0) {
+        int child = cursor[depth];
+        if (child < 0) {
+          exit[stack[depth--]] = counter++;
+        }
+        else {
+          cursor[depth] = nextSibling[child];
+          stack[++depth] = child;
+          cursor[depth] = firstChild[child];
+          entry[child] = counter++;
+        }
+      }
+    }
+  }
+
+  public int size() {
+    return idoms.length;
+  }
+
+  public int getIDom(int node) {
+    return idoms[node];
+  }
+
+  public boolean isDominator(int node, int dom) {
+    return entry[dom] <= entry[node] && exit[node] <= exit[dom];
+  }
+}
@@ -15,8 +15,10 @@
  */
 package org.jetbrains.java.decompiler.modules.decompiler.decompose;
 
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import org.jetbrains.java.decompiler.util.ObjectIntMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 
@@ -24,9 +26,9 @@ public class GenericDominatorEngine {
 
   private IGraph graph;
 
-  private VBStyleCollection<IGraphNode, IGraphNode> colOrderedIDoms = new VBStyleCollection<IGraphNode, IGraphNode>();
+  private ObjectIntMap<IGraphNode> mapNodeIndex;
 
-  private Set<? extends IGraphNode> setRoots;
+  private DominatorTree tree;
 
   public GenericDominatorEngine(IGraph graph) {
     this.graph = graph;
@@ -36,117 +38,58 @@ public class GenericDominatorEngine {
     calcIDoms();
   }
 
-  private void orderNodes() {
-
-    setRoots = graph.getRoots();
-
-    for (IGraphNode node : graph.getReversePostOrderList()) {
-      colOrderedIDoms.addWithKey(null, node);
-    }
-  }
-
-  private static IGraphNode getCommonIDom(IGraphNode node1, IGraphNode node2, VBStyleCollection<IGraphNode, IGraphNode> orderedIDoms) {
-
-    IGraphNode nodeOld;
-
-    if (node1 == null) {
-      return node2;
-    }
-    else if (node2 == null) {
-      return node1;
-    }
-
-    int index1 = orderedIDoms.getIndexByKey(node1);
-    int index2 = orderedIDoms.getIndexByKey(node2);
-
-    while (index1 != index2) {
-      if (index1 > index2) {
-        nodeOld = node1;
-        node1 = orderedIDoms.getWithKey(node1);
-
-        if (nodeOld == node1) { // no idom - root or merging point
-          return null;
-        }
-
-        index1 = orderedIDoms.getIndexByKey(node1);
-      }
-      else {
-        nodeOld = node2;
-        node2 = orderedIDoms.getWithKey(node2);
-
-        if (nodeOld == node2) { // no idom - root or merging point
-          return null;
-        }
-
-        index2 = orderedIDoms.getIndexByKey(node2);
-      }
-    }
-
-    return node1;
-  }
-
   private void calcIDoms() {
 
-    orderNodes();
+    List<IGraphNode> lstNodes = new ArrayList<IGraphNode>(graph.getReversePostOrderList());
+    Set<? extends IGraphNode> setRoots = graph.getRoots();
 
-    List<IGraphNode> lstNodes = colOrderedIDoms.getLstKeys();
+    int size = lstNodes.size();
 
-    while (true) {
-
-      boolean changed = false;
+    mapNodeIndex = new ObjectIntMap<IGraphNode>(size);
+    for (int i = 0; i < size; i++) {
+      mapNodeIndex.put(lstNodes.get(i), i);
+    }
 
-      for (IGraphNode node : lstNodes) {
+    int[][] preds = new int[size][];
+    boolean[] roots = new boolean[size];
 
-        IGraphNode idom = null;
+    for (int i = 0; i < size; i++) {
+      IGraphNode node = lstNodes.get(i);
+      roots[i] = setRoots.contains(node);
 
-        if (!setRoots.contains(node)) {
-          for (IGraphNode pred : node.getPredecessors()) {
-            if (colOrderedIDoms.getWithKey(pred) != null) {
-              idom = getCommonIDom(idom, pred, colOrderedIDoms);
-              if (idom == null) {
-                break; // no idom found: merging point of two trees
-              }
-            }
-          }
-        }
+      List<? extends IGraphNode> lstPreds = node.getPredecessors();
+      int[] arr = new int[lstPreds.size()];
+      int count = 0;
 
-        if (idom == null) {
-          idom = node;
-        }
-
-        IGraphNode oldidom = colOrderedIDoms.putWithKey(idom, node);
-        if (!idom.equals(oldidom)) { // oldidom is null iff the node is touched for the first time
-          changed = true;
+      for (IGraphNode pred : lstPreds) {
+        int index = mapNodeIndex.get(pred, -1);
+        if (index >= 0) {
+          arr[count++] = index;
         }
       }
 
-      if (!changed) {
-        break;
-      }
+      preds[i] = count == arr.length ? arr : Arrays.copyOf(arr, count);
     }
+
+    tree = new DominatorTree(preds, roots);
   }
 
-  public VBStyleCollection<IGraphNode, IGraphNode> getOrderedIDoms() {
-    return colOrderedIDoms;
+  public boolean contains(IGraphNode node) {
+    return mapNodeIndex.containsKey(node);
   }
 
   public boolean isDominator(IGraphNode node, IGraphNode dom) {
 
-    while (!node.equals(dom)) {
-
-      IGraphNode idom = colOrderedIDoms.getWithKey(node);
+    if (node.equals(dom)) {
+      return true;
+    }
 
-      if (idom == node) {
-        return false; // root node or merging point
-      }
-      else if (idom == null) {
-        throw new RuntimeException("Inconsistent idom sequence discovered!");
-      }
-      else {
-        node = idom;
-      }
+    int index = mapNodeIndex.get(node, -1);
+    if (index < 0) {
+      throw new RuntimeException("Inconsistent idom sequence discovered!");
     }
 
-    return true;
+    int domIndex = mapNodeIndex.get(dom, -1);
+    return domIndex >= 0 && tree.isDominator(index, domIndex);
   }
 }
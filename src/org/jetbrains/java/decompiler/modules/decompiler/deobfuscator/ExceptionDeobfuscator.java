@@ -46,7 +46,9 @@ public class ExceptionDeobfuscator {
     }
   }
 
-  public static void restorePopRanges(ControlFlowGraph graph) {
+  public static boolean restorePopRanges(ControlFlowGraph graph) {
+
+    boolean res = false;
 
     List<Range> lstRanges = new ArrayList<Range>();
 
@@ -125,11 +127,11 @@ public class ExceptionDeobfuscator {
                       // replace handler
                       for (ExceptionRangeCFG range_ext : graph.getExceptions()) {
                         if (range_ext.getHandler() == handler) {
-                          range_ext.setHandler(newblock);
+                          graph.setExceptionHandler(range_ext, newblock);
                         }
-                        else if (range_ext.getProtectedRange().contains(handler)) {
+                        else if (range_ext.isProtected(handler)) {
                           newblock.addSuccessorException(range_ext.getHandler());
-                          range_ext.getProtectedRange().add(newblock);
+                          range_ext.addProtectedBlock(newblock);
                         }
                       }
 
@@ -143,7 +145,8 @@ public class ExceptionDeobfuscator {
                     }
 
                     newblock.addSuccessorException(range_super.handler);
-                    range_super.rangeCFG.getProtectedRange().add(newblock);
+                    range_super.rangeCFG.addProtectedBlock(newblock);
+                    res = true;
 
                     handler = range.rangeCFG.getHandler();
                     seq = handler.getSeq();
@@ -155,9 +158,11 @@ public class ExceptionDeobfuscator {
         }
       }
     }
+
+    return res;
   }
 
-  public static void insertEmptyExceptionHandlerBlocks(ControlFlowGraph graph) {
+  public static boolean insertEmptyExceptionHandlerBlocks(ControlFlowGraph graph) {
 
     Set<BasicBlock> setVisited = new HashSet<BasicBlock>();
 
@@ -184,11 +189,11 @@ public class ExceptionDeobfuscator {
       // replace handler
       for (ExceptionRangeCFG range_ext : graph.getExceptions()) {
         if (range_ext.getHandler() == handler) {
-          range_ext.setHandler(emptyblock);
+          graph.setExceptionHandler(range_ext, emptyblock);
         }
-        else if (range_ext.getProtectedRange().contains(handler)) {
+        else if (range_ext.isProtected(handler)) {
           emptyblock.addSuccessorException(range_ext.getHandler());
-          range_ext.getProtectedRange().add(emptyblock);
+          range_ext.addProtectedBlock(emptyblock);
         }
       }
 
@@ -197,9 +202,13 @@ public class ExceptionDeobfuscator {
         graph.setFirst(emptyblock);
       }
     }
+
+    return !setVisited.isEmpty();
   }
 
-  public static void removeEmptyRanges(ControlFlowGraph graph) {
+  public static boolean removeEmptyRanges(ControlFlowGraph graph) {
+
+    boolean res = false;
 
     List<ExceptionRangeCFG> lstRanges = graph.getExceptions();
     for (int i = lstRanges.size() - 1; i >= 0; i--) {
@@ -218,12 +227,17 @@ public class ExceptionDeobfuscator {
           block.removeSuccessorException(range.getHandler());
         }
 
-        lstRanges.remove(i);
+        graph.removeException(range);
+        res = true;
       }
     }
+
+    return res;
   }
 
-  public static void removeCircularRanges(final ControlFlowGraph graph) {
+  public static boolean removeCircularRanges(final ControlFlowGraph graph) {
+
+    boolean res = false;
 
     GenericDominatorEngine engine = new GenericDominatorEngine(new IGraph() {
       public List<? extends IGraphNode> getReversePostOrderList() {
@@ -244,22 +258,26 @@ public class ExceptionDeobfuscator {
       BasicBlock handler = range.getHandler();
       List<BasicBlock> rangeList = range.getProtectedRange();
 
-      if (rangeList.contains(handler)) {  // TODO: better removing strategy
+      if (range.isProtected(handler)) {  // TODO: better removing strategy
 
         List<BasicBlock> lstRemBlocks = getReachableBlocksRestricted(range, engine);
 
         if (lstRemBlocks.size() < rangeList.size() || rangeList.size() == 1) {
           for (BasicBlock block : lstRemBlocks) {
             block.removeSuccessorException(handler);
-            rangeList.remove(block);
+            range.removeProtectedBlock(block);
+            res = true;
           }
         }
 
         if (rangeList.isEmpty()) {
-          lstRanges.remove(i);
+          graph.removeException(range);
+          res = true;
         }
       }
     }
+
+    return res;
   }
 
   private static List<BasicBlock> getReachableBlocksRestricted(ExceptionRangeCFG range, GenericDominatorEngine engine) {
@@ -277,7 +295,7 @@ public class ExceptionDeobfuscator {
 
       setVisited.add(block);
 
-      if (range.getProtectedRange().contains(block) && engine.isDominator(block, handler)) {
+      if (range.isProtected(block) && engine.isDominator(block, handler)) {
         lstRes.add(block);
 
         List<BasicBlock> lstSuccs = new ArrayList<BasicBlock>(block.getSuccs());
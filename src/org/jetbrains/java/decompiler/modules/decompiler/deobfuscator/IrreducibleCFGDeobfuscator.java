@@ -15,119 +15,194 @@
  */
 package org.jetbrains.java.decompiler.modules.decompiler.deobfuscator;
 
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.BasicBlockStatement;
+import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
+import org.jetbrains.java.decompiler.util.IntIndexedCollection;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 
 public class IrreducibleCFGDeobfuscator {
 
 
+  // total number of instructions node splitting may duplicate in a method, relative to its original size
+  private static final int SPLIT_BUDGET_FACTOR = 2;
+  private static final int SPLIT_BUDGET_MIN = 256;
+
   public static boolean isStatementIrreducible(Statement statement) {
+    BitSet core = getIrreducibleCore(statement);
+    return core != null && core.cardinality() > 1; // reducible iff one node remains
+  }
 
-    class Node {
-      public Integer id;
-      public Set<Node> preds = new HashSet<Node>();
-      public Set<Node> succs = new HashSet<Node>();
+  // Reduces the graph of the direct children with T1 (self loop removal) and T2 (merging a node into its only
+  // predecessor) transformations. Returns the indices in getStats() of the nodes that remain, null if there are
+  // exception edges. The result does not depend on the order the transformations are applied in.
+  private static BitSet getIrreducibleCore(Statement statement) {
 
-      public Node(Integer id) {
-        this.id = id;
-      }
-    }
-
-    HashMap<Integer, Node> mapNodes = new HashMap<Integer, Node>();
+    IntIndexedCollection<Statement> lstStats = statement.getStats();
+    int size = lstStats.size();
 
     // checking exceptions and creating nodes
-    for (Statement stat : statement.getStats()) {
+    for (Statement stat : lstStats) {
       if (!stat.getSuccessorEdges(StatEdge.TYPE_EXCEPTION).isEmpty()) {
-        return false;
+        return null;
       }
-
-      mapNodes.put(stat.id, new Node(stat.id));
     }
 
-    // connecting nodes
-    for (Statement stat : statement.getStats()) {
-      Node node = mapNodes.get(stat.id);
+    // adjacency as int arrays with separate fill counts, without duplicates
+    int[][] preds = new int[size][];
+    int[][] succs = new int[size][];
+    int[] predCount = new int[size];
+    int[] succCount = new int[size];
 
-      for (Statement succ : stat.getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD)) {
-        Node nodeSucc = mapNodes.get(succ.id);
+    // connecting nodes
+    for (int i = 0; i < size; i++) {
+      List<Statement> lstSuccs = lstStats.get(i).getNeighbours(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD);
+      succs[i] = new int[Math.max(lstSuccs.size(), 1)];
+      if (preds[i] == null) {
+        preds[i] = new int[2];
+      }
 
-        node.succs.add(nodeSucc);
-        nodeSucc.preds.add(node);
+      for (Statement succ : lstSuccs) {
+        int j = lstStats.getIndexByKey(succ.id);
+        if (preds[j] == null) {
+          preds[j] = new int[2];
+        }
+        if (addNode(succs, succCount, i, j)) {
+          addNode(preds, predCount, j, i);
+        }
       }
     }
 
+    BitSet alive = new BitSet(size);
+    alive.set(0, size);
+
+    int[] worklist = new int[size];
+    boolean[] queued = new boolean[size];
+    int count = 0;
+    for (int i = size - 1; i >= 0; i--) {
+      worklist[count++] = i;
+      queued[i] = true;
+    }
+
     // transforming and reducing the graph
-    while (true) {
-      int ttype = 0;
-      Node node = null;
+    while (count > 0) {
+      int node = worklist[--count];
+      queued[node] = false;
 
-      for (Node nd : mapNodes.values()) {
-        if (nd.succs.contains(nd)) { // T1
-          ttype = 1;
-        }
-        else if (nd.preds.size() == 1) { // T2
-          ttype = 2;
-        }
+      if (!alive.get(node)) {
+        continue;
+      }
 
-        if (ttype != 0) {
-          node = nd;
-          break;
-        }
+      if (removeNode(succs, succCount, node, node)) { // T1
+        removeNode(preds, predCount, node, node);
       }
 
-      if (node != null) {
-        if (ttype == 1) {
-          node.succs.remove(node);
-          node.preds.remove(node);
-        }
-        else {
-          Node pred = node.preds.iterator().next();
+      if (predCount[node] == 1) { // T2
+        int pred = preds[node][0];
 
-          pred.succs.addAll(node.succs);
-          pred.succs.remove(node);
+        removeNode(succs, succCount, pred, node);
 
-          for (Node succ : node.succs) {
-            succ.preds.remove(node);
-            succ.preds.add(pred);
+        for (int k = 0; k < succCount[node]; k++) {
+          int succ = succs[node][k];
+
+          addNode(succs, succCount, pred, succ);
+
+          removeNode(preds, predCount, succ, node);
+          addNode(preds, predCount, succ, pred);
+
+          if (!queued[succ]) {
+            worklist[count++] = succ;
+            queued[succ] = true;
           }
+        }
+
+        alive.clear(node);
 
-          mapNodes.remove(node.id);
+        if (!queued[pred]) {
+          worklist[count++] = pred;
+          queued[pred] = true;
         }
       }
-      else { // no transformation applicable
-        return mapNodes.size() > 1; // reducible iff one node remains
+    }
+
+    return alive;
+  }
+
+  private static boolean addNode(int[][] sets, int[] counts, int index, int node) {
+    int[] set = sets[index];
+    int count = counts[index];
+    for (int i = 0; i < count; i++) {
+      if (set[i] == node) {
+        return false;
       }
     }
+    if (count == set.length) {
+      sets[index] = set = Arrays.copyOf(set, count * 2);
+    }
+    set[count] = node;
+    counts[index]++;
+    return true;
   }
 
+  private static boolean removeNode(int[][] sets, int[] counts, int index, int node) {
+    int[] set = sets[index];
+    int count = counts[index];
+    for (int i = 0; i < count; i++) {
+      if (set[i] == node) {
+        set[i] = set[count - 1];
+        counts[index]--;
+        return true;
+      }
+    }
+    return false;
+  }
 
+  // Picks the node whose complete splitting duplicates the fewest instructions, preferring nodes of the
+  // irreducible core. Only these nodes can make the graph reducible.
   private static Statement getCandidateForSplitting(Statement statement) {
 
+    IntIndexedCollection<Statement> lstStats = statement.getStats();
+
+    Statement candidate = null;
+    BitSet core = getIrreducibleCore(statement);
+    if (core != null) {
+      candidate = getCandidateForSplitting(lstStats, core);
+    }
+
+    if (candidate == null) {
+      BitSet all = new BitSet(lstStats.size());
+      all.set(0, lstStats.size());
+      candidate = getCandidateForSplitting(lstStats, all);
+    }
+
+    return candidate;
+  }
+
+  private static Statement getCandidateForSplitting(List<Statement> lstStats, BitSet nodes) {
+
     Statement candidateForSplitting = null;
-    int sizeCandidateForSplitting = Integer.MAX_VALUE;
+    long costCandidateForSplitting = Long.MAX_VALUE;
     int succsCandidateForSplitting = Integer.MAX_VALUE;
 
-    for (Statement stat : statement.getStats()) {
+    for (int i = nodes.nextSetBit(0); i >= 0; i = nodes.nextSetBit(i + 1)) {
+      Statement stat = lstStats.get(i);
 
       Set<Statement> setPreds = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_BACKWARD);
 
       if (setPreds.size() > 1) {
+        long cost = (long)getStatementSize(stat) * (setPreds.size() - 1);
         int succCount = stat.getNeighboursSet(StatEdge.TYPE_REGULAR, Statement.DIRECTION_FORWARD).size();
-        if (succCount <= succsCandidateForSplitting) {
-          int size = getStatementSize(stat) * (setPreds.size() - 1);
-
-          if (succCount < succsCandidateForSplitting ||
-              size < sizeCandidateForSplitting) {
-            candidateForSplitting = stat;
-            sizeCandidateForSplitting = size;
-            succsCandidateForSplitting = succCount;
-          }
+
+        if (cost < costCandidateForSplitting ||
+            (cost == costCandidateForSplitting && succCount < succsCandidateForSplitting)) {
+          candidateForSplitting = stat;
+          costCandidateForSplitting = cost;
+          succsCandidateForSplitting = succCount;
         }
       }
     }
@@ -142,6 +217,18 @@ public class IrreducibleCFGDeobfuscator {
       return false;
     }
 
+    // stop when the method has grown beyond its budget, it fails to decompile instead of exploding
+    RootStatement root = getRoot(statement);
+    if (root != null) {
+      int size = getStatementSize(splitnode);
+      int original = getStatementSize(root) - root.getSplitInstructions();
+      if (root.getSplitInstructions() + size > Math.max(SPLIT_BUDGET_MIN, original * SPLIT_BUDGET_FACTOR)) {
+        DecompilerContext.getLogger().writeMessage("Node splitting budget of the method exceeded", IFernflowerLogger.Severity.WARN);
+        return false;
+      }
+      root.addSplitInstructions(size);
+    }
+
     StatEdge enteredge = splitnode.getPredecessorEdges(StatEdge.TYPE_REGULAR).iterator().next();
 
     // copy the smallest statement
@@ -170,6 +257,13 @@ public class IrreducibleCFGDeobfuscator {
     return true;
   }
 
+  private static RootStatement getRoot(Statement statement) {
+    while (statement != null && statement.type != Statement.TYPE_ROOT) {
+      statement = statement.getParent();
+    }
+    return (RootStatement)statement;
+  }
+
   private static int getStatementSize(Statement statement) {
 
     int res = 0;
@@ -49,6 +49,7 @@ public class DirectGraph {
 
     nodes.clear();
     for (DirectNode node : res) {
+      node.index = nodes.size();
       nodes.addWithKey(node, node.id);
     }
   }
@@ -118,6 +119,11 @@ public class DirectGraph {
         if (res == 2) {
           node.exprents.remove(i);
           i--;
+
+          // head and loop exprent lists determine the shape of the flattened graph
+          if (node.type != DirectNode.NODE_DIRECT) {
+            node.statement.markStructureChanged();
+          }
         }
       }
 
@@ -36,6 +36,9 @@ public class DirectNode {
 
   public String id;
 
+  // position in DirectGraph.nodes, assigned by DirectGraph.sortReversePostOrder()
+  public int index = -1;
+
   public BasicBlockStatement block;
 
   public Statement statement;
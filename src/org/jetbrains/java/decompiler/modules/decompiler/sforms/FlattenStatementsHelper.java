@@ -44,6 +44,10 @@ public class FlattenStatementsHelper {
 
   private RootStatement root;
 
+  public DirectGraph getDirectGraph() {
+    return graph;
+  }
+
   public DirectGraph buildDirectGraph(RootStatement root) {
 
     this.root = root;
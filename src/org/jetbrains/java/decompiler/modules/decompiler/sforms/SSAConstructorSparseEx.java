@@ -16,6 +16,8 @@
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.AssignmentExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.FunctionExprent;
@@ -30,10 +32,12 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.IntIntMap;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -41,23 +45,35 @@ import java.util.Map.Entry;
 
 public class SSAConstructorSparseEx {
 
-  // node id, var, version
-  private HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version
+  private SFormsFastMapDirect[] inVarVersions;
 
-  // node id, var, version (direct branch)
-  private HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version (direct branch)
+  private SFormsFastMapDirect[] outVarVersions;
 
-  // node id, var, version (negative branch)
-  private HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version (negative branch)
+  private SFormsFastMapDirect[] outNegVarVersions;
 
-  // node id, var, version
-  private HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<String, SFormsFastMapDirect>();
+  // node index, var, version
+  private SFormsFastMapDirect[] extraVarVersions;
+
+  // node index, index of the negative branch successor or -1
+  private int[] negIfBranch;
+
+  // node indices of finally exits
+  private BitSet finallyExits;
+
+  // node indices of finally exit successors, their input depends on more than their predecessors
+  private BitSet finallySuccessors;
+
+  // number of node visits, for instrumentation
+  private int iterations;
 
   // (var, version), version
   private HashMap<VarVersionPaar, FastSparseSet<Integer>> phi = new HashMap<VarVersionPaar, FastSparseSet<Integer>>();
 
   // var, version
-  private HashMap<Integer, Integer> lastversion = new HashMap<Integer, Integer>();
+  private IntIntMap lastversion = new IntIntMap();
 
   private List<VarVersionPaar> startVars = new ArrayList<VarVersionPaar>();
 
@@ -66,8 +82,8 @@ public class SSAConstructorSparseEx {
 
   public void splitVariables(RootStatement root, StructMethod mt) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattening();
+    DirectGraph dgraph = flatthelper.getDirectGraph();
 
     // try {
     // DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr12_my.dot"));
@@ -79,27 +95,82 @@ public class SSAConstructorSparseEx {
     }
     factory = new FastSparseSetFactory<Integer>(setInit);
 
+    initNodeState(dgraph);
+
     SFormsFastMapDirect firstmap = createFirstMap(mt);
-    extraVarVersions.put(dgraph.first.id, firstmap);
+    extraVarVersions[dgraph.first.index] = firstmap;
 
     setCatchMaps(root, dgraph, flatthelper);
 
-    HashSet<String> updated = new HashSet<String>();
+    // worklist of node indices, visited in reverse post-order
+    BitSet updated = new BitSet();
+    updated.set(0, dgraph.nodes.size());
     do {
       // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
       ssaStatements(dgraph, updated);
       // System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
+
+      if (!updated.isEmpty()) {
+        updated.or(finallySuccessors);
+      }
     }
     while (!updated.isEmpty());
+
+    IFernflowerLogger logger = DecompilerContext.getLogger();
+    if (logger.accepts(IFernflowerLogger.Severity.TRACE)) {
+      logger.writeMessage("SSA of " + mt.getName() + ": " + iterations + " node visits for " + dgraph.nodes.size() + " nodes",
+                          IFernflowerLogger.Severity.TRACE);
+    }
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated) {
+  private void initNodeState(DirectGraph dgraph) {
+
+    int size = dgraph.nodes.size();
+
+    inVarVersions = new SFormsFastMapDirect[size];
+    outVarVersions = new SFormsFastMapDirect[size];
+    outNegVarVersions = new SFormsFastMapDirect[size];
+    extraVarVersions = new SFormsFastMapDirect[size];
+
+    negIfBranch = new int[size];
+    finallyExits = new BitSet(size);
+    finallySuccessors = new BitSet(size);
+
+    for (DirectNode node : dgraph.nodes) {
+      negIfBranch[node.index] = getNodeIndex(dgraph, dgraph.mapNegIfBranch.get(node.id));
+      if (dgraph.mapShortRangeFinallyPaths.containsKey(node.id)) {
+        finallyExits.set(node.index);
+      }
+    }
+
+    for (DirectNode node : dgraph.nodes) {
+      for (DirectNode pred : node.preds) {
+        if (isFinallyExit(pred, dgraph)) {
+          finallySuccessors.set(node.index);
+        }
+      }
+    }
+  }
+
+  private boolean isFinallyExit(DirectNode node, DirectGraph dgraph) {
+    // predecessors dropped from the graph as unreachable have no index
+    return node.index >= 0 ? finallyExits.get(node.index) : dgraph.mapShortRangeFinallyPaths.containsKey(node.id);
+  }
+
+  private static int getNodeIndex(DirectGraph dgraph, String id) {
+    DirectNode node = id == null ? null : dgraph.nodes.getWithKey(id);
+    return node == null ? -1 : node.index;
+  }
+
+  private void ssaStatements(DirectGraph dgraph, BitSet updated) {
 
     // try {
     // DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr1_my.dot"));
     // } catch(Exception ex) {ex.printStackTrace();}
 
-    for (DirectNode node : dgraph.nodes) {
+    for (int index = updated.nextSetBit(0); index >= 0; index = updated.nextSetBit(index + 1)) {
+
+      DirectNode node = dgraph.nodes.get(index);
 
       //			if (node.id.endsWith("_inc")) {
       //				System.out.println();
@@ -111,10 +182,12 @@ public class SSAConstructorSparseEx {
       //				}
       //			}
 
-      updated.remove(node.id);
+      updated.clear(node.index);
+      iterations++;
+
       mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect varmap = inVarVersions.get(node.id);
+      SFormsFastMapDirect varmap = inVarVersions[node.index];
       varmap = new SFormsFastMapDirect(varmap);
 
       SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
@@ -129,17 +202,17 @@ public class SSAConstructorSparseEx {
         varmaparr[1] = varmaparr[0];
       }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.index])
+                             || (outNegVarVersions[node.index] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.index]));
 
       if (this_updated) {
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
+        outVarVersions[node.index] = varmaparr[0];
+        if (negIfBranch[node.index] >= 0) {
+          outNegVarVersions[node.index] = varmaparr[1];
         }
 
         for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
+          updated.set(nd.index);
         }
       }
     }
@@ -285,14 +358,8 @@ public class SSAConstructorSparseEx {
     }
   }
 
-  private Integer getNextFreeVersion(Integer var) {
-    Integer nextver = lastversion.get(var);
-    if (nextver == null) {
-      nextver = new Integer(1);
-    }
-    else {
-      nextver = new Integer(nextver.intValue() + 1);
-    }
+  private Integer getNextFreeVersion(int var) {
+    int nextver = lastversion.get(var, 0) + 1;
     lastversion.put(var, nextver);
     return nextver;
   }
@@ -302,7 +369,10 @@ public class SSAConstructorSparseEx {
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
     for (DirectNode pred : node.preds) {
-      SFormsFastMapDirect mapOut = getFilteredOutMap(node.id, pred.id, dgraph, node.id);
+      SFormsFastMapDirect mapOut = getOutMap(node.index, pred.index);
+      if (isFinallyExit(pred, dgraph) && !mapOut.isEmpty()) {
+        mapOut = getFilteredOutMap(mapOut, node.id, pred.id, dgraph, node.id);
+      }
       if (mapNew.isEmpty()) {
         mapNew = mapOut.getCopy();
       }
@@ -311,8 +381,8 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.index];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -321,96 +391,105 @@ public class SSAConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.index] = mapNew;
+  }
+
+  private SFormsFastMapDirect getOutMap(int node, int pred) {
+    SFormsFastMapDirect map = getOutVarVersions(node, pred);
+    return map == null ? new SFormsFastMapDirect() : map.getCopy();
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getOutVarVersions(int node, int pred) {
 
-    SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
+    if (pred < 0) {
+      return null;
+    }
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
-      }
+    if (node >= 0 && node == negIfBranch[pred]) {
+      return outNegVarVersions[pred];
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else {
+      return outVarVersions[pred];
     }
+  }
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+  private SFormsFastMapDirect getFilteredOutMap(SFormsFastMapDirect mapNew,
+                                                String nodeid,
+                                                String predid,
+                                                DirectGraph dgraph,
+                                                String destid) {
 
-    if (isFinallyExit && !mapNew.isEmpty()) {
+    SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
 
-      SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
+    SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
+    String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
+    boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
+    HashSet<String> setLongPathWrapper = new HashSet<String>();
+    for (FinallyPathWrapper finwraplong : dgraph.mapLongRangeFinallyPaths.get(predid)) {
+      setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
+    }
 
-      HashSet<String> setLongPathWrapper = new HashSet<String>();
-      for (FinallyPathWrapper finwraplong : dgraph.mapLongRangeFinallyPaths.get(predid)) {
-        setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
-      }
+    for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      SFormsFastMapDirect map;
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
-        SFormsFastMapDirect map;
+      boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
 
-        boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
+      int entry = getNodeIndex(dgraph, finwrap.entry);
+      int source = getNodeIndex(dgraph, finwrap.source);
 
-        if (recFinally) {
-          // recursion
-          map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
-        }
-        else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
-          }
-          else {
-            map = outVarVersions.get(finwrap.source);
-          }
+      if (recFinally) {
+        // recursion
+        map = getOutMap(entry, source);
+        if (!map.isEmpty()) {
+          map = getFilteredOutMap(map, finwrap.entry, finwrap.source, dgraph, destid);
         }
+      }
+      else {
+        map = getOutVarVersions(entry, source);
+      }
 
-        // false path?
-        boolean isFalsePath = true;
+      // false path?
+      boolean isFalsePath = true;
 
-        if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
-        }
-        else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
-        }
+      if (recFinally) {
+        isFalsePath = !finwrap.destination.equals(nodeid);
+      }
+      else {
+        isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+      }
 
-        if (isFalsePath) {
-          mapNewTemp.complement(map);
+      if (isFalsePath) {
+        mapNewTemp.complement(map);
+      }
+      else {
+        if (mapTrueSource.isEmpty()) {
+          if (map != null) {
+            mapTrueSource = map.getCopy();
+          }
         }
         else {
-          if (mapTrueSource.isEmpty()) {
-            if (map != null) {
-              mapTrueSource = map.getCopy();
-            }
-          }
-          else {
-            mergeMaps(mapTrueSource, map);
-          }
+          mergeMaps(mapTrueSource, map);
         }
       }
+    }
 
-      if (isExceptionMonitorExit) {
-
-        mapNew = mapTrueSource;
-      }
-      else {
+    if (isExceptionMonitorExit) {
 
-        mapNewTemp.union(mapTrueSource);
+      mapNew = mapTrueSource;
+    }
+    else {
 
-        SFormsFastMapDirect oldInMap = inVarVersions.get(nodeid);
-        if (oldInMap != null) {
-          mapNewTemp.union(oldInMap);
-        }
+      mapNewTemp.union(mapTrueSource);
 
-        mapNew.intersection(mapNewTemp);
+      int node = getNodeIndex(dgraph, nodeid);
+      SFormsFastMapDirect oldInMap = node >= 0 ? inVarVersions[node] : null;
+      if (oldInMap != null) {
+        mapNewTemp.union(oldInMap);
       }
+
+      mapNew.intersection(mapNewTemp);
     }
 
     return mapNew;
@@ -476,7 +555,7 @@ public class SSAConstructorSparseEx {
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).index] = map;
           startVars.add(new VarVersionPaar(varindex, version));
         }
     }
@@ -16,6 +16,8 @@
 package org.jetbrains.java.decompiler.modules.decompiler.sforms;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.*;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.*;
@@ -27,55 +29,70 @@ import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.IntIntMap;
+import org.jetbrains.java.decompiler.util.IntObjectMap;
+import org.jetbrains.java.decompiler.util.IntSet;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.LongIntMap;
+import org.jetbrains.java.decompiler.util.LongObjectMap;
 import org.jetbrains.java.decompiler.util.SFormsFastMapDirect;
 import org.jetbrains.java.decompiler.util.VBStyleCollection;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 
 public class SSAUConstructorSparseEx {
 
-  // node id, var, version
-  private HashMap<String, SFormsFastMapDirect> inVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> inVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version
+  private SFormsFastMapDirect[] inVarVersions;
 
-  // node id, var, version (direct branch)
-  private HashMap<String, SFormsFastMapDirect> outVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version (direct branch)
+  private SFormsFastMapDirect[] outVarVersions;
 
-  // node id, var, version (negative branch)
-  private HashMap<String, SFormsFastMapDirect> outNegVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> outNegVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version (negative branch)
+  private SFormsFastMapDirect[] outNegVarVersions;
 
-  // node id, var, version
-  private HashMap<String, SFormsFastMapDirect> extraVarVersions = new HashMap<String, SFormsFastMapDirect>();
-  //private HashMap<String, HashMap<Integer, FastSet<Integer>>> extraVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
+  // node index, var, version
+  private SFormsFastMapDirect[] extraVarVersions;
+
+  // node index, index of the negative branch successor or -1
+  private int[] negIfBranch;
+
+  // node indices of finally exits
+  private BitSet finallyExits;
+
+  // node indices of finally exit successors, their input depends on more than their predecessors
+  private BitSet finallySuccessors;
+
+  // number of node visits, for instrumentation
+  private int iterations;
 
   // (var, version), version
-  private HashMap<VarVersionPaar, HashSet<Integer>> phi = new HashMap<VarVersionPaar, HashSet<Integer>>();
+  private LongObjectMap<IntSet> phi = new LongObjectMap<IntSet>();
 
   // var, version
-  private HashMap<Integer, Integer> lastversion = new HashMap<Integer, Integer>();
+  private IntIntMap lastversion = new IntIntMap();
 
   // version, protected ranges (catch, finally)
-  private HashMap<VarVersionPaar, Integer> mapVersionFirstRange = new HashMap<VarVersionPaar, Integer>();
+  private LongIntMap mapVersionFirstRange = new LongIntMap();
 
   // version, version
   private HashMap<VarVersionPaar, VarVersionPaar> phantomppnodes = new HashMap<VarVersionPaar, VarVersionPaar>(); // ++ and --
 
-  // node.id, version, version
-  private HashMap<String, HashMap<VarVersionPaar, VarVersionPaar>> phantomexitnodes =
-    new HashMap<String, HashMap<VarVersionPaar, VarVersionPaar>>(); // finally exits
+  // node index, version, version
+  private IntObjectMap<HashMap<VarVersionPaar, VarVersionPaar>> phantomexitnodes =
+    new IntObjectMap<HashMap<VarVersionPaar, VarVersionPaar>>(); // finally exits
 
   // versions memory dependencies
   private VarVersionsGraph ssuversions = new VarVersionsGraph();
 
   // field access vars (exprent id, var id)
-  private HashMap<Integer, Integer> mapFieldVars = new HashMap<Integer, Integer>();
+  private IntIntMap mapFieldVars = new IntIntMap();
 
   // field access counter
   private int fieldvarcounter = -1;
@@ -83,10 +100,16 @@ public class SSAUConstructorSparseEx {
   // set factory
   private FastSparseSetFactory<Integer> factory;
 
+  // flattened graph the form was built for
+  private DirectGraph dgraph;
+
+  // variables to calculate versions for, null for all
+  private IntSet trackedVars;
+
   public void splitVariables(RootStatement root, StructMethod mt) {
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    FlattenStatementsHelper flatthelper = root.getFlattening();
+    dgraph = flatthelper.getDirectGraph();
 
     HashSet<Integer> setInit = new HashSet<Integer>();
     for (int i = 0; i < 64; i++) {
@@ -94,36 +117,218 @@ public class SSAUConstructorSparseEx {
     }
     factory = new FastSparseSetFactory<Integer>(setInit);
 
-    extraVarVersions.put(dgraph.first.id, createFirstMap(mt, root));
-
-    setCatchMaps(root, dgraph, flatthelper);
+    calcVersions(root, mt, flatthelper);
 
     //		try {
     //			DotExporter.toDotFile(dgraph, new File("c:\\Temp\\gr12_my.dot"));
     //		} catch(Exception ex) {ex.printStackTrace();}
 
-    HashSet<String> updated = new HashSet<String>();
+    finishVersions(mt);
+  }
+
+  // Brings the form up to date after changes of the expressions that replaced or removed occurrences of the
+  // given variables only and left the flattened graph as it was. Versions and ssu nodes of these variables and of
+  // field accesses are calculated anew, all other variable exprents must still carry the versions assigned by
+  // this form. Returns false if the form has to be built from scratch.
+  public boolean updateVariables(RootStatement root, StructMethod mt, IntSet vars) {
+
+    FlattenStatementsHelper flatthelper = root.getFlattening();
+    if (flatthelper.getDirectGraph() != dgraph || !dgraph.mapShortRangeFinallyPaths.isEmpty()) {
+      return false;
+    }
+
+    trackedVars = vars;
+
+    removeTrackedVersions();
+
+    SFormsFastMapDirect[] oldOutVarVersions = outVarVersions;
+    SFormsFastMapDirect[] oldOutNegVarVersions = outNegVarVersions;
+    SFormsFastMapDirect[] oldExtraVarVersions = extraVarVersions;
+
+    calcVersions(root, mt, flatthelper);
+
+    // untracked variables keep their old versions
+    for (int i = 0; i < outVarVersions.length; i++) {
+      outVarVersions[i] = mergeUntracked(outVarVersions[i], oldOutVarVersions[i]);
+      outNegVarVersions[i] = mergeUntracked(outNegVarVersions[i], oldOutNegVarVersions[i]);
+    }
+    extraVarVersions = oldExtraVarVersions;
+
+    trackedVars = null;
+
+    finishVersions(mt);
+
+    return true;
+  }
+
+  private void calcVersions(RootStatement root, StructMethod mt, FlattenStatementsHelper flatthelper) {
+
+    initNodeState(dgraph);
+
+    extraVarVersions[dgraph.first.index] = createFirstMap(mt, root);
+
+    setCatchMaps(root, dgraph, flatthelper);
+
+    // worklist of node indices, visited in reverse post-order
+    BitSet updated = new BitSet();
+    updated.set(0, dgraph.nodes.size());
     do {
       //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
       ssaStatements(dgraph, updated, false);
       //			System.out.println("~~~~~~~~~~~~~ \r\n"+root.toJava());
+
+      if (!updated.isEmpty()) {
+        updated.or(finallySuccessors);
+      }
     }
     while (!updated.isEmpty());
+  }
 
+  private void finishVersions(StructMethod mt) {
 
+    // final pass over all nodes
+    BitSet updated = new BitSet();
+    updated.set(0, dgraph.nodes.size());
     ssaStatements(dgraph, updated, true);
 
+    IFernflowerLogger logger = DecompilerContext.getLogger();
+    if (logger.accepts(IFernflowerLogger.Severity.TRACE)) {
+      logger.writeMessage("SSAU of " + mt.getName() + ": " + iterations + " node visits for " + dgraph.nodes.size() + " nodes",
+                          IFernflowerLogger.Severity.TRACE);
+    }
+
     ssuversions.initDominators();
   }
 
-  private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, boolean calcLiveVars) {
+  private boolean isTracked(int var) {
+    // field accesses are always tracked
+    return trackedVars == null || var < 0 || trackedVars.contains(var);
+  }
+
+  private void removeTrackedVersions() {
+
+    // edges connect versions of the same variable only
+    VBStyleCollection<VarVersionNode, VarVersionPaar> nodes = new VBStyleCollection<VarVersionNode, VarVersionPaar>();
+    for (int i = 0; i < ssuversions.nodes.size(); i++) {
+      VarVersionNode node = ssuversions.nodes.get(i);
+      if (!isTracked(node.var)) {
+        nodes.addWithKey(node, ssuversions.nodes.getKey(i));
+      }
+    }
+    ssuversions.nodes = nodes;
+
+    for (int var : trackedVars.toArray()) {
+      lastversion.remove(var);
+    }
+
+    for (long key : mapVersionFirstRange.keys()) {
+      if (isTracked(VarVersionPaar.getVar(key))) {
+        mapVersionFirstRange.remove(key);
+      }
+    }
+
+    for (long key : phi.keys()) {
+      if (isTracked(VarVersionPaar.getVar(key))) {
+        phi.remove(key);
+      }
+    }
+
+    for (Iterator<VarVersionPaar> it = phantomppnodes.keySet().iterator(); it.hasNext(); ) {
+      if (isTracked(it.next().var)) {
+        it.remove();
+      }
+    }
+
+    mapFieldVars = new IntIntMap();
+    fieldvarcounter = -1;
 
     for (DirectNode node : dgraph.nodes) {
+      for (Exprent exprent : node.exprents) {
+        if (exprent != null) {
+          List<Exprent> lst = exprent.getAllExprents(true);
+          lst.add(exprent);
+
+          for (Exprent expr : lst) {
+            if (expr.type == Exprent.EXPRENT_VAR && isTracked(((VarExprent)expr).getIndex())) {
+              ((VarExprent)expr).setVersion(0);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private SFormsFastMapDirect mergeUntracked(SFormsFastMapDirect map, SFormsFastMapDirect oldMap) {
+
+    if (oldMap == null) {
+      return map;
+    }
+
+    SFormsFastMapDirect res = new SFormsFastMapDirect();
+    for (Entry<Integer, FastSparseSet<Integer>> ent : oldMap.entryList()) {
+      if (!isTracked(ent.getKey())) {
+        res.put(ent.getKey(), ent.getValue().getCopy());
+      }
+    }
+
+    if (map != null) {
+      res.union(map);
+    }
+
+    return res;
+  }
+
+  private void initNodeState(DirectGraph dgraph) {
+
+    int size = dgraph.nodes.size();
+
+    inVarVersions = new SFormsFastMapDirect[size];
+    outVarVersions = new SFormsFastMapDirect[size];
+    outNegVarVersions = new SFormsFastMapDirect[size];
+    extraVarVersions = new SFormsFastMapDirect[size];
+
+    negIfBranch = new int[size];
+    finallyExits = new BitSet(size);
+    finallySuccessors = new BitSet(size);
+
+    for (DirectNode node : dgraph.nodes) {
+      negIfBranch[node.index] = getNodeIndex(dgraph, dgraph.mapNegIfBranch.get(node.id));
+      if (dgraph.mapShortRangeFinallyPaths.containsKey(node.id)) {
+        finallyExits.set(node.index);
+      }
+    }
+
+    for (DirectNode node : dgraph.nodes) {
+      for (DirectNode pred : node.preds) {
+        if (isFinallyExit(pred, dgraph)) {
+          finallySuccessors.set(node.index);
+        }
+      }
+    }
+  }
+
+  private boolean isFinallyExit(DirectNode node, DirectGraph dgraph) {
+    // predecessors dropped from the graph as unreachable have no index
+    return node.index >= 0 ? finallyExits.get(node.index) : dgraph.mapShortRangeFinallyPaths.containsKey(node.id);
+  }
+
+  private static int getNodeIndex(DirectGraph dgraph, String id) {
+    DirectNode node = id == null ? null : dgraph.nodes.getWithKey(id);
+    return node == null ? -1 : node.index;
+  }
+
+  private void ssaStatements(DirectGraph dgraph, BitSet updated, boolean calcLiveVars) {
+
+    for (int index = updated.nextSetBit(0); index >= 0; index = updated.nextSetBit(index + 1)) {
+
+      DirectNode node = dgraph.nodes.get(index);
+
+      updated.clear(node.index);
+      iterations++;
 
-      updated.remove(node.id);
       mergeInVarMaps(node, dgraph);
 
-      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions.get(node.id));
+      SFormsFastMapDirect varmap = new SFormsFastMapDirect(inVarVersions[node.index]);
 
       SFormsFastMapDirect[] varmaparr = new SFormsFastMapDirect[]{varmap, null};
 
@@ -146,18 +351,18 @@ public class SSAUConstructorSparseEx {
         varmaparr[1].removeAllFields();
       }
 
-      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions.get(node.id))
-                             || (outNegVarVersions.containsKey(node.id) && !mapsEqual(varmaparr[1], outNegVarVersions.get(node.id)));
+      boolean this_updated = !mapsEqual(varmaparr[0], outVarVersions[node.index])
+                             || (outNegVarVersions[node.index] != null && !mapsEqual(varmaparr[1], outNegVarVersions[node.index]));
 
       if (this_updated) {
 
-        outVarVersions.put(node.id, varmaparr[0]);
-        if (dgraph.mapNegIfBranch.containsKey(node.id)) {
-          outNegVarVersions.put(node.id, varmaparr[1]);
+        outVarVersions[node.index] = varmaparr[0];
+        if (negIfBranch[node.index] >= 0) {
+          outNegVarVersions[node.index] = varmaparr[1];
         }
 
         for (DirectNode nd : node.succs) {
-          updated.add(nd.id);
+          updated.set(nd.index);
         }
       }
     }
@@ -255,11 +460,8 @@ public class SSAUConstructorSparseEx {
     // field access
     if (expr.type == Exprent.EXPRENT_FIELD) {
 
-      int index;
-      if (mapFieldVars.containsKey(expr.id)) {
-        index = mapFieldVars.get(expr.id);
-      }
-      else {
+      int index = mapFieldVars.get(expr.id, 0);
+      if (index == 0) { // field vars are negative
         index = fieldvarcounter--;
         mapFieldVars.put(expr.id, index);
 
@@ -298,7 +500,10 @@ public class SSAUConstructorSparseEx {
 
       Integer varindex = varassign.getIndex();
 
-      if (varassign.getVersion() == 0) {
+      if (!isTracked(varindex)) {
+        // keeps its version
+      }
+      else if (varassign.getVersion() == 0) {
         // get next version
         Integer nextver = getNextFreeVersion(varindex, stat);
 
@@ -326,7 +531,8 @@ public class SSAUConstructorSparseEx {
         case FunctionExprent.FUNCTION_IPP:
         case FunctionExprent.FUNCTION_PPI:
 
-          if (func.getLstOperands().get(0).type == Exprent.EXPRENT_VAR) {
+          if (func.getLstOperands().get(0).type == Exprent.EXPRENT_VAR &&
+              isTracked(((VarExprent)func.getLstOperands().get(0)).getIndex())) {
             VarExprent var = (VarExprent)func.getLstOperands().get(0);
             Integer varindex = var.getIndex();
             VarVersionPaar varpaar = new VarVersionPaar(varindex.intValue(), var.getVersion());
@@ -362,7 +568,7 @@ public class SSAUConstructorSparseEx {
           }
       }
     }
-    else if (expr.type == Exprent.EXPRENT_VAR) {
+    else if (expr.type == Exprent.EXPRENT_VAR && isTracked(((VarExprent)expr).getIndex())) {
 
       VarExprent vardest = (VarExprent)expr;
 
@@ -426,7 +632,7 @@ public class SSAUConstructorSparseEx {
   private void createOrUpdatePhiNode(VarVersionPaar phivar, FastSparseSet<Integer> vers, Statement stat) {
 
     FastSparseSet<Integer> versCopy = vers.getCopy();
-    HashSet<Integer> phiVers = new HashSet<Integer>();
+    IntSet phiVers = new IntSet();
 
     // take into account the corresponding mm/pp node if existing
     int ppvers = phantomppnodes.containsKey(phivar) ? phantomppnodes.get(phivar).version : -1;
@@ -484,7 +690,7 @@ public class SSAUConstructorSparseEx {
     ssuversions.addNodes(colnodes, colpaars);
 
     // update phi node
-    phi.put(phivar, phiVers);
+    phi.put(phivar.toLong(), phiVers);
   }
 
   private void varMapToGraph(VarVersionPaar varpaar, SFormsFastMapDirect varmap) {
@@ -496,23 +702,16 @@ public class SSAUConstructorSparseEx {
     node.live = new SFormsFastMapDirect(varmap);
   }
 
-  private Integer getNextFreeVersion(Integer var, Statement stat) {
-
-    Integer nextver = lastversion.get(var);
+  private Integer getNextFreeVersion(int var, Statement stat) {
 
-    if (nextver == null) {
-      nextver = new Integer(1);
-    }
-    else {
-      nextver = new Integer(nextver.intValue() + 1);
-    }
+    int nextver = lastversion.get(var, 0) + 1;
     lastversion.put(var, nextver);
 
     // save the first protected range, containing current statement
     if (stat != null) { // null iff phantom version
       Integer firstRangeId = getFirstProtectedRange(stat);
       if (firstRangeId != null) {
-        mapVersionFirstRange.put(new VarVersionPaar(var, nextver), firstRangeId);
+        mapVersionFirstRange.put(VarVersionPaar.toLong(var, nextver), firstRangeId);
       }
     }
 
@@ -525,7 +724,10 @@ public class SSAUConstructorSparseEx {
     SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
 
     for (DirectNode pred : node.preds) {
-      SFormsFastMapDirect mapOut = getFilteredOutMap(node.id, pred.id, dgraph, node.id);
+      SFormsFastMapDirect mapOut = getOutMap(node.index, pred.index);
+      if (isFinallyExit(pred, dgraph)) {
+        mapOut = getFilteredOutMap(mapOut, node.id, pred.id, dgraph, node.id);
+      }
       if (mapNew.isEmpty()) {
         mapNew = mapOut.getCopy();
       }
@@ -534,8 +736,8 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    if (extraVarVersions.containsKey(node.id)) {
-      SFormsFastMapDirect mapExtra = extraVarVersions.get(node.id);
+    SFormsFastMapDirect mapExtra = extraVarVersions[node.index];
+    if (mapExtra != null) {
       if (mapNew.isEmpty()) {
         mapNew = mapExtra.getCopy();
       }
@@ -544,139 +746,146 @@ public class SSAUConstructorSparseEx {
       }
     }
 
-    inVarVersions.put(node.id, mapNew);
+    inVarVersions[node.index] = mapNew;
   }
 
-  private SFormsFastMapDirect getFilteredOutMap(String nodeid, String predid, DirectGraph dgraph, String destid) {
+  private SFormsFastMapDirect getOutMap(int node, int pred) {
+    SFormsFastMapDirect map = getOutVarVersions(node, pred);
+    return map == null ? new SFormsFastMapDirect() : map.getCopy();
+  }
 
-    SFormsFastMapDirect mapNew = new SFormsFastMapDirect();
+  private SFormsFastMapDirect getOutVarVersions(int node, int pred) {
 
-    boolean isFinallyExit = dgraph.mapShortRangeFinallyPaths.containsKey(predid);
+    if (pred < 0) {
+      return null;
+    }
 
-    if (nodeid.equals(dgraph.mapNegIfBranch.get(predid))) {
-      if (outNegVarVersions.containsKey(predid)) {
-        mapNew = outNegVarVersions.get(predid).getCopy();
-      }
+    if (node >= 0 && node == negIfBranch[pred]) {
+      return outNegVarVersions[pred];
     }
-    else if (outVarVersions.containsKey(predid)) {
-      mapNew = outVarVersions.get(predid).getCopy();
+    else {
+      return outVarVersions[pred];
     }
+  }
 
-    if (isFinallyExit) {
+  private SFormsFastMapDirect getFilteredOutMap(SFormsFastMapDirect mapNew,
+                                                String nodeid,
+                                                String predid,
+                                                DirectGraph dgraph,
+                                                String destid) {
 
-      SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
+    SFormsFastMapDirect mapNewTemp = mapNew.getCopy();
 
-      SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
+    SFormsFastMapDirect mapTrueSource = new SFormsFastMapDirect();
 
-      String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
-      boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
+    String exceptionDest = dgraph.mapFinallyMonitorExceptionPathExits.get(predid);
+    boolean isExceptionMonitorExit = (exceptionDest != null && !nodeid.equals(exceptionDest));
 
-      HashSet<String> setLongPathWrapper = new HashSet<String>();
-      for (List<FinallyPathWrapper> lstwrapper : dgraph.mapLongRangeFinallyPaths.values()) {
-        for (FinallyPathWrapper finwraplong : lstwrapper) {
-          setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
-        }
+    HashSet<String> setLongPathWrapper = new HashSet<String>();
+    for (List<FinallyPathWrapper> lstwrapper : dgraph.mapLongRangeFinallyPaths.values()) {
+      for (FinallyPathWrapper finwraplong : lstwrapper) {
+        setLongPathWrapper.add(finwraplong.destination + "##" + finwraplong.source);
       }
+    }
 
-      for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
-        SFormsFastMapDirect map;
+    for (FinallyPathWrapper finwrap : dgraph.mapShortRangeFinallyPaths.get(predid)) {
+      SFormsFastMapDirect map;
 
-        boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
+      boolean recFinally = dgraph.mapShortRangeFinallyPaths.containsKey(finwrap.source);
 
-        if (recFinally) {
-          // recursion
-          map = getFilteredOutMap(finwrap.entry, finwrap.source, dgraph, destid);
-        }
-        else {
-          if (finwrap.entry.equals(dgraph.mapNegIfBranch.get(finwrap.source))) {
-            map = outNegVarVersions.get(finwrap.source);
-          }
-          else {
-            map = outVarVersions.get(finwrap.source);
-          }
-        }
+      int entry = getNodeIndex(dgraph, finwrap.entry);
+      int source = getNodeIndex(dgraph, finwrap.source);
 
-        // false path?
-        boolean isFalsePath = true;
+      if (recFinally) {
+        // recursion
+        map = getFilteredOutMap(getOutMap(entry, source), finwrap.entry, finwrap.source, dgraph, destid);
+      }
+      else {
+        map = getOutVarVersions(entry, source);
+      }
 
-        if (recFinally) {
-          isFalsePath = !finwrap.destination.equals(nodeid);
-        }
-        else {
-          isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
-        }
+      // false path?
+      boolean isFalsePath = true;
 
-        if (isFalsePath) {
-          mapNewTemp.complement(map);
+      if (recFinally) {
+        isFalsePath = !finwrap.destination.equals(nodeid);
+      }
+      else {
+        isFalsePath = !setLongPathWrapper.contains(destid + "##" + finwrap.source);
+      }
+
+      if (isFalsePath) {
+        mapNewTemp.complement(map);
+      }
+      else {
+        if (mapTrueSource.isEmpty()) {
+          if (map != null) {
+            mapTrueSource = map.getCopy();
+          }
         }
         else {
-          if (mapTrueSource.isEmpty()) {
-            if (map != null) {
-              mapTrueSource = map.getCopy();
-            }
-          }
-          else {
-            mergeMaps(mapTrueSource, map);
-          }
+          mergeMaps(mapTrueSource, map);
         }
       }
+    }
 
-      if (isExceptionMonitorExit) {
+    if (isExceptionMonitorExit) {
 
-        mapNew = mapTrueSource;
-      }
-      else {
+      mapNew = mapTrueSource;
+    }
+    else {
 
-        mapNewTemp.union(mapTrueSource);
-        mapNew.intersection(mapNewTemp);
+      mapNewTemp.union(mapTrueSource);
+      mapNew.intersection(mapNewTemp);
 
-        if (!mapTrueSource.isEmpty() && !mapNew.isEmpty()) { // FIXME: what for??
+      if (!mapTrueSource.isEmpty() && !mapNew.isEmpty()) { // FIXME: what for??
 
-          // replace phi versions with corresponding phantom ones
-          HashMap<VarVersionPaar, VarVersionPaar> mapPhantom = phantomexitnodes.get(predid);
-          if (mapPhantom == null) {
-            mapPhantom = new HashMap<VarVersionPaar, VarVersionPaar>();
-          }
+        // replace phi versions with corresponding phantom ones
+        int pred = getNodeIndex(dgraph, predid);
 
-          SFormsFastMapDirect mapExitVar = mapNew.getCopy();
-          mapExitVar.complement(mapTrueSource);
+        HashMap<VarVersionPaar, VarVersionPaar> mapPhantom = phantomexitnodes.get(pred);
+        if (mapPhantom == null) {
+          mapPhantom = new HashMap<VarVersionPaar, VarVersionPaar>();
+        }
 
-          for (Entry<Integer, FastSparseSet<Integer>> ent : mapExitVar.entryList()) {
-            for (Integer version : ent.getValue()) {
+        SFormsFastMapDirect mapExitVar = mapNew.getCopy();
+        mapExitVar.complement(mapTrueSource);
 
-              Integer varindex = ent.getKey();
-              VarVersionPaar exitvar = new VarVersionPaar(varindex, version);
-              FastSparseSet<Integer> newSet = mapNew.get(varindex);
+        for (Entry<Integer, FastSparseSet<Integer>> ent : mapExitVar.entryList()) {
+          for (Integer version : ent.getValue()) {
 
-              // remove the actual exit version
-              newSet.remove(version);
+            Integer varindex = ent.getKey();
+            VarVersionPaar exitvar = new VarVersionPaar(varindex, version);
+            FastSparseSet<Integer> newSet = mapNew.get(varindex);
 
-              // get or create phantom version
-              VarVersionPaar phantomvar = mapPhantom.get(exitvar);
-              if (phantomvar == null) {
-                Integer newversion = getNextFreeVersion(exitvar.var, null);
-                phantomvar = new VarVersionPaar(exitvar.var, newversion.intValue());
+            // remove the actual exit version
+            newSet.remove(version);
 
-                VarVersionNode exitnode = ssuversions.nodes.getWithKey(exitvar);
-                VarVersionNode phantomnode = ssuversions.createNode(phantomvar);
-                phantomnode.flags |= VarVersionNode.FLAG_PHANTOM_FINEXIT;
+            // get or create phantom version
+            VarVersionPaar phantomvar = mapPhantom.get(exitvar);
+            if (phantomvar == null) {
+              Integer newversion = getNextFreeVersion(exitvar.var, null);
+              phantomvar = new VarVersionPaar(exitvar.var, newversion.intValue());
 
-                VarVersionEdge edge = new VarVersionEdge(VarVersionEdge.EDGE_PHANTOM, exitnode, phantomnode);
-                exitnode.addSuccessor(edge);
-                phantomnode.addPredecessor(edge);
+              VarVersionNode exitnode = ssuversions.nodes.getWithKey(exitvar);
+              VarVersionNode phantomnode = ssuversions.createNode(phantomvar);
+              phantomnode.flags |= VarVersionNode.FLAG_PHANTOM_FINEXIT;
 
-                mapPhantom.put(exitvar, phantomvar);
-              }
+              VarVersionEdge edge = new VarVersionEdge(VarVersionEdge.EDGE_PHANTOM, exitnode, phantomnode);
+              exitnode.addSuccessor(edge);
+              phantomnode.addPredecessor(edge);
 
-              // add phantom version
-              newSet.add(phantomvar.version);
+              mapPhantom.put(exitvar, phantomvar);
             }
-          }
 
-          if (!mapPhantom.isEmpty()) {
-            phantomexitnodes.put(predid, mapPhantom);
+            // add phantom version
+            newSet.add(phantomvar.version);
           }
         }
+
+        if (!mapPhantom.isEmpty()) {
+          phantomexitnodes.put(pred, mapPhantom);
+        }
       }
     }
 
@@ -739,12 +948,16 @@ public class SSAUConstructorSparseEx {
 
         for (int i = 1; i < stat.getStats().size(); i++) {
           int varindex = lstVars.get(i - 1).getIndex();
+          if (!isTracked(varindex)) {
+            continue;
+          }
+
           int version = getNextFreeVersion(varindex, stat); // == 1
 
           map = new SFormsFastMapDirect();
           setCurrentVar(map, varindex, version);
 
-          extraVarVersions.put(dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).id, map);
+          extraVarVersions[dgraph.nodes.getWithKey(flatthelper.getMapDestinationNodes().get(stat.getStats().get(i).id)[0]).index] = map;
           //ssuversions.createOrGetNode(new VarVersionPaar(varindex, version));
           ssuversions.createNode(new VarVersionPaar(varindex, version));
         }
@@ -765,12 +978,14 @@ public class SSAUConstructorSparseEx {
     int varindex = 0;
     SFormsFastMapDirect map = new SFormsFastMapDirect();
     for (int i = 0; i < paramcount; i++) {
-      int version = getNextFreeVersion(varindex, root); // == 1
+      if (isTracked(varindex)) {
+        int version = getNextFreeVersion(varindex, root); // == 1
 
-      FastSparseSet<Integer> set = factory.spawnEmptySet();
-      set.add(version);
-      map.put(varindex, set);
-      ssuversions.createNode(new VarVersionPaar(varindex, version));
+        FastSparseSet<Integer> set = factory.spawnEmptySet();
+        set.add(version);
+        map.put(varindex, set);
+        ssuversions.createNode(new VarVersionPaar(varindex, version));
+      }
 
       if (thisvar) {
         if (i == 0) {
@@ -815,7 +1030,7 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPaar, HashSet<Integer>> getPhi() {
+  public LongObjectMap<IntSet> getPhi() {
     return phi;
   }
 
@@ -834,11 +1049,12 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPaar, Integer> getMapVersionFirstRange() {
+  // first protected range of versions, by VarVersionPaar.toLong()
+  public LongIntMap getMapVersionFirstRange() {
     return mapVersionFirstRange;
   }
 
-  public HashMap<Integer, Integer> getMapFieldVars() {
+  public IntIntMap getMapFieldVars() {
     return mapFieldVars;
   }
 }
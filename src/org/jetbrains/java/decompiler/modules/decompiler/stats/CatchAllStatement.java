@@ -123,6 +123,7 @@ public class CatchAllStatement extends Statement {
     buf.append(defs);
     if (!defs.isEmpty()) {
       buf.append(new_line_separator);
+      tracer.incrementCurrentSourceLine();
     }
 
     boolean labeled = isLabeled();
@@ -136,6 +137,7 @@ public class CatchAllStatement extends Statement {
         !labeled && !first.isLabeled() && (lstSuccs.isEmpty() || !lstSuccs.get(0).explicit)) {
       String content = ExprProcessor.jmpWrapper(first, indent, true, tracer);
       content = content.substring(0, content.length() - new_line_separator.length());
+      tracer.incrementCurrentSourceLine(-1); // finally continues the last line
 
       buf.append(content);
     }
@@ -215,6 +217,7 @@ public class CatchAllStatement extends Statement {
 
 
   public void setHandler(Statement handler) {
+    markStructureChanged();
     this.handler = handler;
   }
 
@@ -225,6 +228,7 @@ public class CatchAllStatement extends Statement {
 
 
   public void setFinally(boolean isFinally) {
+    markStructureChanged();
     this.isFinally = isFinally;
   }
 
@@ -235,6 +239,7 @@ public class CatchAllStatement extends Statement {
 
 
   public void setMonitor(VarExprent monitor) {
+    markStructureChanged();
     this.monitor = monitor;
   }
 
@@ -160,6 +160,7 @@ public class CatchStatement extends Statement {
     buf.append(content);
     if (!content.isEmpty()) {
       buf.append(new_line_separator);
+      tracer.incrementCurrentSourceLine();
     }
 
     if (isLabeled()) {
@@ -190,7 +191,6 @@ public class CatchStatement extends Statement {
       tracer.incrementCurrentSourceLine();
       buf.append(ExprProcessor.jmpWrapper(stats.get(i), indent + 1, true, tracer)).append(indstr)
         .append("}");
-      tracer.incrementCurrentSourceLine();
     }
     buf.append(new_line_separator);
 
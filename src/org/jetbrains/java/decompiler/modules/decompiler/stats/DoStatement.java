@@ -103,6 +103,7 @@ public class DoStatement extends Statement {
     buf.append(content);
     if (!content.isEmpty()) {
       buf.append(new_line_separator);
+      tracer.incrementCurrentSourceLine();
     }
 
     if (isLabeled()) {
@@ -173,6 +174,7 @@ public class DoStatement extends Statement {
   }
 
   public void replaceExprent(Exprent oldexpr, Exprent newexpr) {
+    markStructureChanged();
     if (initExprent.get(0) == oldexpr) {
       initExprent.set(0, newexpr);
     }
@@ -209,6 +211,7 @@ public class DoStatement extends Statement {
   }
 
   public void setConditionExprent(Exprent conditionExprent) {
+    markStructureChanged();
     this.conditionExprent.set(0, conditionExprent);
   }
 
@@ -217,6 +220,7 @@ public class DoStatement extends Statement {
   }
 
   public void setIncExprent(Exprent incExprent) {
+    markStructureChanged();
     this.incExprent.set(0, incExprent);
   }
 
@@ -225,6 +229,7 @@ public class DoStatement extends Statement {
   }
 
   public void setInitExprent(Exprent initExprent) {
+    markStructureChanged();
     this.initExprent.set(0, initExprent);
   }
 
@@ -233,6 +238,7 @@ public class DoStatement extends Statement {
   }
 
   public void setLooptype(int looptype) {
+    markStructureChanged();
     this.looptype = looptype;
   }
 }
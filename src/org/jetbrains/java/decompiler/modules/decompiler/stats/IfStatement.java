@@ -237,6 +237,7 @@ public class IfStatement extends Statement {
           Exprent e = exps.get(exps.size() - 1);
           if (!(e instanceof InvocationExprent || e instanceof FunctionExprent)) {
             buf.append(new_line_separator);
+            tracer.incrementCurrentSourceLine();
           }
         }
       }
@@ -323,6 +324,7 @@ public class IfStatement extends Statement {
       ifexpr.negateIf();
     }
 
+    markStructureChanged();
     headexprent.set(0, ifexpr);
   }
 
@@ -336,6 +338,7 @@ public class IfStatement extends Statement {
 
   public void replaceExprent(Exprent oldexpr, Exprent newexpr) {
     if (headexprent.get(0) == oldexpr) {
+      markStructureChanged();
       headexprent.set(0, newexpr);
     }
   }
@@ -407,6 +410,7 @@ public class IfStatement extends Statement {
   }
 
   public void setElsestat(Statement elsestat) {
+    markStructureChanged();
     this.elsestat = elsestat;
   }
 
@@ -415,6 +419,7 @@ public class IfStatement extends Statement {
   }
 
   public void setIfstat(Statement ifstat) {
+    markStructureChanged();
     this.ifstat = ifstat;
   }
 
@@ -443,10 +448,12 @@ public class IfStatement extends Statement {
   }
 
   public void setElseEdge(StatEdge elseedge) {
+    markStructureChanged();
     this.elseedge = elseedge;
   }
 
   public void setIfEdge(StatEdge ifedge) {
+    markStructureChanged();
     this.ifedge = ifedge;
   }
 
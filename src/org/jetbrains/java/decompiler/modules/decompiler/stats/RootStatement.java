@@ -17,12 +17,23 @@ package org.jetbrains.java.decompiler.modules.decompiler.stats;
 
 import org.jetbrains.java.decompiler.main.collectors.BytecodeMappingTracer;
 import org.jetbrains.java.decompiler.modules.decompiler.ExprProcessor;
+import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 
 
 public class RootStatement extends Statement {
 
   private Statement dummyExit;
 
+  // counter of structural modifications of the tree, see Statement.markStructureChanged()
+  private int structureVersion;
+
+  // last flattening of the tree and the structure version it was built at
+  private FlattenStatementsHelper flattening;
+  private int flatteningVersion;
+
+  // instructions duplicated by splitting nodes of irreducible statements, see IrreducibleCFGDeobfuscator
+  private int splitInstructions;
+
   public RootStatement(Statement head, Statement dummyExit) {
 
     type = Statement.TYPE_ROOT;
@@ -39,11 +50,34 @@ public class RootStatement extends Statement {
             first.toJava(indent, tracer);
   }
 
+  // flattened graph of the tree, shared by its consumers until the structure is modified
+  public FlattenStatementsHelper getFlattening() {
+    if (flattening == null || flatteningVersion != structureVersion) {
+      flattening = new FlattenStatementsHelper();
+      flattening.buildDirectGraph(this);
+      flatteningVersion = structureVersion;
+    }
+    return flattening;
+  }
+
+  void incStructureVersion() {
+    structureVersion++;
+  }
+
   public Statement getDummyExit() {
     return dummyExit;
   }
 
   public void setDummyExit(Statement dummyExit) {
+    markStructureChanged();
     this.dummyExit = dummyExit;
   }
+
+  public int getSplitInstructions() {
+    return splitInstructions;
+  }
+
+  public void addSplitInstructions(int count) {
+    splitInstructions += count;
+  }
 }
@@ -23,7 +23,7 @@ import org.jetbrains.java.decompiler.main.collectors.CounterContainer;
 import org.jetbrains.java.decompiler.modules.decompiler.StatEdge;
 import org.jetbrains.java.decompiler.modules.decompiler.StrongConnectivityHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
-import org.jetbrains.java.decompiler.util.VBStyleCollection;
+import org.jetbrains.java.decompiler.util.IntIndexedCollection;
 
 import java.util.*;
 
@@ -74,7 +74,7 @@ public class Statement {
   private Map<Integer, List<Statement>> mapPredStates = new HashMap<Integer, List<Statement>>();
 
   // statement as graph
-  protected VBStyleCollection<Statement, Integer> stats = new VBStyleCollection<Statement, Integer>();
+  protected IntIndexedCollection<Statement> stats = new StatementCollection(this);
 
   protected Statement parent;
 
@@ -115,7 +115,11 @@ public class Statement {
   // public methods
   // *****************************************************************************
 
-  public void clearTempInformation() {
+  public boolean clearTempInformation() {
+
+    markStructureChanged();
+
+    boolean res = post != null || continueSet != null || copied || isMonitorEnter || containsMonitorExit;
 
     post = null;
     continueSet = null;
@@ -126,30 +130,36 @@ public class Statement {
     isMonitorEnter = false;
     containsMonitorExit = false;
 
-    processMap(mapSuccEdges);
-    processMap(mapPredEdges);
-    processMap(mapSuccStates);
-    processMap(mapPredStates);
+    res |= processMap(mapSuccEdges);
+    res |= processMap(mapPredEdges);
+    res |= processMap(mapSuccStates);
+    res |= processMap(mapPredStates);
+
+    return res;
   }
 
-  private static <T> void processMap(Map<Integer, List<T>> map) {
-    map.remove(StatEdge.TYPE_EXCEPTION);
+  private static <T> boolean processMap(Map<Integer, List<T>> map) {
+    boolean res = map.remove(StatEdge.TYPE_EXCEPTION) != null;
 
     List<T> lst = map.get(STATEDGE_DIRECT_ALL);
     if (lst != null) {
-      map.put(STATEDGE_ALL, new ArrayList<T>(lst));
+      res |= !lst.equals(map.put(STATEDGE_ALL, new ArrayList<T>(lst)));
     }
     else {
-      map.remove(STATEDGE_ALL);
+      res |= map.remove(STATEDGE_ALL) != null;
     }
+
+    return res;
   }
 
   public void collapseNodesToStatement(Statement stat) {
 
+    markStructureChanged();
+
     Statement head = stat.getFirst();
     Statement post = stat.getPost();
 
-    VBStyleCollection<Statement, Integer> setNodes = stat.getStats();
+    IntIndexedCollection<Statement> setNodes = stat.getStats();
 
     // post edges
     if (post != null) {
@@ -252,6 +262,8 @@ public class Statement {
     Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
     Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
+    markStructureChanged();
+
     List<StatEdge> lst = mapEdges.get(edgetype);
     if (lst == null) {
       mapEdges.put(edgetype, lst = new ArrayList<StatEdge>());
@@ -287,6 +299,8 @@ public class Statement {
     Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
     Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
+    markStructureChanged();
+
     List<StatEdge> lst = mapEdges.get(edgetype);
     if (lst != null) {
       int index = lst.indexOf(edge);
@@ -515,6 +529,7 @@ public class Statement {
   }
 
   public void initSimpleCopy() {
+    markStructureChanged();
     if (!stats.isEmpty()) {
       first = stats.get(0);
     }
@@ -522,6 +537,8 @@ public class Statement {
 
   public void replaceStatement(Statement oldstat, Statement newstat) {
 
+    markStructureChanged();
+
     for (StatEdge edge : oldstat.getAllPredecessorEdges()) {
       oldstat.removePredecessor(edge);
       edge.getSource().changeEdgeNode(DIRECTION_FORWARD, edge, newstat);
@@ -639,6 +656,8 @@ public class Statement {
     Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
     Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
+    markStructureChanged();
+
     int type = edge.getType();
 
     int[] arrtypes;
@@ -762,6 +781,7 @@ public class Statement {
   }
 
   public void setFirst(Statement first) {
+    markStructureChanged();
     this.first = first;
   }
 
@@ -773,7 +793,7 @@ public class Statement {
     this.post = post;
   }
 
-  public VBStyleCollection<Statement, Integer> getStats() {
+  public IntIndexedCollection<Statement> getStats() {
     return stats;
   }
 
@@ -827,7 +847,10 @@ public class Statement {
   }
 
   public void setParent(Statement parent) {
+    // both the tree left and the tree entered change
+    markStructureChanged();
     this.parent = parent;
+    markStructureChanged();
   }
 
   public HashSet<StatEdge> getLabelEdges() {  // FIXME: why HashSet?
@@ -843,6 +866,7 @@ public class Statement {
   }
 
   public void setExprents(List<Exprent> exprents) {
+    markStructureChanged();
     this.exprents = exprents;
   }
 
@@ -854,8 +878,87 @@ public class Statement {
     this.copied = copied;
   }
 
+  // to be called on every modification of the statement that changes the flattened graph of its tree,
+  // see RootStatement.getFlattening()
+  public void markStructureChanged() {
+    Statement stat = this;
+    while (stat.parent != null) {
+      stat = stat.parent;
+    }
+    if (stat.type == TYPE_ROOT) {
+      ((RootStatement)stat).incStructureVersion();
+    }
+  }
+
   // helper methods
   public String toString() {
     return id.toString();
   }
+
+  // child statements, modifications are counted as structural changes
+  private static class StatementCollection extends IntIndexedCollection<Statement> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Statement owner;
+
+    public StatementCollection(Statement owner) {
+      this.owner = owner;
+    }
+
+    public boolean add(Statement element) {
+      owner.markStructureChanged();
+      return super.add(element);
+    }
+
+    public boolean addAll(Collection<? extends Statement> c) {
+      owner.markStructureChanged();
+      return super.addAll(c);
+    }
+
+    public void addAllWithKey(Collection<Statement> elements, Collection<Integer> keys) {
+      owner.markStructureChanged();
+      super.addAllWithKey(elements, keys);
+    }
+
+    public void addWithKey(Statement element, Integer key) {
+      owner.markStructureChanged();
+      super.addWithKey(element, key);
+    }
+
+    public Statement putWithKey(Statement element, Integer key) {
+      owner.markStructureChanged();
+      return super.putWithKey(element, key);
+    }
+
+    public void add(int index, Statement element) {
+      owner.markStructureChanged();
+      super.add(index, element);
+    }
+
+    public void addWithKeyAndIndex(int index, Statement element, Integer key) {
+      owner.markStructureChanged();
+      super.addWithKeyAndIndex(index, element, key);
+    }
+
+    public Statement remove(int index) {
+      owner.markStructureChanged();
+      return super.remove(index);
+    }
+
+    public Statement set(int index, Statement element) {
+      owner.markStructureChanged();
+      return super.set(index, element);
+    }
+
+    public void clear() {
+      owner.markStructureChanged();
+      super.clear();
+    }
+
+    public void swap(int index1, int index2) {
+      owner.markStructureChanged();
+      super.swap(index1, index2);
+    }
+  }
 }
@@ -118,6 +118,7 @@ public class SwitchStatement extends Statement {
     buf.append(content);
     if (!content.isEmpty()) {
       buf.append(new_line_separator);
+      tracer.incrementCurrentSourceLine();
     }
     content = first.toJava(indent, tracer);
     buf.append(content);
@@ -129,6 +130,7 @@ public class SwitchStatement extends Statement {
                 || e instanceof FunctionExprent
                 || (e instanceof AssignmentExprent && !(((AssignmentExprent) e).getLeft() instanceof VarExprent && ((VarExprent) ((AssignmentExprent) e).getLeft()).isDefinition())))) {
           buf.append(new_line_separator);
+          tracer.incrementCurrentSourceLine();
         }
       }
     }
@@ -179,7 +181,10 @@ public class SwitchStatement extends Statement {
         buf.append(c);
         buf.append(new_line_separator);
       }
-      if (i != caseStatements.size() - 1) buf.append(new_line_separator);
+      if (i != caseStatements.size() - 1) {
+        buf.append(new_line_separator);
+        tracer.incrementCurrentSourceLine();
+      }
     }
 
     buf.append(indstr).append("}").append(new_line_separator);
@@ -230,6 +235,7 @@ public class SwitchStatement extends Statement {
     SwitchExprent swexpr = (SwitchExprent)first.getExprents().remove(first.getExprents().size() - 1);
     swexpr.setCaseValues(caseValues);
 
+    markStructureChanged();
     headexprent.set(0, swexpr);
   }
 
@@ -243,6 +249,7 @@ public class SwitchStatement extends Statement {
 
   public void replaceExprent(Exprent oldexpr, Exprent newexpr) {
     if (headexprent.get(0) == oldexpr) {
+      markStructureChanged();
       headexprent.set(0, newexpr);
     }
   }
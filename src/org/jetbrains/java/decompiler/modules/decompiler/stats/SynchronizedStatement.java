@@ -80,6 +80,7 @@ public class SynchronizedStatement extends Statement {
     buf.append(content);
     if (!content.isEmpty()) {
       buf.append(new_line_separator);
+      tracer.incrementCurrentSourceLine();
     }
 
     content = first.toJava(indent, tracer);
@@ -92,6 +93,7 @@ public class SynchronizedStatement extends Statement {
                 || e instanceof FunctionExprent
                 || (e instanceof AssignmentExprent && !(((AssignmentExprent) e).getLeft() instanceof VarExprent && ((VarExprent) ((AssignmentExprent) e).getLeft()).isDefinition())))) {
           buf.append(new_line_separator);
+          tracer.incrementCurrentSourceLine();
         }
       }
     }
@@ -105,7 +107,6 @@ public class SynchronizedStatement extends Statement {
     tracer.incrementCurrentSourceLine();
 
     buf.append(ExprProcessor.jmpWrapper(body, indent + 1, true, tracer));
-    tracer.incrementCurrentSourceLine();
 
     buf.append(indstr).append("}").append(new_line_separator);
     tracer.incrementCurrentSourceLine();
@@ -114,6 +115,7 @@ public class SynchronizedStatement extends Statement {
   }
 
   public void initExprents() {
+    markStructureChanged();
     headexprent.set(0, first.getExprents().remove(first.getExprents().size() - 1));
   }
 
@@ -127,6 +129,7 @@ public class SynchronizedStatement extends Statement {
 
   public void replaceExprent(Exprent oldexpr, Exprent newexpr) {
     if (headexprent.get(0) == oldexpr) {
+      markStructureChanged();
       headexprent.set(0, newexpr);
     }
   }
@@ -165,6 +168,7 @@ public class SynchronizedStatement extends Statement {
   }
 
   public void setBody(Statement body) {
+    markStructureChanged();
     this.body = body;
   }
 
@@ -21,15 +21,16 @@ import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.Statement;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.util.IntIntMap;
+import org.jetbrains.java.decompiler.util.LongObjectMap;
 import org.jetbrains.java.decompiler.util.VarHelper; // Spigot
 
 import java.util.*;
-import java.util.Map.Entry;
 
 
 public class VarProcessor {
 
-  private HashMap<VarVersionPaar, String> mapVarNames = new HashMap<VarVersionPaar, String>();
+  private LongObjectMap<String> mapVarNames = new LongObjectMap<String>();
 
   private VarVersionsProcessor varvers;
 
@@ -46,7 +47,7 @@ public class VarProcessor {
   }
 
   public void setVarDefinitions(Statement root) {
-    mapVarNames = new HashMap<VarVersionPaar, String>();
+    mapVarNames = new LongObjectMap<String>();
 
     VarDefinitionHelper defproc = new VarDefinitionHelper(root,
                                                           (StructMethod)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD),
@@ -59,23 +60,22 @@ public class VarProcessor {
       return;
     }
 
-    HashMap<Integer, Integer> mapOriginalVarIndices = varvers.getMapOriginalVarIndices();
+    IntIntMap mapOriginalVarIndices = varvers.getMapOriginalVarIndices();
 
-    List<VarVersionPaar> listVars = new ArrayList<VarVersionPaar>(mapVarNames.keySet());
-    Collections.sort(listVars, new Comparator<VarVersionPaar>() {
-      public int compare(VarVersionPaar o1, VarVersionPaar o2) {
-        return o1.var > o2.var ? 1 : (o1.var == o2.var ? 0 : -1);
-      }
-    });
+    long[] listVars = mapVarNames.keys();
+    Arrays.sort(listVars);
 
     HashMap<String, Integer> mapNames = new HashMap<String, Integer>();
 
-    for (VarVersionPaar varpaar : listVars) {
+    for (long varpaar : listVars) {
       String name = mapVarNames.get(varpaar);
 
-      Integer orindex = mapOriginalVarIndices.get(varpaar.var);
-      if (orindex != null && mapDebugVarNames.containsKey(orindex)) {
-        name = mapDebugVarNames.get(orindex);
+      int var = VarVersionPaar.getVar(varpaar);
+      if (mapOriginalVarIndices.containsKey(var)) {
+        Integer orindex = mapOriginalVarIndices.get(var, 0);
+        if (mapDebugVarNames.containsKey(orindex)) {
+          name = mapDebugVarNames.get(orindex);
+        }
       }
 
       Integer counter = mapNames.get(name);
@@ -91,12 +91,29 @@ public class VarProcessor {
 
   public void refreshVarNames(VarNamesCollector vc) {
 
-    HashMap<VarVersionPaar, String> tempVarNames = new HashMap<VarVersionPaar, String>(mapVarNames);
-    for (Entry<VarVersionPaar, String> ent : tempVarNames.entrySet()) {
-      mapVarNames.put(ent.getKey(), vc.getFreeName(ent.getValue()));
+    long[] keys = mapVarNames.keys();
+    Arrays.sort(keys);
+    for (long key : keys) {
+      mapVarNames.put(key, vc.getFreeName(mapVarNames.get(key)));
+    }
+  }
+
+  public LongObjectMap<String> copyVarNames() {
+    LongObjectMap<String> names = new LongObjectMap<String>(mapVarNames.size());
+    for (long key : mapVarNames.keys()) {
+      names.put(key, mapVarNames.get(key));
     }
+    return names;
   }
 
+  // restores names taken by copyVarNames, the names chosen while writing are determined anew
+  public void resetVarNames(LongObjectMap<String> names) {
+    mapVarNames = new LongObjectMap<String>(names.size());
+    for (long key : names.keys()) {
+      mapVarNames.put(key, names.get(key));
+    }
+    helper = new VarHelper(); // Spigot
+  }
 
   public VarType getVarType(VarVersionPaar varpaar) {
     return varvers == null ? null : varvers.getVarType(varpaar);
@@ -108,20 +125,20 @@ public class VarProcessor {
 
   public String getVarName(VarVersionPaar varpaar) {
     // Spigot Start
-    String name = mapVarNames.get(varpaar);
+    String name = mapVarNames.get(varpaar.toLong());
     if (name != null) {
-      mapVarNames.put(varpaar, name = helper.help(name, varpaar.type, varpaar.varargs));
+      mapVarNames.put(varpaar.toLong(), name = helper.help(name, varpaar.type, varpaar.varargs));
     }
     return name;
     // Spigot End
   }
 
   public void setVarName(VarVersionPaar varpaar, String name) {
-    mapVarNames.put(varpaar, name);
+    mapVarNames.put(varpaar.toLong(), name);
   }
 
   public Collection<String> getVarNames() {
-    return mapVarNames != null ? mapVarNames.values() : Collections.EMPTY_SET;
+    return mapVarNames != null ? mapVarNames.values() : Collections.<String>emptyList();
   }
 
   public int getVarFinal(VarVersionPaar varpaar) {
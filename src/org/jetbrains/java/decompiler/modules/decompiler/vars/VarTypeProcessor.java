@@ -27,8 +27,9 @@ import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
+import org.jetbrains.java.decompiler.util.LongIntMap;
+import org.jetbrains.java.decompiler.util.LongObjectMap;
 
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -38,11 +39,12 @@ public class VarTypeProcessor {
   public static final int VAR_FINALEXPLICIT = 2;
   public static final int VAR_FINAL = 3;
 
-  private HashMap<VarVersionPaar, VarType> mapExprentMinTypes = new HashMap<VarVersionPaar, VarType>();
+  // keys are packed by VarVersionPaar.toLong(), constants are stored as (exprent id, -1)
+  private LongObjectMap<VarType> mapExprentMinTypes = new LongObjectMap<VarType>();
 
-  private HashMap<VarVersionPaar, VarType> mapExprentMaxTypes = new HashMap<VarVersionPaar, VarType>();
+  private LongObjectMap<VarType> mapExprentMaxTypes = new LongObjectMap<VarType>();
 
-  private HashMap<VarVersionPaar, Integer> mapFinalVars = new HashMap<VarVersionPaar, Integer>();
+  private LongIntMap mapFinalVars = new LongIntMap();
 
   private void setInitVars(RootStatement root) {
 
@@ -56,14 +58,14 @@ public class VarTypeProcessor {
     if (thisvar) {
       VarType cltype = new VarType(CodeConstants.TYPE_OBJECT, 0,
                                    ((StructClass)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS)).qualifiedName);
-      mapExprentMinTypes.put(new VarVersionPaar(0, 1), cltype);
-      mapExprentMaxTypes.put(new VarVersionPaar(0, 1), cltype);
+      mapExprentMinTypes.put(VarVersionPaar.toLong(0, 1), cltype);
+      mapExprentMaxTypes.put(VarVersionPaar.toLong(0, 1), cltype);
     }
 
     int varindex = 0;
     for (int i = 0; i < md.params.length; i++) {
-      mapExprentMinTypes.put(new VarVersionPaar(varindex + (thisvar ? 1 : 0), 1), md.params[i]);
-      mapExprentMaxTypes.put(new VarVersionPaar(varindex + (thisvar ? 1 : 0), 1), md.params[i]);
+      mapExprentMinTypes.put(VarVersionPaar.toLong(varindex + (thisvar ? 1 : 0), 1), md.params[i]);
+      mapExprentMaxTypes.put(VarVersionPaar.toLong(varindex + (thisvar ? 1 : 0), 1), md.params[i]);
       varindex += md.params[i].stack_size;
     }
 
@@ -84,8 +86,8 @@ public class VarTypeProcessor {
 
       if (lstVars != null) {
         for (VarExprent var : lstVars) {
-          mapExprentMinTypes.put(new VarVersionPaar(var.getIndex(), 1), var.getVartype());
-          mapExprentMaxTypes.put(new VarVersionPaar(var.getIndex(), 1), var.getVartype());
+          mapExprentMinTypes.put(VarVersionPaar.toLong(var.getIndex(), 1), var.getVartype());
+          mapExprentMaxTypes.put(VarVersionPaar.toLong(var.getIndex(), 1), var.getVartype());
         }
       }
 
@@ -146,7 +148,7 @@ public class VarTypeProcessor {
     if (exprent.type == Exprent.EXPRENT_CONST) {
       ConstExprent cexpr = (ConstExprent)exprent;
       if (cexpr.getConsttype().type_family <= CodeConstants.TYPE_FAMILY_INTEGER) { // boolean or integer
-        VarVersionPaar cpaar = new VarVersionPaar(cexpr.id, -1);
+        long cpaar = VarVersionPaar.toLong(cexpr.id, -1);
         if (!mapExprentMinTypes.containsKey(cpaar)) {
           mapExprentMinTypes.put(cpaar, cexpr.getConsttype());
         }
@@ -189,12 +191,13 @@ public class VarTypeProcessor {
           }
         }
       case Exprent.EXPRENT_VAR:
-        VarVersionPaar varpaar = null;
+        long varpaar;
         if (exprent.type == Exprent.EXPRENT_CONST) {
-          varpaar = new VarVersionPaar(((ConstExprent)exprent).id, -1);
+          varpaar = VarVersionPaar.toLong(((ConstExprent)exprent).id, -1);
         }
-        else if (exprent.type == Exprent.EXPRENT_VAR) {
-          varpaar = new VarVersionPaar((VarExprent)exprent);
+        else {
+          VarExprent var = (VarExprent)exprent;
+          varpaar = VarVersionPaar.toLong(var.getIndex(), var.getVersion());
         }
 
         if (minmax == 0) { // min
@@ -256,23 +259,23 @@ public class VarTypeProcessor {
     return res;
   }
 
-  public HashMap<VarVersionPaar, VarType> getMapExprentMaxTypes() {
+  public LongObjectMap<VarType> getMapExprentMaxTypes() {
     return mapExprentMaxTypes;
   }
 
-  public HashMap<VarVersionPaar, VarType> getMapExprentMinTypes() {
+  public LongObjectMap<VarType> getMapExprentMinTypes() {
     return mapExprentMinTypes;
   }
 
-  public HashMap<VarVersionPaar, Integer> getMapFinalVars() {
+  public LongIntMap getMapFinalVars() {
     return mapFinalVars;
   }
 
   public void setVarType(VarVersionPaar varpaar, VarType type) {
-    mapExprentMinTypes.put(varpaar, type);
+    mapExprentMinTypes.put(varpaar.toLong(), type);
   }
 
   public VarType getVarType(VarVersionPaar varpaar) {
-    return mapExprentMinTypes.get(varpaar);
+    return mapExprentMinTypes.get(varpaar.toLong());
   }
 }
@@ -60,6 +60,23 @@ public class VarVersionPaar implements Comparable<VarVersionPaar> { // Spigot
     return hashCode;
   }
 
+  // packed form used as key of the primitive maps
+  public long toLong() {
+    return toLong(var, version);
+  }
+
+  public static long toLong(int var, int version) {
+    return ((long)var << 32) | (version & 0xFFFFFFFFL);
+  }
+
+  public static int getVar(long key) {
+    return (int)(key >> 32);
+  }
+
+  public static int getVersion(long key) {
+    return (int)key;
+  }
+
   @Override
   public String toString() {
     return "(" + var + "," + version + ")";
@@ -22,20 +22,21 @@ import org.jetbrains.java.decompiler.modules.decompiler.exps.ConstExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.Exprent;
 import org.jetbrains.java.decompiler.modules.decompiler.exps.VarExprent;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.DirectGraph;
-import org.jetbrains.java.decompiler.modules.decompiler.sforms.FlattenStatementsHelper;
 import org.jetbrains.java.decompiler.modules.decompiler.sforms.SSAConstructorSparseEx;
 import org.jetbrains.java.decompiler.modules.decompiler.stats.RootStatement;
 import org.jetbrains.java.decompiler.struct.StructMethod;
 import org.jetbrains.java.decompiler.struct.gen.VarType;
 import org.jetbrains.java.decompiler.util.FastSparseSetFactory.FastSparseSet;
+import org.jetbrains.java.decompiler.util.IntIntMap;
+import org.jetbrains.java.decompiler.util.LongIntMap;
+import org.jetbrains.java.decompiler.util.LongObjectMap;
 
 import java.util.*;
 import java.util.Map.Entry;
-import org.jetbrains.java.decompiler.util.SortUtil;
 
 public class VarVersionsProcessor {
 
-  private HashMap<Integer, Integer> mapOriginalVarIndices = new HashMap<Integer, Integer>();
+  private IntIntMap mapOriginalVarIndices = new IntIntMap();
 
   private VarTypeProcessor typeproc;
 
@@ -46,8 +47,7 @@ public class VarVersionsProcessor {
     SSAConstructorSparseEx ssa = new SSAConstructorSparseEx();
     ssa.splitVariables(root, mt);
 
-    FlattenStatementsHelper flatthelper = new FlattenStatementsHelper();
-    DirectGraph dgraph = flatthelper.buildDirectGraph(root);
+    DirectGraph dgraph = root.getFlattening().getDirectGraph();
 
     //		System.out.println("~~~~~~~~~~~~~~~~~~~~~~ \r\n"+root.toJava());
 
@@ -92,7 +92,7 @@ public class VarVersionsProcessor {
       lst.add(set);
     }
 
-    final HashMap<VarVersionPaar, Integer> phivers = new HashMap<VarVersionPaar, Integer>();
+    final LongIntMap phivers = new LongIntMap();
     for (HashSet<VarVersionPaar> set : lst) {
       int min = Integer.MAX_VALUE;
       for (VarVersionPaar paar : set) {
@@ -102,7 +102,7 @@ public class VarVersionsProcessor {
       }
 
       for (VarVersionPaar paar : set) {
-        phivers.put(new VarVersionPaar(paar.var, paar.version), min);
+        phivers.put(paar.toLong(), min);
       }
     }
 
@@ -115,8 +115,8 @@ public class VarVersionsProcessor {
         for (Exprent expr : lst) {
           if (expr.type == Exprent.EXPRENT_VAR) {
             VarExprent var = (VarExprent)expr;
-            Integer vers = phivers.get(new VarVersionPaar(var));
-            if (vers != null) {
+            int vers = phivers.get(VarVersionPaar.toLong(var.getIndex(), var.getVersion()), -1);
+            if (vers >= 0) {
               var.setVersion(vers);
             }
           }
@@ -128,11 +128,10 @@ public class VarVersionsProcessor {
 
   private static void eliminateNonJavaTypes(VarTypeProcessor typeproc) {
 
-    HashMap<VarVersionPaar, VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
-    HashMap<VarVersionPaar, VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
+    LongObjectMap<VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
+    LongObjectMap<VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
 
-    HashSet<VarVersionPaar> set = new HashSet<VarVersionPaar>(mapExprentMinTypes.keySet());
-    for (VarVersionPaar paar : set) {
+    for (long paar : mapExprentMinTypes.keys()) {
       VarType type = mapExprentMinTypes.get(paar);
       VarType maxtype = mapExprentMaxTypes.get(paar);
 
@@ -155,25 +154,27 @@ public class VarVersionsProcessor {
 
   private static void simpleMerge(VarTypeProcessor typeproc, DirectGraph dgraph, StructMethod mt) {
 
-    HashMap<VarVersionPaar, VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
-    HashMap<VarVersionPaar, VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
+    LongObjectMap<VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
+    LongObjectMap<VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
 
     HashMap<Integer, HashSet<Integer>> mapVarVersions = new HashMap<Integer, HashSet<Integer>>();
 
-    for (VarVersionPaar varpaar : mapExprentMinTypes.keySet()) {
-      if (varpaar.version >= 0) {  // don't merge constants
-        HashSet<Integer> set = mapVarVersions.get(varpaar.var);
+    for (long varpaar : mapExprentMinTypes.keys()) {
+      int version = VarVersionPaar.getVersion(varpaar);
+      if (version >= 0) {  // don't merge constants
+        int var = VarVersionPaar.getVar(varpaar);
+        HashSet<Integer> set = mapVarVersions.get(var);
         if (set == null) {
           set = new HashSet<Integer>();
-          mapVarVersions.put(varpaar.var, set);
+          mapVarVersions.put(var, set);
         }
-        set.add(varpaar.version);
+        set.add(version);
       }
     }
 
     boolean is_method_static = mt.hasModifier(CodeConstants.ACC_STATIC);
 
-    final HashMap<VarVersionPaar, Integer> mapMergedVersions = new HashMap<VarVersionPaar, Integer>();
+    final LongIntMap mapMergedVersions = new LongIntMap();
 
     for (Entry<Integer, HashSet<Integer>> ent : mapVarVersions.entrySet()) {
 
@@ -182,15 +183,16 @@ public class VarVersionsProcessor {
         Collections.sort(lstVersions);
 
         for (int i = 0; i < lstVersions.size(); i++) {
-          VarVersionPaar firstpaar = new VarVersionPaar(ent.getKey(), lstVersions.get(i));
+          int firstversion = lstVersions.get(i);
+          long firstpaar = VarVersionPaar.toLong(ent.getKey(), firstversion);
           VarType firsttype = mapExprentMinTypes.get(firstpaar);
 
-          if (firstpaar.var == 0 && firstpaar.version == 1 && !is_method_static) {
+          if (ent.getKey() == 0 && firstversion == 1 && !is_method_static) {
             continue; // don't merge 'this' variable
           }
 
           for (int j = i + 1; j < lstVersions.size(); j++) {
-            VarVersionPaar secpaar = new VarVersionPaar(ent.getKey(), lstVersions.get(j));
+            long secpaar = VarVersionPaar.toLong(ent.getKey(), lstVersions.get(j));
             VarType sectype = mapExprentMinTypes.get(secpaar);
 
             if (firsttype.equals(sectype) || (firsttype.equals(VarType.VARTYPE_NULL) && sectype.type == CodeConstants.TYPE_OBJECT)
@@ -202,7 +204,7 @@ public class VarVersionsProcessor {
                                                 (secMaxType == null ? firstMaxType : VarType.getCommonMinType(firstMaxType, secMaxType)));
 
 
-              mapMergedVersions.put(secpaar, firstpaar.version);
+              mapMergedVersions.put(secpaar, firstversion);
               mapExprentMaxTypes.remove(secpaar);
               mapExprentMinTypes.remove(secpaar);
 
@@ -230,8 +232,8 @@ public class VarVersionsProcessor {
           for (Exprent expr : lst) {
             if (expr.type == Exprent.EXPRENT_VAR) {
               VarExprent varex = (VarExprent)expr;
-              Integer newversion = mapMergedVersions.get(new VarVersionPaar(varex));
-              if (newversion != null) {
+              int newversion = mapMergedVersions.get(VarVersionPaar.toLong(varex.getIndex(), varex.getVersion()), -1);
+              if (newversion >= 0) {
                 varex.setVersion(newversion);
               }
             }
@@ -245,35 +247,40 @@ public class VarVersionsProcessor {
 
   private void setNewVarIndices(VarTypeProcessor typeproc, DirectGraph dgraph) {
 
-    final HashMap<VarVersionPaar, VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
-    HashMap<VarVersionPaar, VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
-    HashMap<VarVersionPaar, Integer> mapFinalVars = typeproc.getMapFinalVars();
+    final LongObjectMap<VarType> mapExprentMaxTypes = typeproc.getMapExprentMaxTypes();
+    LongObjectMap<VarType> mapExprentMinTypes = typeproc.getMapExprentMinTypes();
+    LongIntMap mapFinalVars = typeproc.getMapFinalVars();
 
     CounterContainer ccon = DecompilerContext.getCounterContainer();
 
-    final HashMap<VarVersionPaar, Integer> mapVarPaar = new HashMap<VarVersionPaar, Integer>();
-    HashMap<Integer, Integer> mapOriginalVarIndices = new HashMap<Integer, Integer>();
+    final LongIntMap mapVarPaar = new LongIntMap();
+    IntIntMap mapOriginalVarIndices = new IntIntMap();
 
     // map var-version paars on new var indexes
     // Spigot Start
-    for (Iterator<VarVersionPaar> iter = SortUtil.sortComparable(mapExprentMinTypes.keySet().iterator()); iter.hasNext();) {
-      VarVersionPaar vpaar = iter.next();
+    long[] keys = mapExprentMinTypes.keys();
+    Arrays.sort(keys); // var, then version (non-negative versions keep their order)
+    for (long vpaar : keys) {
+      int var = VarVersionPaar.getVar(vpaar);
+      int version = VarVersionPaar.getVersion(vpaar);
       // Spigot End
-      if (vpaar.version >= 0) {
-        int newindex = vpaar.version == 1 ? vpaar.var :
+      if (version >= 0) {
+        int newindex = version == 1 ? var :
                        ccon.getCounterAndIncrement(CounterContainer.VAR_COUNTER);
 
-        VarVersionPaar newvar = new VarVersionPaar(newindex, 0);
+        long newvar = VarVersionPaar.toLong(newindex, 0);
 
         mapExprentMinTypes.put(newvar, mapExprentMinTypes.get(vpaar));
         mapExprentMaxTypes.put(newvar, mapExprentMaxTypes.get(vpaar));
 
         if (mapFinalVars.containsKey(vpaar)) {
-          mapFinalVars.put(newvar, mapFinalVars.remove(vpaar));
+          int fin = mapFinalVars.get(vpaar, VarTypeProcessor.VAR_FINAL);
+          mapFinalVars.remove(vpaar);
+          mapFinalVars.put(newvar, fin);
         }
 
         mapVarPaar.put(vpaar, newindex);
-        mapOriginalVarIndices.put(newindex, vpaar.var);
+        mapOriginalVarIndices.put(newindex, var);
       }
     }
 
@@ -286,14 +293,14 @@ public class VarVersionsProcessor {
         for (Exprent expr : lst) {
           if (expr.type == Exprent.EXPRENT_VAR) {
             VarExprent varex = (VarExprent)expr;
-            Integer newvarindex = mapVarPaar.get(new VarVersionPaar(varex));
-            if (newvarindex != null) {
-              varex.setIndex(newvarindex);
+            long varpaar = VarVersionPaar.toLong(varex.getIndex(), varex.getVersion());
+            if (mapVarPaar.containsKey(varpaar)) {
+              varex.setIndex(mapVarPaar.get(varpaar, 0));
               varex.setVersion(0);
             }
           }
           else if (expr.type == Exprent.EXPRENT_CONST) {
-            VarType maxType = mapExprentMaxTypes.get(new VarVersionPaar(expr.id, -1));
+            VarType maxType = mapExprentMaxTypes.get(VarVersionPaar.toLong(expr.id, -1));
             if (maxType != null && maxType.equals(VarType.VARTYPE_CHAR)) {
               ((ConstExprent)expr).setConsttype(maxType);
             }
@@ -317,20 +324,14 @@ public class VarVersionsProcessor {
 
   public int getVarFinal(VarVersionPaar varpaar) {
 
-    int ret = VarTypeProcessor.VAR_FINAL;
-    if (typeproc != null) {
-      Integer fin = typeproc.getMapFinalVars().get(varpaar);
-      ret = fin == null ? VarTypeProcessor.VAR_FINAL : fin.intValue();
-    }
-
-    return ret;
+    return typeproc == null ? VarTypeProcessor.VAR_FINAL : typeproc.getMapFinalVars().get(varpaar.toLong(), VarTypeProcessor.VAR_FINAL);
   }
 
   public void setVarFinal(VarVersionPaar varpaar, int finaltype) {
-    typeproc.getMapFinalVars().put(varpaar, finaltype);
+    typeproc.getMapFinalVars().put(varpaar.toLong(), finaltype);
   }
 
-  public HashMap<Integer, Integer> getMapOriginalVarIndices() {
+  public IntIntMap getMapOriginalVarIndices() {
     return mapOriginalVarIndices;
   }
 }
@@ -19,6 +19,7 @@ import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
+import org.jetbrains.java.decompiler.struct.ClassHierarchy;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.StructContext;
 import org.jetbrains.java.decompiler.struct.StructField;
@@ -45,6 +46,8 @@ public class IdentifierConverter {
 
   private HashMap<String, HashMap<String, String>> interfaceNameMaps = new HashMap<String, HashMap<String, String>>();
 
+  private HashMap<String, HashMap<String, String>> externalInterfaceNameMaps = new HashMap<String, HashMap<String, String>>();
+
   public void rename(StructContext context) {
 
     try {
@@ -75,7 +78,7 @@ public class IdentifierConverter {
       renameClasses();
 
       DecompilerContext.setPoolInterceptor(interceptor);
-      context.reloadContext();
+      context.renameClasses(interceptor);
     }
     catch (IOException ex) {
       throw new RuntimeException("Renaming failed!");
@@ -102,18 +105,7 @@ public class IdentifierConverter {
       }
 
       // merge informations on interfaces
-      for (String intrName : cl.getInterfaceNames()) {
-        HashMap<String, String> mapInt = interfaceNameMaps.get(intrName);
-        if (mapInt != null) {
-          names.putAll(mapInt);
-        }
-        else {
-          StructClass clintr = context.getClass(intrName);
-          if (clintr != null) {
-            names.putAll(processExternalInterface(clintr));
-          }
-        }
-      }
+      mergeInterfaceNames(cl, names);
 
       renameClassIdentifiers(cl, names);
 
@@ -123,25 +115,33 @@ public class IdentifierConverter {
     }
   }
 
-  private HashMap<String, String> processExternalInterface(StructClass cl) {
-
-    HashMap<String, String> names = new HashMap<String, String>();
+  private void mergeInterfaceNames(StructClass cl, HashMap<String, String> names) {
 
-    for (String intrName : cl.getInterfaceNames()) {
+    ClassHierarchy hierarchy = context.getClassHierarchy();
 
-      HashMap<String, String> mapInt = interfaceNameMaps.get(intrName);
-      if (mapInt != null) {
-        names.putAll(mapInt);
-      }
-      else {
-        StructClass clintr = context.getClass(intrName);
-        if (clintr != null) {
-          names.putAll(processExternalInterface(clintr));
-        }
+    for (int intrId : hierarchy.getInterfaces(hierarchy.getId(cl.qualifiedName))) {
+      StructClass clintr = hierarchy.getClass(intrId);
+      if (clintr != null) {
+        HashMap<String, String> mapInt = interfaceNameMaps.get(clintr.qualifiedName);
+        names.putAll(mapInt != null ? mapInt : processExternalInterface(clintr));
       }
     }
+  }
+
+  // external interfaces are shared by many classes, their names are collected once
+  private HashMap<String, String> processExternalInterface(StructClass cl) {
+
+    HashMap<String, String> names = externalInterfaceNameMaps.get(cl.qualifiedName);
+
+    if (names == null) {
+      names = new HashMap<String, String>();
 
-    renameClassIdentifiers(cl, names);
+      mergeInterfaceNames(cl, names);
+
+      renameClassIdentifiers(cl, names);
+
+      externalInterfaceNameMaps.put(cl.qualifiedName, names);
+    }
 
     return names;
   }
@@ -389,6 +389,7 @@ public class IdentifierConverter {
 
     Map<String, ClassWrapperNode> nodes = new HashMap<String, ClassWrapperNode>();
     Map<String, StructClass> classes = context.getClasses();
+    ClassHierarchy hierarchy = context.getClassHierarchy();
 
     List<ClassWrapperNode> rootClasses = new ArrayList<ClassWrapperNode>();
     List<ClassWrapperNode> rootInterfaces = new ArrayList<ClassWrapperNode>();
@@ -399,15 +400,16 @@ public class IdentifierConverter {
         continue;
       }
 
-      LinkedList<StructClass> stack = new LinkedList<StructClass>();
+      LinkedList<Integer> stack = new LinkedList<Integer>();
       LinkedList<ClassWrapperNode> stackSubnodes = new LinkedList<ClassWrapperNode>();
 
-      stack.add(cl);
+      stack.add(hierarchy.getId(cl.qualifiedName));
       stackSubnodes.add(null);
 
       while (!stack.isEmpty()) {
 
-        StructClass clstr = stack.removeFirst();
+        int id = stack.removeFirst();
+        StructClass clstr = hierarchy.getClass(id);
         ClassWrapperNode child = stackSubnodes.removeFirst();
 
         ClassWrapperNode node = nodes.get(clstr.qualifiedName);
@@ -428,25 +430,12 @@ public class IdentifierConverter {
           boolean isInterface = clstr.hasModifier(CodeConstants.ACC_INTERFACE);
           boolean found_parent = false;
 
-          if (isInterface) {
-            for (String intrName : clstr.getInterfaceNames()) {
-              StructClass clparent = classes.get(intrName);
-              if (clparent != null) {
-                stack.add(clparent);
-                stackSubnodes.add(node);
-                found_parent = true;
-              }
-            }
-          }
-          else {
-            if (clstr.superClass != null) { // null iff java/lang/Object
-              StructClass clparent = classes.get(clstr.superClass.getString());
-
-              if (clparent != null) {
-                stack.add(clparent);
-                stackSubnodes.add(node);
-                found_parent = true;
-              }
+          int[] parents = isInterface ? hierarchy.getInterfaces(id) : new int[]{hierarchy.getSuperClass(id)};
+          for (int parentId : parents) {
+            if (parentId >= 0 && hierarchy.getClass(parentId) != null) { // no super class iff java/lang/Object
+              stack.add(parentId);
+              stackSubnodes.add(node);
+              found_parent = true;
             }
           }
 
@@ -15,7 +15,11 @@
  */
 package org.jetbrains.java.decompiler.modules.renamer;
 
+import org.jetbrains.java.decompiler.code.CodeConstants;
 import org.jetbrains.java.decompiler.main.extern.IIdentifierRenamer;
+import org.jetbrains.java.decompiler.struct.gen.FieldDescriptor;
+import org.jetbrains.java.decompiler.struct.gen.MethodDescriptor;
+import org.jetbrains.java.decompiler.struct.gen.VarType;
 
 import java.util.HashMap;
 
@@ -47,4 +51,80 @@ public class PoolInterceptor {
   public IIdentifierRenamer getHelper() {
     return helper;
   }
+
+  // new name of a class constant (a class name or an array descriptor), null if not renamed
+  public String getNewClassName(String className) {
+    VarType vt = new VarType(className, true);
+
+    String newName = getName(vt.value);
+    if (newName != null) {
+      StringBuilder buffer = new StringBuilder();
+
+      if (vt.arraydim > 0) {
+        for (int i = 0; i < vt.arraydim; i++) {
+          buffer.append("[");
+        }
+
+        buffer.append("L").append(newName).append(";");
+      }
+      else {
+        buffer.append(newName);
+      }
+
+      return buffer.toString();
+    }
+
+    return null;
+  }
+
+  // descriptor with renamed classes, null if not changed
+  public String getNewDescriptor(boolean isField, String descriptor) {
+    boolean updated = false;
+
+    if (isField) {
+      FieldDescriptor fd = FieldDescriptor.parseDescriptor(descriptor);
+
+      VarType fType = fd.type;
+      if (fType.type == CodeConstants.TYPE_OBJECT) {
+        String newClassName = getNewClassName(fType.value);
+        if (newClassName != null) {
+          fType.value = newClassName;
+          updated = true;
+        }
+      }
+
+      if (updated) {
+        return fd.getDescriptor();
+      }
+    }
+    else {
+      MethodDescriptor md = MethodDescriptor.parseDescriptor(descriptor);
+
+      // parameters
+      for (VarType paramType : md.params) {
+        if (paramType.type == CodeConstants.TYPE_OBJECT) {
+          String newClassName = getNewClassName(paramType.value);
+          if (newClassName != null) {
+            paramType.value = newClassName;
+            updated = true;
+          }
+        }
+      }
+
+      // return value
+      if (md.ret.type == CodeConstants.TYPE_OBJECT) {
+        String newClassName = getNewClassName(md.ret.value);
+        if (newClassName != null) {
+          md.ret.value = newClassName;
+          updated = true;
+        }
+      }
+
+      if (updated) {
+        return md.getDescriptor();
+      }
+    }
+
+    return null;
+  }
 }
@@ -0,0 +1,374 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.xref;
+
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.code.Instruction;
+import org.jetbrains.java.decompiler.code.InstructionSequence;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.StructMethod;
+import org.jetbrains.java.decompiler.struct.attr.StructBootstrapMethodsAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
+import org.jetbrains.java.decompiler.struct.attr.StructLineNumberTableAttribute;
+import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
+import org.jetbrains.java.decompiler.struct.consts.LinkConstant;
+import org.jetbrains.java.decompiler.struct.consts.PooledConstant;
+import org.jetbrains.java.decompiler.struct.consts.PrimitiveConstant;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.jetbrains.java.decompiler.util.ObjectIntMap;
+
+import java.io.*;
+import java.util.*;
+
+/*
+ * Cross-reference index built directly from bytecode: for every field access, invocation, class reference
+ * (new, checkcast, instanceof, array creation, class literal) and invokedynamic bootstrap the referencing member,
+ * the referenced member, the opcode, the bytecode offset and the source line are recorded.
+ * Classes are members with empty name and descriptor.
+ *
+ * File layout, all numbers big-endian:
+ *   int magic, int version
+ *   int string count, strings (modified UTF-8) in ascending order
+ *   int member count, members (int owner, int name, int descriptor as string indices) in ascending order
+ *   int reference count, references (int target, int source, u1 opcode, int offset, int line or 0)
+ *   ordered by target, source and offset
+ */
+public class XrefIndex {
+
+  private static final int MAGIC = 0x46465852; // "FFXR"
+  private static final int VERSION = 2;
+
+  // target, source, opcode, offset, line
+  private static final int REFERENCE_SIZE = 5;
+  // target, source, offset, opcode
+  private static final int[] REFERENCE_ORDER = {0, 1, 3, 2};
+
+  private final List<String[]> members = new ArrayList<String[]>();
+  private final ObjectIntMap<String> memberIndex = new ObjectIntMap<String>();
+
+  private int[] references = new int[REFERENCE_SIZE * 64];
+  private int referenceCount;
+  private boolean sorted = true;
+
+  public static class Reference {
+    public final String owner;
+    public final String name;
+    public final String descriptor;
+    public final int opcode;
+    public final int offset;
+    public final int line;
+
+    private Reference(String[] source, int opcode, int offset, int line) {
+      this.owner = source[0];
+      this.name = source[1];
+      this.descriptor = source[2];
+      this.opcode = opcode;
+      this.offset = offset;
+      this.line = line;
+    }
+
+    @Override
+    public String toString() {
+      return owner + " " + name + descriptor + " @" + offset + (line > 0 ? " line " + line : "");
+    }
+  }
+
+  public void addClass(StructClass cl) throws IOException {
+    ConstantPool pool = cl.getPool();
+    StructBootstrapMethodsAttribute bootstrap =
+      (StructBootstrapMethodsAttribute)cl.getAttributes().getWithKey(StructGeneralAttribute.ATTRIBUTE_BOOTSTRAP_METHODS);
+
+    for (StructMethod mt : cl.getMethods()) {
+      if (!mt.containsCode()) {
+        continue;
+      }
+
+      mt.expandData();
+
+      InstructionSequence seq = mt.getInstructionSequence();
+      StructLineNumberTableAttribute lines =
+        (StructLineNumberTableAttribute)mt.getAttributes().getWithKey(StructGeneralAttribute.ATTRIBUTE_LINE_NUMBER_TABLE);
+      int source = getMember(cl.qualifiedName, mt.getName(), mt.getDescriptor());
+
+      for (int i = 0; i < seq.length(); i++) {
+        Instruction instr = seq.getInstr(i);
+        int offset = seq.getOffset(i);
+        int line = lines == null ? 0 : Math.max(lines.findLineNumber(offset), 0);
+
+        switch (instr.opcode) {
+          case CodeConstants.opc_getstatic:
+          case CodeConstants.opc_putstatic:
+          case CodeConstants.opc_getfield:
+          case CodeConstants.opc_putfield:
+          case CodeConstants.opc_invokevirtual:
+          case CodeConstants.opc_invokespecial:
+          case CodeConstants.opc_invokestatic:
+          case CodeConstants.opc_invokeinterface:
+            addReference(pool.getLinkConstant(instr.getOperand(0)), source, instr.opcode, offset, line);
+            break;
+          case CodeConstants.opc_new:
+          case CodeConstants.opc_anewarray:
+          case CodeConstants.opc_multianewarray:
+          case CodeConstants.opc_checkcast:
+          case CodeConstants.opc_instanceof:
+            addClassReference(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), source, instr.opcode, offset, line);
+            break;
+          case CodeConstants.opc_ldc:
+          case CodeConstants.opc_ldc_w: {
+            PooledConstant constant = pool.getConstant(instr.getOperand(0));
+            if (constant.type == CodeConstants.CONSTANT_Class) {
+              addClassReference(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), source, instr.opcode, offset, line);
+            }
+            else if (constant.type == CodeConstants.CONSTANT_MethodHandle) {
+              addReference((LinkConstant)constant, source, instr.opcode, offset, line);
+            }
+            break;
+          }
+          case CodeConstants.opc_invokedynamic:
+            if (bootstrap != null) {
+              // bootstrap method and method handle arguments, e.g. the implementation of a lambda
+              int index = pool.getLinkConstant(instr.getOperand(0)).index1;
+              addReference(bootstrap.getMethodReference(index), source, instr.opcode, offset, line);
+              for (PooledConstant argument : bootstrap.getMethodArguments(index)) {
+                if (argument.type == CodeConstants.CONSTANT_MethodHandle) {
+                  addReference((LinkConstant)argument, source, instr.opcode, offset, line);
+                }
+              }
+            }
+        }
+      }
+
+      mt.releaseResources();
+    }
+  }
+
+  private void addReference(LinkConstant link, int source, int opcode, int offset, int line) {
+    addReference(getMember(link.classname, link.elementname, link.descriptor), source, opcode, offset, line);
+  }
+
+  private void addClassReference(String className, int source, int opcode, int offset, int line) {
+    // arrays refer to their element class
+    int dims = 0;
+    while (dims < className.length() && className.charAt(dims) == '[') {
+      dims++;
+    }
+    if (dims > 0) {
+      if (className.charAt(dims) != 'L') {
+        return; // array of primitives
+      }
+      className = className.substring(dims + 1, className.length() - 1);
+    }
+
+    addReference(getMember(className, "", ""), source, opcode, offset, line);
+  }
+
+  private void addReference(int target, int source, int opcode, int offset, int line) {
+    int pos = referenceCount * REFERENCE_SIZE;
+    if (pos == references.length) {
+      references = Arrays.copyOf(references, pos * 2);
+    }
+
+    references[pos] = target;
+    references[pos + 1] = source;
+    references[pos + 2] = opcode;
+    references[pos + 3] = offset;
+    references[pos + 4] = line;
+    referenceCount++;
+    sorted = false;
+  }
+
+  private int getMember(String owner, String name, String descriptor) {
+    String key = owner + " " + InterpreterUtil.makeUniqueKey(name, descriptor);
+    int index = memberIndex.get(key, -1);
+    if (index < 0) {
+      index = members.size();
+      members.add(new String[]{owner, name, descriptor});
+      memberIndex.put(key, index);
+      sorted = false;
+    }
+    return index;
+  }
+
+  public int getReferenceCount() {
+    return referenceCount;
+  }
+
+  // references to the given member, or to the given class if name and descriptor are empty
+  public List<Reference> getReferences(String owner, String name, String descriptor) {
+    List<Reference> result = new ArrayList<Reference>();
+
+    // sorting renumbers the members
+    sort();
+
+    int target = memberIndex.get(owner + " " + InterpreterUtil.makeUniqueKey(name, descriptor), -1);
+    if (target >= 0) {
+      // first reference of the target
+      int low = 0, high = referenceCount;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (references[mid * REFERENCE_SIZE] < target) {
+          low = mid + 1;
+        }
+        else {
+          high = mid;
+        }
+      }
+
+      for (int pos = low * REFERENCE_SIZE; pos < referenceCount * REFERENCE_SIZE && references[pos] == target; pos += REFERENCE_SIZE) {
+        result.add(new Reference(members.get(references[pos + 1]), references[pos + 2], references[pos + 3], references[pos + 4]));
+      }
+    }
+
+    return result;
+  }
+
+  public void write(OutputStream stream) throws IOException {
+    sort();
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+
+    SortedSet<String> stringSet = new TreeSet<String>();
+    for (String[] member : members) {
+      Collections.addAll(stringSet, member);
+    }
+    ObjectIntMap<String> stringIndex = new ObjectIntMap<String>(stringSet.size());
+
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+
+    out.writeInt(stringSet.size());
+    for (String s : stringSet) {
+      stringIndex.put(s, stringIndex.size());
+      out.writeUTF(s);
+    }
+
+    out.writeInt(members.size());
+    for (String[] member : members) {
+      for (String s : member) {
+        out.writeInt(stringIndex.get(s, -1));
+      }
+    }
+
+    out.writeInt(referenceCount);
+    for (int pos = 0; pos < referenceCount * REFERENCE_SIZE; pos += REFERENCE_SIZE) {
+      out.writeInt(references[pos]);
+      out.writeInt(references[pos + 1]);
+      out.writeByte(references[pos + 2]);
+      out.writeInt(references[pos + 3]);
+      out.writeInt(references[pos + 4]);
+    }
+
+    out.flush();
+  }
+
+  public static XrefIndex read(InputStream stream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a cross-reference index");
+    }
+
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+
+    XrefIndex index = new XrefIndex();
+
+    int memberCount = in.readInt();
+    for (int i = 0; i < memberCount; i++) {
+      index.getMember(strings[in.readInt()], strings[in.readInt()], strings[in.readInt()]);
+    }
+
+    int referenceCount = in.readInt();
+    index.references = new int[Math.max(referenceCount, 1) * REFERENCE_SIZE];
+    for (int i = 0; i < referenceCount; i++) {
+      index.addReference(in.readInt(), in.readInt(), in.readUnsignedByte(), in.readInt(), in.readInt());
+    }
+    index.sorted = true;
+
+    return index;
+  }
+
+  // brings members into ascending order and references into the order of the file layout
+  private void sort() {
+    if (sorted) {
+      return;
+    }
+
+    Integer[] order = new Integer[members.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        String[] member1 = members.get(o1), member2 = members.get(o2);
+        for (int i = 0; i < 3; i++) {
+          int cmp = member1[i].compareTo(member2[i]);
+          if (cmp != 0) {
+            return cmp;
+          }
+        }
+        return 0;
+      }
+    });
+
+    int[] newIndex = new int[order.length];
+    List<String[]> sortedMembers = new ArrayList<String[]>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      newIndex[order[i]] = i;
+      sortedMembers.add(members.get(order[i]));
+    }
+
+    members.clear();
+    members.addAll(sortedMembers);
+    for (int i = 0; i < members.size(); i++) {
+      String[] member = members.get(i);
+      memberIndex.put(member[0] + " " + InterpreterUtil.makeUniqueKey(member[1], member[2]), i);
+    }
+
+    final int[] refs = references;
+    for (int pos = 0; pos < referenceCount * REFERENCE_SIZE; pos += REFERENCE_SIZE) {
+      refs[pos] = newIndex[refs[pos]];
+      refs[pos + 1] = newIndex[refs[pos + 1]];
+    }
+
+    Integer[] refOrder = new Integer[referenceCount];
+    for (int i = 0; i < referenceCount; i++) {
+      refOrder[i] = i * REFERENCE_SIZE;
+    }
+    Arrays.sort(refOrder, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        for (int field : REFERENCE_ORDER) {
+          int v1 = refs[o1 + field], v2 = refs[o2 + field];
+          if (v1 != v2) {
+            return v1 < v2 ? -1 : 1;
+          }
+        }
+        return 0;
+      }
+    });
+
+    int[] ordered = new int[refs.length];
+    for (int i = 0; i < referenceCount; i++) {
+      System.arraycopy(refs, refOrder[i], ordered, i * REFERENCE_SIZE, REFERENCE_SIZE);
+    }
+    references = ordered;
+    sorted = true;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/*
+ * Include and exclude filters selecting the classes to be decompiled. A filter is a comma separated list of
+ * patterns "<class>[#<method>[<descriptor>]]" where the class is a qualified name with '.' or '/' as separator,
+ * '*' matching within a package and '**' matching across packages, e.g. "com.foo.*", "com.foo.**", "com.foo.Bar#run".
+ * Method names are matched with the same wildcards, e.g. "com.foo.Bar#test*".
+ * Classes are selected by their top level class, nested classes follow it. Method patterns restrict the methods
+ * of the named class whose bodies are decompiled, constructors and static initializers are always decompiled.
+ */
+public class ClassFilter {
+
+  private final List<Entry> includes;
+  private final List<Entry> excludes;
+
+  private static class Entry {
+    public final Pattern cls;
+    public final Pattern topLevel;
+    public final Pattern method;
+    public final String descriptor;
+
+    public Entry(String spec) {
+      String className = spec;
+      String methodName = null, methodDescriptor = null;
+
+      int pos = spec.indexOf('#');
+      if (pos >= 0) {
+        className = spec.substring(0, pos);
+        methodName = spec.substring(pos + 1);
+        int desc = methodName.indexOf('(');
+        if (desc >= 0) {
+          methodDescriptor = methodName.substring(desc);
+          methodName = methodName.substring(0, desc);
+        }
+      }
+
+      className = className.replace('.', '/');
+      int dollar = className.indexOf('$');
+
+      cls = toPattern(className);
+      topLevel = dollar < 0 ? cls : toPattern(className.substring(0, dollar));
+      method = methodName == null ? null : toPattern(methodName);
+      descriptor = methodDescriptor;
+    }
+
+    public boolean acceptsMethod(String name, String desc) {
+      return method.matcher(name).matches() && (descriptor == null || descriptor.equals(desc));
+    }
+  }
+
+  private ClassFilter(List<Entry> includes, List<Entry> excludes) {
+    this.includes = includes;
+    this.excludes = excludes;
+  }
+
+  // null if neither filter is given
+  public static ClassFilter create(Object include, Object exclude) {
+    List<Entry> includes = parse(include);
+    List<Entry> excludes = parse(exclude);
+    return includes.isEmpty() && excludes.isEmpty() ? null : new ClassFilter(includes, excludes);
+  }
+
+  private static List<Entry> parse(Object value) {
+    List<Entry> entries = new ArrayList<Entry>();
+    if (value != null) {
+      for (String spec : value.toString().split(",")) {
+        spec = spec.trim();
+        if (!spec.isEmpty()) {
+          entries.add(new Entry(spec));
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static Pattern toPattern(String glob) {
+    StringBuilder regex = new StringBuilder();
+    for (int i = 0; i < glob.length(); i++) {
+      char c = glob.charAt(i);
+      if (c == '*') {
+        if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+          regex.append(".*");
+          i++;
+        }
+        else {
+          regex.append("[^/]*");
+        }
+      }
+      else {
+        regex.append(Pattern.quote(String.valueOf(c)));
+      }
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  public boolean acceptsClass(String qualifiedName) {
+    int dollar = qualifiedName.indexOf('$');
+    String topLevel = dollar < 0 ? qualifiedName : qualifiedName.substring(0, dollar);
+
+    boolean included = includes.isEmpty();
+    for (Entry entry : includes) {
+      if (entry.topLevel.matcher(topLevel).matches()) {
+        included = true;
+        break;
+      }
+    }
+
+    if (included) {
+      for (Entry entry : excludes) {
+        if (entry.method == null && entry.topLevel.matcher(topLevel).matches()) {
+          return false;
+        }
+      }
+    }
+
+    return included;
+  }
+
+  public boolean acceptsMethod(String className, String name, String descriptor) {
+    if ("<init>".equals(name) || "<clinit>".equals(name)) {
+      return true;
+    }
+
+    boolean restricted = false, selected = false;
+    for (Entry entry : includes) {
+      if (entry.cls.matcher(className).matches()) {
+        if (entry.method == null) {
+          selected = true;
+        }
+        else {
+          restricted = true;
+          selected |= entry.acceptsMethod(name, descriptor);
+        }
+      }
+    }
+
+    if (restricted && !selected) {
+      return false;
+    }
+
+    for (Entry entry : excludes) {
+      if (entry.method != null && entry.cls.matcher(className).matches() && entry.acceptsMethod(name, descriptor)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
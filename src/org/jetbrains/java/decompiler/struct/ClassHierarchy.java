@@ -0,0 +1,139 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.util.ObjectIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Supertype index of the classes of a context. Every class name met gets a dense id on first request, classes
+ * not contained in the context keep their id but have no supertypes. Superclass and interfaces are held as id
+ * arrays and the transitive supertypes of a class are computed once as a bit set over the ids.
+ */
+public class ClassHierarchy {
+
+  private static final int[] NO_IDS = new int[0];
+
+  private final StructContext context;
+  private final ObjectIntMap<String> ids = new ObjectIntMap<String>();
+  private final List<StructClass> classes = new ArrayList<StructClass>();
+
+  // superclass id or -1, interface ids and the memoized supertypes including the class itself
+  private int[] superClasses = new int[64];
+  private int[][] interfaces = new int[64][];
+  private BitSet[] supertypes = new BitSet[64];
+
+  public ClassHierarchy(StructContext context) {
+    this.context = context;
+  }
+
+  public int getId(String name) {
+    int id = ids.get(name, -1);
+    return id < 0 ? register(name) : id;
+  }
+
+  private int register(String name) {
+    int id = classes.size();
+    StructClass cl = context.getClass(name);
+
+    // the id is taken before the supertypes are registered, so broken cyclic hierarchies end here
+    ids.put(name, id);
+    classes.add(cl);
+    if (id == superClasses.length) {
+      int size = id * 2;
+      superClasses = Arrays.copyOf(superClasses, size);
+      interfaces = Arrays.copyOf(interfaces, size);
+      supertypes = Arrays.copyOf(supertypes, size);
+    }
+    superClasses[id] = -1;
+    interfaces[id] = NO_IDS;
+
+    if (cl != null) {
+      int superClass = cl.superClass == null ? -1 : getId(cl.superClass.getString());
+
+      String[] names = cl.getInterfaceNames();
+      int[] interfaceIds = names.length == 0 ? NO_IDS : new int[names.length];
+      for (int i = 0; i < names.length; i++) {
+        interfaceIds[i] = getId(names[i]);
+      }
+
+      // the arrays may have been replaced while registering the supertypes
+      superClasses[id] = superClass;
+      interfaces[id] = interfaceIds;
+    }
+
+    return id;
+  }
+
+  // null if the class is not contained in the context
+  public StructClass getClass(int id) {
+    return classes.get(id);
+  }
+
+  public int getSuperClass(int id) {
+    return superClasses[id];
+  }
+
+  public int[] getInterfaces(int id) {
+    return interfaces[id];
+  }
+
+  private BitSet getSupertypes(int id) {
+    BitSet set = supertypes[id];
+    if (set == null) {
+      supertypes[id] = set = new BitSet();
+      set.set(id);
+
+      if (superClasses[id] >= 0) {
+        set.or(getSupertypes(superClasses[id]));
+      }
+      for (int interfaceId : interfaces[id]) {
+        set.or(getSupertypes(interfaceId));
+      }
+    }
+    return set;
+  }
+
+  public boolean isSubtype(String name, String superName) {
+    if (name.equals(superName)) {
+      return true;
+    }
+
+    int id = getId(name);
+    // all supertypes are registered with the class
+    int superId = ids.get(superName, -1);
+    return superId >= 0 && getSupertypes(id).get(superId);
+  }
+
+  // the class and all its superclasses and interfaces contained in the context, ordered by id
+  public List<StructClass> getAllSupertypes(String name) {
+    List<StructClass> result = new ArrayList<StructClass>();
+
+    BitSet set = getSupertypes(getId(name));
+    for (int id = set.nextSetBit(0); id >= 0; id = set.nextSetBit(id + 1)) {
+      StructClass cl = classes.get(id);
+      if (cl != null) {
+        result.add(cl);
+      }
+    }
+
+    return result;
+  }
+}
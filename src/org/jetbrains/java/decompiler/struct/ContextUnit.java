@@ -16,11 +16,7 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
-import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
-import org.jetbrains.java.decompiler.struct.lazy.LazyLoader.Link;
-import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.jar.JarFile;
@@ -69,46 +65,42 @@ public class ContextUnit {
     otherEntries.add(new String[]{fullPath, entry});
   }
 
-  public void reload(LazyLoader loader) throws IOException {
-    List<StructClass> lstClasses = new ArrayList<StructClass>();
-
-    for (StructClass cl : classes) {
-      String oldName = cl.qualifiedName;
-
-      StructClass newCl;
-      DataInputFullStream in = loader.getClassStream(oldName);
-      try {
-        newCl = new StructClass(in, cl.isOwn(), loader);
-      }
-      finally {
-        in.close();
+  // with a filter only the selected classes are written, other entries are left out
+  public void save(ClassFilter filter) {
+    List<StructClass> selected = classes;
+    List<String> selectedEntries = classEntries;
+
+    if (filter != null) {
+      selected = new ArrayList<StructClass>();
+      selectedEntries = new ArrayList<String>();
+      for (int i = 0; i < classes.size(); i++) {
+        if (filter.acceptsClass(classes.get(i).qualifiedName)) {
+          selected.add(classes.get(i));
+          selectedEntries.add(classEntries.get(i));
+        }
       }
 
-      lstClasses.add(newCl);
-
-      Link lnk = loader.getClassLink(oldName);
-      loader.removeClassLink(oldName);
-      loader.addClassLink(newCl.qualifiedName, lnk);
+      if (selected.isEmpty()) {
+        return;
+      }
     }
 
-    classes = lstClasses;
-  }
-
-  public void save() {
     switch (type) {
       case TYPE_FOLDER:
         // create folder
         resultSaver.saveFolder(filename);
 
         // non-class files
-        for (String[] pair : otherEntries) {
-          resultSaver.copyFile(pair[0], filename, pair[1]);
+        if (filter == null) {
+          for (String[] pair : otherEntries) {
+            resultSaver.copyFile(pair[0], filename, pair[1]);
+          }
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          StructClass cl = classes.get(i);
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
+        for (int i = 0; i < selected.size(); i++) {
+          StructClass cl = selected.get(i);
+          String entryName = decompiledData.getClassEntryName(cl, selectedEntries.get(i));
           if (entryName != null) {
             String content = decompiledData.getClassContent(cl);
             if (content != null) {
@@ -125,22 +117,24 @@ public class ContextUnit {
         resultSaver.saveFolder(archivePath);
         resultSaver.createArchive(archivePath, filename, manifest);
 
-        // directory entries
-        for (String dirEntry : dirEntries) {
-          resultSaver.saveDirEntry(archivePath, filename, dirEntry);
-        }
+        if (filter == null) {
+          // directory entries
+          for (String dirEntry : dirEntries) {
+            resultSaver.saveDirEntry(archivePath, filename, dirEntry);
+          }
 
-        // non-class entries
-        for (String[] pair : otherEntries) {
-          if (type != TYPE_JAR || !JarFile.MANIFEST_NAME.equalsIgnoreCase(pair[1])) {
-            resultSaver.copyEntry(pair[0], archivePath, filename, pair[1]);
+          // non-class entries
+          for (String[] pair : otherEntries) {
+            if (type != TYPE_JAR || !JarFile.MANIFEST_NAME.equalsIgnoreCase(pair[1])) {
+              resultSaver.copyEntry(pair[0], archivePath, filename, pair[1]);
+            }
           }
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          StructClass cl = classes.get(i);
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
+        for (int i = 0; i < selected.size(); i++) {
+          StructClass cl = selected.get(i);
+          String entryName = decompiledData.getClassEntryName(cl, selectedEntries.get(i));
           if (entryName != null) {
             String content = decompiledData.getClassContent(cl);
             resultSaver.saveClassEntry(archivePath, filename, cl.qualifiedName, entryName, content);
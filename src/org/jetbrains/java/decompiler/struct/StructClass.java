@@ -16,6 +16,8 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
+import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.struct.consts.PrimitiveConstant;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
@@ -49,20 +51,23 @@ import java.util.Map;
 */
 public class StructClass extends StructMember {
 
-  public final String qualifiedName;
-  public final PrimitiveConstant superClass;
+  public String qualifiedName;
+  public PrimitiveConstant superClass;
 
   private final boolean own;
   private final LazyLoader loader;
   private final int minorVersion;
   private final int majorVersion;
+  private final int thisClassIdx;
+  private final int superClassIdx;
   private final int[] interfaces;
   private final String[] interfaceNames;
-  private final VBStyleCollection<StructField, String> fields;
-  private final VBStyleCollection<StructMethod, String> methods;
+  private VBStyleCollection<StructField, String> fields;
+  private VBStyleCollection<StructMethod, String> methods;
   public final Map<String, Map<Integer, String>> enumSwitchMap = new HashMap<String, Map<Integer, String>>();
 
   private ConstantPool pool;
+  private Map<String, byte[]> methodCode;
 
   public StructClass(byte[] bytes, boolean own, LazyLoader loader) throws IOException {
     this(new DataInputFullStream(bytes), own, loader);
@@ -80,8 +85,8 @@ public class StructClass extends StructMember {
     pool = new ConstantPool(in);
 
     accessFlags = in.readUnsignedShort();
-    int thisClassIdx = in.readUnsignedShort();
-    int superClassIdx = in.readUnsignedShort();
+    thisClassIdx = in.readUnsignedShort();
+    superClassIdx = in.readUnsignedShort();
     qualifiedName = pool.getPrimitiveConstant(thisClassIdx).getString();
     superClass = pool.getPrimitiveConstant(superClassIdx);
 
@@ -116,6 +121,45 @@ public class StructClass extends StructMember {
     releaseResources();
   }
 
+  // resolves the names of the already parsed class again, with the renamings of the interceptor applied by the pool
+  public void rename(PoolInterceptor interceptor) throws IOException {
+    ConstantPool pool = getPool();
+    String oldName = qualifiedName;
+
+    qualifiedName = pool.getPrimitiveConstant(thisClassIdx).getString();
+    superClass = pool.getPrimitiveConstant(superClassIdx);
+    for (int i = 0; i < interfaces.length; i++) {
+      interfaceNames[i] = pool.getPrimitiveConstant(interfaces[i]).getString();
+    }
+
+    VBStyleCollection<StructField, String> renamedFields = new VBStyleCollection<StructField, String>();
+    for (StructField field : fields) {
+      field.rename(interceptor, oldName);
+      renamedFields.addWithKey(field, InterpreterUtil.makeUniqueKey(field.getName(), field.getDescriptor()));
+    }
+    fields = renamedFields;
+
+    VBStyleCollection<StructMethod, String> renamedMethods = new VBStyleCollection<StructMethod, String>();
+    for (StructMethod method : methods) {
+      method.rename(interceptor, oldName);
+      renamedMethods.addWithKey(method, InterpreterUtil.makeUniqueKey(method.getName(), method.getDescriptor()));
+    }
+    methods = renamedMethods;
+
+    // attributes holding resolved class and member references
+    String[] names = {StructGeneralAttribute.ATTRIBUTE_INNER_CLASSES, StructGeneralAttribute.ATTRIBUTE_ENCLOSING_METHOD,
+      StructGeneralAttribute.ATTRIBUTE_BOOTSTRAP_METHODS};
+    for (String name : names) {
+      StructGeneralAttribute attribute = attributes.getWithKey(name);
+      if (attribute != null) {
+        attribute.initContent(pool);
+      }
+    }
+
+    // method code is keyed by the old names
+    releaseResources();
+  }
+
   public boolean hasField(String name, String descriptor) {
     return getField(name, descriptor) != null;
   }
@@ -140,6 +184,21 @@ public class StructClass extends StructMember {
     if (loader != null) {
       pool = null;
     }
+
+    if (methodCode != null) {
+      methodCode = null;
+      for (StructMethod mt : methods) {
+        mt.releaseResources();
+      }
+    }
+  }
+
+  // code of all methods is read in a single pass and kept until the class is released
+  public byte[] getMethodCode(StructMethod mt) {
+    if (methodCode == null && loader != null) {
+      methodCode = loader.loadBytecode(this);
+    }
+    return methodCode == null ? null : methodCode.get(InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
   }
 
   public ConstantPool getPool() {
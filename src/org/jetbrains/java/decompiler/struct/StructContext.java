@@ -16,7 +16,11 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
+import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
@@ -25,7 +29,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -33,45 +41,161 @@ import java.util.zip.ZipFile;
 public class StructContext {
 
   private final IResultSaver saver;
-  private final IDecompiledData decompiledData;
+  private final SharedDecompiledData decompiledData;
   private final LazyLoader loader;
   private final Map<String, ContextUnit> units = new HashMap<String, ContextUnit>();
   private final Map<String, StructClass> classes = new HashMap<String, StructClass>();
+  // own classes not selected by the filter, parsed as library classes on first request
+  private final Map<String, LazyLoader.Link> filteredClasses = new HashMap<String, LazyLoader.Link>();
+  private ClassFilter filter;
+
+  // content hashes of own classes, classes contained in several sources with the same content and number of copies,
+  // classes contained with different contents
+  private final Map<String, String> classDigests = new HashMap<String, String>();
+  private final Map<String, Integer> duplicateClasses = new HashMap<String, Integer>();
+  private final Set<String> conflictingClasses = new HashSet<String>();
+
+  // built on first use, dropped when classes are added or renamed
+  private ClassHierarchy hierarchy;
 
   public StructContext(IResultSaver saver, IDecompiledData decompiledData, LazyLoader loader) {
     this.saver = saver;
-    this.decompiledData = decompiledData;
+    this.decompiledData = new SharedDecompiledData(decompiledData);
     this.loader = loader;
 
-    ContextUnit defaultUnit = new ContextUnit(ContextUnit.TYPE_FOLDER, null, "", true, saver, decompiledData);
+    ContextUnit defaultUnit = new ContextUnit(ContextUnit.TYPE_FOLDER, null, "", true, saver, this.decompiledData);
     units.put("", defaultUnit);
   }
 
   public StructClass getClass(String name) {
-    return classes.get(name);
+    StructClass cl = classes.get(name);
+    if (cl == null && filteredClasses.containsKey(name)) {
+      cl = loadFilteredClass(name);
+    }
+    return cl;
+  }
+
+  public ClassHierarchy getClassHierarchy() {
+    if (hierarchy == null) {
+      hierarchy = new ClassHierarchy(this);
+    }
+    return hierarchy;
+  }
+
+  public boolean isFilteredOut(String name) {
+    return filteredClasses.containsKey(name);
+  }
+
+  private StructClass loadFilteredClass(String name) {
+    LazyLoader.Link link = filteredClasses.get(name);
+    try {
+      DataInputFullStream in = loader.getClassStream(name);
+      try {
+        StructClass cl = new StructClass(in, false, loader);
+        classes.put(cl.qualifiedName, cl);
+        loader.addClassLink(cl.qualifiedName, link);
+        return cl;
+      }
+      finally {
+        in.close();
+      }
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Corrupted class file: " + name, ex);
+      return null;
+    }
+  }
+
+  public ClassFilter getClassFilter() {
+    return filter;
+  }
+
+  public void setClassFilter(ClassFilter filter) {
+    this.filter = filter;
   }
 
-  public void reloadContext() throws IOException {
+  // classes not selected are only registered, unless renaming needs to see all of them
+  private boolean isSkipped(DataInputFullStream in, LazyLoader.Link link) throws IOException {
+    if (filter == null || DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES)) {
+      return false;
+    }
+
+    in.mark(Integer.MAX_VALUE);
+    in.discard(8);
+    String name = ConstantPool.readThisClassName(in);
+    in.reset();
+
+    if (filter.acceptsClass(name)) {
+      return false;
+    }
+
+    filteredClasses.put(name, link);
+    loader.addClassLink(name, link);
+    return true;
+  }
+
+  // applies the renamings to the parsed classes in place, the class files are not read again
+  public void renameClasses(PoolInterceptor interceptor) throws IOException {
+    hierarchy = null;
+
+    Set<StructClass> all = new LinkedHashSet<StructClass>();
     for (ContextUnit unit : units.values()) {
-      for (StructClass cl : unit.getClasses()) {
-        classes.remove(cl.qualifiedName);
+      all.addAll(unit.getClasses());
+    }
+    all.addAll(classes.values());
+
+    Map<String, String> renamed = new LinkedHashMap<String, String>();
+    for (StructClass cl : all) {
+      String oldName = cl.qualifiedName;
+      cl.rename(interceptor);
+      if (!oldName.equals(cl.qualifiedName)) {
+        renamed.put(oldName, cl.qualifiedName);
       }
+    }
 
-      unit.reload(loader);
+    Map<String, StructClass> current = new HashMap<String, StructClass>(classes);
+    Map<String, LazyLoader.Link> links = new HashMap<String, LazyLoader.Link>();
+    for (String oldName : renamed.keySet()) {
+      classes.remove(oldName);
+      links.put(oldName, loader.getClassLink(oldName));
+      loader.removeClassLink(oldName);
+    }
 
-      // adjust global class collection
-      for (StructClass cl : unit.getClasses()) {
-        classes.put(cl.qualifiedName, cl);
+    for (Map.Entry<String, String> entry : renamed.entrySet()) {
+      String oldName = entry.getKey();
+      String newName = entry.getValue();
+      classes.put(newName, current.get(oldName));
+      loader.addClassLink(newName, links.get(oldName));
+      renameClassData(oldName, newName);
+    }
+  }
+
+  private void renameClassData(String oldName, String newName) {
+    if (!oldName.equals(newName)) {
+      if (classDigests.containsKey(oldName)) {
+        classDigests.put(newName, classDigests.remove(oldName));
+      }
+      if (duplicateClasses.containsKey(oldName)) {
+        duplicateClasses.put(newName, duplicateClasses.remove(oldName));
+      }
+      if (conflictingClasses.remove(oldName)) {
+        conflictingClasses.add(newName);
       }
     }
   }
 
   public void saveContext() {
-    for (ContextUnit unit : units.values()) {
-      if (unit.isOwn()) {
-        unit.save();
+    try {
+      for (ContextUnit unit : units.values()) {
+        if (unit.isOwn()) {
+          unit.save(filter);
+        }
       }
     }
+    finally {
+      // copies not written by now are not written at all
+      decompiledData.clear();
+    }
   }
 
   public void addSpace(File file, boolean isOwn) {
@@ -119,13 +243,17 @@ public class StructContext {
       }
 
       if (filename.endsWith(".class")) {
+        LazyLoader.Link link = new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null);
         try {
           DataInputFullStream in = loader.getClassStream(file.getAbsolutePath(), null);
           try {
+            if (isOwn && isSkipped(in, link)) {
+              return;
+            }
+
+            String digest = isOwn ? getDigest(in) : null;
             StructClass cl = new StructClass(in, isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, filename);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null));
+            addClass(unit, cl, filename, link, digest);
           }
           finally {
             in.close();
@@ -163,11 +291,15 @@ public class StructContext {
         String name = entry.getName();
         if (!entry.isDirectory()) {
           if (name.endsWith(".class")) {
-            byte[] bytes = InterpreterUtil.getBytes(archive, entry);
-            StructClass cl = new StructClass(bytes, isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, name);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name));
+            LazyLoader.Link link = new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name);
+            DataInputFullStream in = new DataInputFullStream(InterpreterUtil.getBytes(archive, entry));
+            if (isOwn && isSkipped(in, link)) {
+              continue;
+            }
+
+            String digest = isOwn ? getDigest(in) : null;
+            StructClass cl = new StructClass(in, isOwn, loader);
+            addClass(unit, cl, name, link, digest);
           }
           else {
             unit.addOtherEntry(file.getAbsolutePath(), name);
@@ -183,7 +315,103 @@ public class StructContext {
     }
   }
 
+  private void addClass(ContextUnit unit, StructClass cl, String entryName, LazyLoader.Link link, String digest) {
+    hierarchy = null;
+    classes.put(cl.qualifiedName, cl);
+    unit.addClass(cl, entryName);
+    loader.addClassLink(cl.qualifiedName, link);
+
+    if (digest != null) {
+      String name = cl.qualifiedName;
+      String firstDigest = classDigests.get(name);
+
+      if (firstDigest == null) {
+        classDigests.put(name, digest);
+      }
+      else if (firstDigest.equals(digest) && !conflictingClasses.contains(name)) {
+        Integer copies = duplicateClasses.get(name);
+        duplicateClasses.put(name, copies == null ? 2 : copies + 1);
+      }
+      else if (conflictingClasses.add(name)) {
+        duplicateClasses.remove(name);
+        String message = "Class " + name + " is contained several times with different content, only one version is decompiled";
+        DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.WARN);
+      }
+    }
+  }
+
+  private static String getDigest(DataInputFullStream in) throws IOException {
+    in.mark(Integer.MAX_VALUE);
+    byte[] bytes = new byte[in.available()];
+    in.readFully(bytes);
+    in.reset();
+    return InterpreterUtil.getDigest(bytes);
+  }
+
+  // a root class contained several times with the same content is written to every copy, as are its inner classes
+  private boolean isDuplicateGroup(String name) {
+    if (!duplicateClasses.containsKey(name)) {
+      return false;
+    }
+
+    for (String conflicting : conflictingClasses) {
+      if (conflicting.startsWith(name + "$")) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
   public Map<String, StructClass> getClasses() {
     return classes;
   }
+
+  // decompiles duplicate root classes once and keeps their content until it is written to all copies or the save
+  // pass ends
+  private class SharedDecompiledData implements IDecompiledData {
+
+    private final IDecompiledData data;
+    private final Map<String, String> contents = new HashMap<String, String>();
+    private final Map<String, Integer> pendingCopies = new HashMap<String, Integer>();
+
+    private SharedDecompiledData(IDecompiledData data) {
+      this.data = data;
+    }
+
+    @Override
+    public String getClassEntryName(StructClass cl, String entryName) {
+      return data.getClassEntryName(cl, entryName);
+    }
+
+    @Override
+    public String getClassContent(StructClass cl) {
+      String name = cl.qualifiedName;
+      if (!isDuplicateGroup(name)) {
+        return data.getClassContent(cl);
+      }
+
+      Integer copies = pendingCopies.get(name);
+      if (copies == null) {
+        contents.put(name, data.getClassContent(cl));
+        copies = duplicateClasses.get(name);
+      }
+
+      String content = contents.get(name);
+      if (--copies > 0) {
+        pendingCopies.put(name, copies);
+      }
+      else {
+        pendingCopies.remove(name);
+        contents.remove(name);
+      }
+
+      return content;
+    }
+
+    private void clear() {
+      contents.clear();
+      pendingCopies.clear();
+    }
+  }
 }
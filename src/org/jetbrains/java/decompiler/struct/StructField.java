@@ -15,6 +15,7 @@
  */
 package org.jetbrains.java.decompiler.struct;
 
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
 
@@ -31,8 +32,8 @@ import java.io.IOException;
 */
 public class StructField extends StructMember {
 
-  private final String name;
-  private final String descriptor;
+  private String name;
+  private String descriptor;
 
 
   public StructField(DataInputFullStream in, StructClass clStruct) throws IOException {
@@ -48,6 +49,18 @@ public class StructField extends StructMember {
     attributes = readAttributes(in, pool);
   }
 
+  void rename(PoolInterceptor interceptor, String className) {
+    String newElement = interceptor.getName(className + " " + name + " " + descriptor);
+    if (newElement != null) {
+      name = newElement.split(" ")[1];
+    }
+
+    String newDescriptor = interceptor.getNewDescriptor(true, descriptor);
+    if (newDescriptor != null) {
+      descriptor = newDescriptor;
+    }
+  }
+
   public String getName() {
     return name;
   }
@@ -16,6 +16,7 @@
 package org.jetbrains.java.decompiler.struct;
 
 import org.jetbrains.java.decompiler.code.*;
+import org.jetbrains.java.decompiler.modules.renamer.PoolInterceptor;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
@@ -44,13 +45,12 @@ public class StructMethod extends StructMember {
   private static final int[] opcs_store = {opc_istore, opc_lstore, opc_fstore, opc_dstore, opc_astore};
 
   private final StructClass classStruct;
-  private final String name;
-  private final String descriptor;
+  private String name;
+  private String descriptor;
 
   private boolean containsCode = false;
   private int localVariables = 0;
   private int codeLength = 0;
-  private int codeFullLength = 0;
   private InstructionSequence seq;
   private boolean expanded = false;
   private VBStyleCollection<StructGeneralAttribute, String> codeAttributes;
@@ -74,6 +74,18 @@ public class StructMethod extends StructMember {
     }
   }
 
+  void rename(PoolInterceptor interceptor, String className) {
+    String newElement = interceptor.getName(className + " " + name + " " + descriptor);
+    if (newElement != null) {
+      name = newElement.split(" ")[1];
+    }
+
+    String newDescriptor = interceptor.getNewDescriptor(false, descriptor);
+    if (newDescriptor != null) {
+      descriptor = newDescriptor;
+    }
+  }
+
   @Override
   protected StructGeneralAttribute readAttribute(DataInputFullStream in, ConstantPool pool, String name) throws IOException {
     if (StructGeneralAttribute.ATTRIBUTE_CODE.equals(name)) {
@@ -91,7 +103,6 @@ public class StructMethod extends StructMember {
         in.discard(codeLength);
         int excLength = in.readUnsignedShort();
         in.discard(excLength * 8);
-        codeFullLength = codeLength + excLength * 8 + 2;
       }
 
       codeAttributes = readAttributes(in, pool);
@@ -104,13 +115,109 @@ public class StructMethod extends StructMember {
 
   public void expandData() throws IOException {
     if (containsCode && !expanded) {
-      byte[] code = classStruct.getLoader().loadBytecode(this, codeFullLength);
+      byte[] code = classStruct.getMethodCode(this);
       seq = parseBytecode(new DataInputFullStream(code), codeLength, classStruct.getPool());
       expanded = true;
     }
   }
 
-  public void releaseResources() throws IOException {
+  // scans raw bytecode without decoding it
+  public boolean containsOpcode(int opcode) {
+    if (!containsCode) {
+      return false;
+    }
+
+    byte[] code = classStruct.getMethodCode(this);
+
+    for (int i = 0; i < codeLength; ) {
+      int opc = code[i] & 0xFF;
+      if (opc == opcode) {
+        return true;
+      }
+
+      switch (opc) {
+        case opc_wide:
+          i += (code[i + 1] & 0xFF) == opc_iinc ? 6 : 4;
+          break;
+        case opc_tableswitch: {
+          int pos = i + 1 + (4 - (i + 1) % 4) % 4; // padding
+          int low = readInt(code, pos + 4);
+          int high = readInt(code, pos + 8);
+          i = pos + 12 + (high - low + 1) * 4;
+          break;
+        }
+        case opc_lookupswitch: {
+          int pos = i + 1 + (4 - (i + 1) % 4) % 4; // padding
+          int npairs = readInt(code, pos + 4);
+          i = pos + 8 + npairs * 8;
+          break;
+        }
+        default:
+          i += getInstructionLength(opc);
+      }
+    }
+
+    return false;
+  }
+
+  private static int readInt(byte[] code, int pos) {
+    return ((code[pos] & 0xFF) << 24) | ((code[pos + 1] & 0xFF) << 16) | ((code[pos + 2] & 0xFF) << 8) | (code[pos + 3] & 0xFF);
+  }
+
+  // length of fixed-size instructions including the opcode
+  private int getInstructionLength(int opcode) {
+    switch (opcode) {
+      case opc_bipush:
+      case opc_ldc:
+      case opc_newarray:
+      case opc_iload:
+      case opc_lload:
+      case opc_fload:
+      case opc_dload:
+      case opc_aload:
+      case opc_istore:
+      case opc_lstore:
+      case opc_fstore:
+      case opc_dstore:
+      case opc_astore:
+      case opc_ret:
+        return 2;
+      case opc_sipush:
+      case opc_ldc_w:
+      case opc_ldc2_w:
+      case opc_iinc:
+      case opc_getstatic:
+      case opc_putstatic:
+      case opc_getfield:
+      case opc_putfield:
+      case opc_invokevirtual:
+      case opc_invokespecial:
+      case opc_invokestatic:
+      case opc_new:
+      case opc_anewarray:
+      case opc_checkcast:
+      case opc_instanceof:
+      case opc_ifnull:
+      case opc_ifnonnull:
+        return 3;
+      case opc_multianewarray:
+        return 4;
+      case opc_invokeinterface:
+      case opc_goto_w:
+      case opc_jsr_w:
+        return 5;
+      case opc_invokedynamic:
+        return classStruct.isVersionGE_1_7() ? 5 : 1; // instruction unused in Java 6 and before
+    }
+
+    if (opcode >= opc_ifeq && opcode <= opc_jsr) {
+      return 3;
+    }
+
+    return 1;
+  }
+
+  public void releaseResources() {
     if (containsCode && expanded) {
       seq = null;
       expanded = false;
@@ -26,13 +26,16 @@ import java.util.List;
 
 public class StructBootstrapMethodsAttribute extends StructGeneralAttribute {
 
-  private List<LinkConstant> methodRefs = new ArrayList<LinkConstant>();
-  private List<List<PooledConstant>> methodArguments = new ArrayList<List<PooledConstant>>();
+  private List<LinkConstant> methodRefs;
+  private List<List<PooledConstant>> methodArguments;
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
     DataInputStream data = stream();
 
+    methodRefs = new ArrayList<LinkConstant>();
+    methodArguments = new ArrayList<List<PooledConstant>>();
+
     int method_number = data.readUnsignedShort();
 
     for (int i = 0; i < method_number; ++i) {
@@ -20,6 +20,7 @@ import org.jetbrains.java.decompiler.util.DataInputFullStream;
 import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * u2 line_number_table_length;
@@ -31,6 +32,9 @@ import java.io.IOException;
  */
 public class StructLineNumberTableAttribute extends StructGeneralAttribute {
   private int[] myLineInfo = InterpreterUtil.EMPTY_INT_ARRAY;
+  // start pcs in ascending order and their lines, for lookups by pc
+  private int[] myStarts = InterpreterUtil.EMPTY_INT_ARRAY;
+  private int[] myLines = InterpreterUtil.EMPTY_INT_ARRAY;
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
@@ -47,18 +51,47 @@ public class StructLineNumberTableAttribute extends StructGeneralAttribute {
     else if (myLineInfo.length > 0) {
       myLineInfo = InterpreterUtil.EMPTY_INT_ARRAY;
     }
+
+    sortEntries();
+  }
+
+  // entries need not be ordered, of several entries with the same start pc the first one counts
+  private void sortEntries() {
+    int count = myLineInfo.length / 2;
+
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = ((long)myLineInfo[2 * i] << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    myStarts = new int[count];
+    myLines = new int[count];
+    int size = 0;
+    for (long key : keys) {
+      int start = (int)(key >>> 32);
+      if (size == 0 || myStarts[size - 1] != start) {
+        myStarts[size] = start;
+        myLines[size++] = myLineInfo[2 * (int)key + 1];
+      }
+    }
+
+    if (size < count) {
+      myStarts = Arrays.copyOf(myStarts, size);
+      myLines = Arrays.copyOf(myLines, size);
+    }
   }
 
   public int getFirstLine() {
     return myLineInfo.length > 0 ? myLineInfo[1] : -1;
   }
 
+  // line of the closest entry starting at or before pc
   public int findLineNumber(int pc) {
-    for (int i = 0; i < myLineInfo.length; i += 2) {
-      if (pc >= myLineInfo[i]) {
-        return myLineInfo[i + 1];
-      }
+    int index = Arrays.binarySearch(myStarts, pc);
+    if (index < 0) {
+      index = -index - 2;
     }
-    return -1;
+    return index < 0 ? -1 : myLines[index];
   }
 }
@@ -34,7 +34,6 @@ public class ConstantPool {
   public static final int METHOD = 2;
 
   private List<PooledConstant> pool = new ArrayList<PooledConstant>();
-  private PoolInterceptor interceptor;
 
 
   public ConstantPool(DataInputStream in) throws IOException {
@@ -102,9 +101,6 @@ public class ConstantPool {
         }
       }
     }
-
-    // get global constant pool interceptor instance, if any available
-    interceptor = DecompilerContext.getPoolInterceptor();
   }
 
   public static void skipPool(DataInputFullStream in) throws IOException {
@@ -140,6 +136,42 @@ public class ConstantPool {
     }
   }
 
+  // reads the pool without building it and returns the name of the class that follows it
+  public static String readThisClassName(DataInputFullStream in) throws IOException {
+    int size = in.readUnsignedShort();
+    String[] strings = new String[size];
+    int[] classes = new int[size];
+
+    for (int i = 1; i < size; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case CodeConstants.CONSTANT_Utf8:
+          strings[i] = in.readUTF();
+          break;
+        case CodeConstants.CONSTANT_Class:
+          classes[i] = in.readUnsignedShort();
+          break;
+        case CodeConstants.CONSTANT_Long:
+        case CodeConstants.CONSTANT_Double:
+          in.discard(8);
+          i++;
+          break;
+        case CodeConstants.CONSTANT_String:
+        case CodeConstants.CONSTANT_MethodType:
+          in.discard(2);
+          break;
+        case CodeConstants.CONSTANT_MethodHandle:
+          in.discard(3);
+          break;
+        default:
+          in.discard(4);
+      }
+    }
+
+    in.discard(2); // access flags
+    return strings[classes[in.readUnsignedShort()]];
+  }
+
   public int size() {
     return pool.size();
   }
@@ -148,14 +180,16 @@ public class ConstantPool {
     String elementName = ((PrimitiveConstant)getConstant(nameIndex)).getString();
     String descriptor = ((PrimitiveConstant)getConstant(descriptorIndex)).getString();
 
+    // renamings are applied when constants are resolved, the class may already carry its new name
+    PoolInterceptor interceptor = DecompilerContext.getPoolInterceptor();
     if (interceptor != null) {
-      String newElement = interceptor.getName(className + " " + elementName + " " + descriptor);
+      String oldClassName = interceptor.getOldName(className);
+      String newElement = interceptor.getName((oldClassName == null ? className : oldClassName) + " " + elementName + " " + descriptor);
       if (newElement != null) {
         elementName = newElement.split(" ")[1];
       }
 
-      int type = elementType == FIELD ? CodeConstants.CONSTANT_Fieldref : CodeConstants.CONSTANT_Methodref;
-      String newDescriptor = buildNewDescriptor(type, descriptor);
+      String newDescriptor = interceptor.getNewDescriptor(elementType == FIELD, descriptor);
       if (newDescriptor != null) {
         descriptor = newDescriptor;
       }
@@ -171,9 +205,10 @@ public class ConstantPool {
   public PrimitiveConstant getPrimitiveConstant(int index) {
     PrimitiveConstant cn = (PrimitiveConstant)getConstant(index);
 
+    PoolInterceptor interceptor = DecompilerContext.getPoolInterceptor();
     if (cn != null && interceptor != null) {
       if (cn.type == CodeConstants.CONSTANT_Class) {
-        String newName = buildNewClassname(cn.getString());
+        String newName = interceptor.getNewClassName(cn.getString());
         if (newName != null) {
           cn = new PrimitiveConstant(CodeConstants.CONSTANT_Class, newName);
         }
@@ -186,13 +221,14 @@ public class ConstantPool {
   public LinkConstant getLinkConstant(int index) {
     LinkConstant ln = (LinkConstant)getConstant(index);
 
+    PoolInterceptor interceptor = DecompilerContext.getPoolInterceptor();
     if (ln != null && interceptor != null &&
         (ln.type == CodeConstants.CONSTANT_Fieldref ||
          ln.type == CodeConstants.CONSTANT_Methodref ||
          ln.type == CodeConstants.CONSTANT_InterfaceMethodref)) {
-      String newClassName = buildNewClassname(ln.classname);
+      String newClassName = interceptor.getNewClassName(ln.classname);
       String newElement = interceptor.getName(ln.classname + " " + ln.elementname + " " + ln.descriptor);
-      String newDescriptor = buildNewDescriptor(ln.type, ln.descriptor);
+      String newDescriptor = interceptor.getNewDescriptor(ln.type == CodeConstants.CONSTANT_Fieldref, ln.descriptor);
 
       if (newClassName != null || newElement != null || newDescriptor != null) {
         String className = newClassName == null ? ln.classname : newClassName;
@@ -204,78 +240,4 @@ public class ConstantPool {
 
     return ln;
   }
-
-  private String buildNewClassname(String className) {
-    VarType vt = new VarType(className, true);
-
-    String newName = interceptor.getName(vt.value);
-    if (newName != null) {
-      StringBuilder buffer = new StringBuilder();
-
-      if (vt.arraydim > 0) {
-        for (int i = 0; i < vt.arraydim; i++) {
-          buffer.append("[");
-        }
-
-        buffer.append("L").append(newName).append(";");
-      }
-      else {
-        buffer.append(newName);
-      }
-
-      return buffer.toString();
-    }
-
-    return null;
-  }
-
-  private String buildNewDescriptor(int type, String descriptor) {
-    boolean updated = false;
-
-    if (type == CodeConstants.CONSTANT_Fieldref) {
-      FieldDescriptor fd = FieldDescriptor.parseDescriptor(descriptor);
-
-      VarType fType = fd.type;
-      if (fType.type == CodeConstants.TYPE_OBJECT) {
-        String newClassName = buildNewClassname(fType.value);
-        if (newClassName != null) {
-          fType.value = newClassName;
-          updated = true;
-        }
-      }
-
-      if (updated) {
-        return fd.getDescriptor();
-      }
-    }
-    else {
-      MethodDescriptor md = MethodDescriptor.parseDescriptor(descriptor);
-
-      // parameters
-      for (VarType paramType : md.params) {
-        if (paramType.type == CodeConstants.TYPE_OBJECT) {
-          String newClassName = buildNewClassname(paramType.value);
-          if (newClassName != null) {
-            paramType.value = newClassName;
-            updated = true;
-          }
-        }
-      }
-
-      // return value
-      if (md.ret.type == CodeConstants.TYPE_OBJECT) {
-        String newClassName = buildNewClassname(md.ret.value);
-        if (newClassName != null) {
-          md.ret.value = newClassName;
-          updated = true;
-        }
-      }
-
-      if (updated) {
-        return md.getDescriptor();
-      }
-    }
-
-    return null;
-  }
 }
@@ -71,11 +71,11 @@ public class LinkConstant extends PooledConstant {
   public void resolveConstant(ConstantPool pool) {
 
     if (type == CONSTANT_NameAndType) {
-      elementname = pool.getPrimitiveConstant(index1).getString();
-      descriptor = pool.getPrimitiveConstant(index2).getString();
+      elementname = ((PrimitiveConstant)pool.getConstant(index1)).getString();
+      descriptor = ((PrimitiveConstant)pool.getConstant(index2)).getString();
     }
     else if (type == CONSTANT_MethodHandle) {
-      LinkConstant ref_info = pool.getLinkConstant(index2);
+      LinkConstant ref_info = (LinkConstant)pool.getConstant(index2);
 
       classname = ref_info.classname;
       elementname = ref_info.elementname;
@@ -83,10 +83,10 @@ public class LinkConstant extends PooledConstant {
     }
     else {
       if (type != CONSTANT_InvokeDynamic) {
-        classname = pool.getPrimitiveConstant(index1).getString();
+        classname = ((PrimitiveConstant)pool.getConstant(index1)).getString();
       }
 
-      LinkConstant nametype = pool.getLinkConstant(index2);
+      LinkConstant nametype = (LinkConstant)pool.getConstant(index2);
       elementname = nametype.elementname;
       descriptor = nametype.descriptor;
     }
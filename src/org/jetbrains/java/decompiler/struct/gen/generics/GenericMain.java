@@ -239,7 +239,7 @@ public class GenericMain {
 
     if (res.contains("$")) {
       StructClass cl = DecompilerContext.getStructContext().getClass(name);
-      if (cl == null || !cl.isOwn()) {
+      if (cl == null || !cl.isOwn() && !DecompilerContext.getStructContext().isFilteredOut(name)) {
         res = res.replace('$', '.');
       }
     }
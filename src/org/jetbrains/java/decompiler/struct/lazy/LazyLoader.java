@@ -16,12 +16,14 @@
 package org.jetbrains.java.decompiler.struct.lazy;
 
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
-import org.jetbrains.java.decompiler.struct.StructMethod;
+import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.attr.StructGeneralAttribute;
 import org.jetbrains.java.decompiler.struct.consts.ConstantPool;
 import org.jetbrains.java.decompiler.util.DataInputFullStream;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -64,8 +66,9 @@ public class LazyLoader {
     }
   }
 
-  public byte[] loadBytecode(StructMethod mt, int codeFullLength) {
-    String className = mt.getClassStruct().qualifiedName;
+  // reads the class file once, returns code and exception table of all methods keyed by name and descriptor
+  public Map<String, byte[]> loadBytecode(StructClass cl) {
+    String className = cl.qualifiedName;
 
     try {
       DataInputFullStream in = getClassStream(className);
@@ -74,7 +77,7 @@ public class LazyLoader {
       try {
         in.discard(8);
 
-        ConstantPool pool = mt.getClassStruct().getPool();
+        ConstantPool pool = cl.getPool();
         if (pool == null) {
           pool = new ConstantPool(in);
         }
@@ -94,6 +97,8 @@ public class LazyLoader {
           skipAttributes(in);
         }
 
+        Map<String, byte[]> mapCode = new HashMap<String, byte[]>();
+
         // methods
         size = in.readUnsignedShort();
         for (int i = 0; i < size; i++) {
@@ -103,34 +108,33 @@ public class LazyLoader {
           int descriptorIndex = in.readUnsignedShort();
 
           String[] values = pool.getClassElement(ConstantPool.METHOD, className, nameIndex, descriptorIndex);
-          if (!mt.getName().equals(values[0]) || !mt.getDescriptor().equals(values[1])) {
-            skipAttributes(in);
-            continue;
-          }
 
           int attrSize = in.readUnsignedShort();
           for (int j = 0; j < attrSize; j++) {
             int attrNameIndex = in.readUnsignedShort();
             String attrName = pool.getPrimitiveConstant(attrNameIndex).getString();
+            int attrLength = in.readInt();
             if (!StructGeneralAttribute.ATTRIBUTE_CODE.equals(attrName)) {
-              in.discard(in.readInt());
+              in.discard(attrLength);
               continue;
             }
 
-            in.discard(12);
-            byte[] code = new byte[codeFullLength];
-            in.readFull(code);
-            return code;
-          }
+            in.discard(4);
+            int codeLength = in.readInt();
+            byte[] rest = new byte[attrLength - 8];
+            in.readFull(rest);
 
-          break;
+            // code, exception table length, exception table; nested attributes are cut off
+            int excLength = ((rest[codeLength] & 0xFF) << 8) | (rest[codeLength + 1] & 0xFF);
+            mapCode.put(InterpreterUtil.makeUniqueKey(values[0], values[1]), Arrays.copyOf(rest, codeLength + excLength * 8 + 2));
+          }
         }
+
+        return mapCode;
       }
       finally {
         in.close();
       }
-
-      return null;
     }
     catch (IOException ex) {
       throw new RuntimeException(ex);
@@ -19,30 +19,22 @@ import java.util.*;
 
 public class FastFixedSetFactory<E> {
 
-  private VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
+  // element -> bit index, and back
+  private final ObjectIntMap<E> indices;
+  private final List<E> elements;
 
-  private int dataLength;
+  private final int dataLength;
 
   public FastFixedSetFactory(Collection<E> set) {
 
-    dataLength = set.size() / 32 + 1;
+    indices = new ObjectIntMap<E>(set.size());
+    elements = new ArrayList<E>(set);
 
-    int index = 0;
-    int mask = 1;
-
-    for (E element : set) {
-
-      int block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
-
-      index++;
-      mask <<= 1;
+    for (int i = 0; i < elements.size(); i++) {
+      indices.put(elements.get(i), i);
     }
+
+    dataLength = (elements.size() >>> 6) + 1;
   }
 
   public FastFixedSet<E> spawnEmptySet() {
@@ -53,23 +45,28 @@ public class FastFixedSetFactory<E> {
     return dataLength;
   }
 
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  private int getIndex(E element) {
+    return indices.get(element, -1);
+  }
+
+  private E getElement(int index) {
+    return elements.get(index);
+  }
+
+  private int getSize() {
+    return elements.size();
   }
 
   public static class FastFixedSet<E> implements Iterable<E> {
 
     private FastFixedSetFactory<E> factory;
 
-    private VBStyleCollection<int[], E> colValuesInternal;
-
-    private int[] data;
+    private long[] data;
 
 
     private FastFixedSet(FastFixedSetFactory<E> factory) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
-      this.data = new int[factory.getDataLength()];
+      this.data = new long[factory.getDataLength()];
     }
 
     public FastFixedSet<E> getCopy() {
@@ -77,7 +74,7 @@ public class FastFixedSetFactory<E> {
       FastFixedSet<E> copy = new FastFixedSet<E>(factory);
 
       int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
+      long[] cpdata = new long[arrlength];
       System.arraycopy(data, 0, cpdata, 0, arrlength);
       copy.setData(cpdata);
 
@@ -86,18 +83,19 @@ public class FastFixedSetFactory<E> {
 
     public void setAllElements() {
 
-      int[] lastindex = colValuesInternal.get(colValuesInternal.size() - 1);
+      int size = factory.getSize();
+      int lastblock = size >>> 6;
 
-      for (int i = lastindex[0] - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+      for (int i = lastblock - 1; i >= 0; i--) {
+        data[i] = -1L;
       }
 
-      data[lastindex[0]] = lastindex[1] | (lastindex[1] - 1);
+      data[lastblock] = (1L << (size & 63)) - 1;
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] |= index[1];
+      int index = factory.getIndex(element);
+      data[index >>> 6] |= 1L << index;
     }
 
     public void addAll(Collection<E> set) {
@@ -107,8 +105,8 @@ public class FastFixedSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      data[index[0]] &= ~index[1];
+      int index = factory.getIndex(element);
+      data[index >>> 6] &= ~(1L << index);
     }
 
     public void removeAll(Collection<E> set) {
@@ -118,13 +116,13 @@ public class FastFixedSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-      return (data[index[0]] & index[1]) != 0;
+      int index = factory.getIndex(element);
+      return (data[index >>> 6] & (1L << index)) != 0;
     }
 
     public boolean contains(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if ((extdata[i] & ~intdata[i]) != 0) {
@@ -135,40 +133,63 @@ public class FastFixedSetFactory<E> {
       return true;
     }
 
-    public void union(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+    // bulk operations modify the set in place and return true if it changed
+
+    public boolean union(FastFixedSet<E> set) {
+      long[] extdata = set.getData();
+      long[] intdata = data;
+      boolean changed = false;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        intdata[i] |= extdata[i];
+        long word = intdata[i] | extdata[i];
+        if (word != intdata[i]) {
+          intdata[i] = word;
+          changed = true;
+        }
       }
+
+      return changed;
     }
 
-    public void intersection(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+    public boolean intersection(FastFixedSet<E> set) {
+      long[] extdata = set.getData();
+      long[] intdata = data;
+      boolean changed = false;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        intdata[i] &= extdata[i];
+        long word = intdata[i] & extdata[i];
+        if (word != intdata[i]) {
+          intdata[i] = word;
+          changed = true;
+        }
       }
+
+      return changed;
     }
 
     public void symdiff(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         intdata[i] ^= extdata[i];
       }
     }
 
-    public void complement(FastFixedSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+    public boolean complement(FastFixedSet<E> set) {
+      long[] extdata = set.getData();
+      long[] intdata = data;
+      boolean changed = false;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        intdata[i] &= ~extdata[i];
+        long word = intdata[i] & ~extdata[i];
+        if (word != intdata[i]) {
+          intdata[i] = word;
+          changed = true;
+        }
       }
+
+      return changed;
     }
 
 
@@ -176,8 +197,8 @@ public class FastFixedSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastFixedSet)) return false;
 
-      int[] extdata = ((FastFixedSet)o).getData();
-      int[] intdata = data;
+      long[] extdata = ((FastFixedSet)o).getData();
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if (intdata[i] != extdata[i]) {
@@ -189,7 +210,7 @@ public class FastFixedSetFactory<E> {
     }
 
     public boolean isEmpty() {
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
         if (intdata[i] != 0) {
@@ -215,18 +236,12 @@ public class FastFixedSetFactory<E> {
 
     private <T extends Collection<E>> T toPlainCollection(T cl) {
 
-      int[] intdata = data;
+      long[] intdata = data;
       for (int bindex = 0; bindex < intdata.length; bindex++) {
-        int block = intdata[bindex];
-        if (block != 0) {
-          int index = bindex << 5; // * 32
-          for (int i = 31; i >= 0; i--) {
-            if ((block & 1) != 0) {
-              cl.add(colValuesInternal.getKey(index));
-            }
-            index++;
-            block >>>= 1;
-          }
+        long block = intdata[bindex];
+        while (block != 0) {
+          cl.add(factory.getElement((bindex << 6) + Long.numberOfTrailingZeros(block)));
+          block &= block - 1;
         }
       }
 
@@ -236,10 +251,10 @@ public class FastFixedSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
@@ -249,20 +264,18 @@ public class FastFixedSetFactory<E> {
 
       StringBuilder buffer = new StringBuilder("{");
 
-      int[] intdata = data;
+      long[] intdata = data;
       boolean first = true;
 
-      for (int i = colValuesInternal.size() - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
-
-        if ((intdata[index[0]] & index[1]) != 0) {
+      for (int i = factory.getSize() - 1; i >= 0; i--) {
+        if ((intdata[i >>> 6] & (1L << i)) != 0) {
           if (first) {
             first = false;
           }
           else {
             buffer.append(",");
           }
-          buffer.append(colValuesInternal.getKey(i));
+          buffer.append(factory.getElement(i));
         }
       }
 
@@ -271,11 +284,11 @@ public class FastFixedSetFactory<E> {
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
-    private void setData(int[] data) {
+    private void setData(long[] data) {
       this.data = data;
     }
 
@@ -286,49 +299,38 @@ public class FastFixedSetFactory<E> {
 
   public static class FastFixedSetIterator<E> implements Iterator<E> {
 
-    private VBStyleCollection<int[], E> colValuesInternal;
-    private int[] data;
+    private FastFixedSetFactory<E> factory;
+    private long[] data;
     private int size;
 
     private int pointer = -1;
     private int next_pointer = -1;
 
     private FastFixedSetIterator(FastFixedSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
+      factory = set.getFactory();
       data = set.getData();
-      size = colValuesInternal.size();
+      size = factory.getSize();
     }
 
     private int getNextIndex(int index) {
 
       index++;
-      int ret = index;
-      int bindex = index / 32;
-      int dindex = index % 32;
-
-      while (bindex < data.length) {
-        int block = data[bindex];
-
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return ret;
-            }
-            block >>>= 1;
-            dindex++;
-            ret++;
-          }
-        }
-        else {
-          ret += (32 - dindex);
-        }
+      int bindex = index >>> 6;
 
-        dindex = 0;
-        bindex++;
+      if (bindex >= data.length) {
+        return -1;
       }
 
-      return -1;
+      long block = data[bindex] & (-1L << index);
+
+      while (block == 0) {
+        if (++bindex >= data.length) {
+          return -1;
+        }
+        block = data[bindex];
+      }
+
+      return (bindex << 6) + Long.numberOfTrailingZeros(block);
     }
 
     public boolean hasNext() {
@@ -348,13 +350,11 @@ public class FastFixedSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? factory.getElement(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      data[pointer >>> 6] &= ~(1L << pointer);
     }
   }
 }
-
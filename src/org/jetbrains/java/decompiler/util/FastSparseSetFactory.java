@@ -15,75 +15,55 @@
  */
 package org.jetbrains.java.decompiler.util;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 public class FastSparseSetFactory<E> {
 
-  private VBStyleCollection<int[], E> colValuesInternal = new VBStyleCollection<int[], E>();
-
-  private int lastBlock;
-
-  private int lastMask;
+  // element -> bit index, and back
+  private final ObjectIntMap<E> indices;
+  private final List<E> elements;
 
   public FastSparseSetFactory(Collection<E> set) {
 
-    int block = -1;
-    int mask = -1;
-    int index = 0;
-
-    for (E element : set) {
-
-      block = index / 32;
-
-      if (index % 32 == 0) {
-        mask = 1;
-      }
-      else {
-        mask <<= 1;
-      }
-
-      colValuesInternal.putWithKey(new int[]{block, mask}, element);
+    indices = new ObjectIntMap<E>(set.size());
+    elements = new ArrayList<E>(set);
 
-      index++;
+    for (int i = 0; i < elements.size(); i++) {
+      indices.put(elements.get(i), i);
     }
-
-    lastBlock = block;
-    lastMask = mask;
   }
 
-  private int[] addElement(E element) {
-
-    if (lastMask == -1 || lastMask == 0x80000000) {
-      lastMask = 1;
-      lastBlock++;
-    }
-    else {
-      lastMask <<= 1;
-    }
+  private int addElement(E element) {
+    int index = elements.size();
+    indices.put(element, index);
+    elements.add(element);
+    return index;
+  }
 
-    int[] pointer = new int[]{lastBlock, lastMask};
-    colValuesInternal.putWithKey(pointer, element);
+  private int getOrAddIndex(E element) {
+    int index = indices.get(element, -1);
+    return index < 0 ? addElement(element) : index;
+  }
 
-    return pointer;
+  private E getElement(int index) {
+    return elements.get(index);
   }
 
   public FastSparseSet<E> spawnEmptySet() {
     return new FastSparseSet<E>(this);
   }
 
-  public int getLastBlock() {
-    return lastBlock;
+  public int getSize() {
+    return elements.size();
   }
 
-  public int getLastMask() {
-    return lastMask;
-  }
-
-  private VBStyleCollection<int[], E> getInternalValuesCollection() {
-    return colValuesInternal;
+  public int getBlockCount() {
+    return (elements.size() + 63) >>> 6;
   }
 
 
@@ -92,41 +72,41 @@ public class FastSparseSetFactory<E> {
 
     private FastSparseSetFactory<E> factory;
 
-    private VBStyleCollection<int[], E> colValuesInternal;
-
-    private int[] data;
+    // data and next may be shared with copies of the set, they are cloned before the first write
+    private long[] data;
     private int[] next;
+    private boolean shared;
 
     private FastSparseSet(FastSparseSetFactory<E> factory) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
 
-      int length = factory.getLastBlock() + 1;
-      this.data = new int[length];
+      int length = factory.getBlockCount();
+      this.data = new long[length];
       this.next = new int[length];
     }
 
-    private FastSparseSet(FastSparseSetFactory<E> factory, int[] data, int[] next) {
+    private FastSparseSet(FastSparseSetFactory<E> factory, long[] data, int[] next) {
       this.factory = factory;
-      this.colValuesInternal = factory.getInternalValuesCollection();
 
       this.data = data;
       this.next = next;
     }
 
     public FastSparseSet<E> getCopy() {
+      FastSparseSet<E> copy = new FastSparseSet<E>(factory, data, next);
+      copy.shared = shared = true;
+      return copy;
+    }
 
-      int arrlength = data.length;
-      int[] cpdata = new int[arrlength];
-      int[] cpnext = new int[arrlength];
-
-      System.arraycopy(data, 0, cpdata, 0, arrlength);
-      System.arraycopy(next, 0, cpnext, 0, arrlength);
-
-      return new FastSparseSet<E>(factory, cpdata, cpnext);
+    private void own() {
+      if (shared) {
+        data = data.clone();
+        next = next.clone();
+        shared = false;
+      }
     }
 
-    private int[] ensureCapacity(int index) {
+    private long[] ensureCapacity(int index) {
 
       int newlength = data.length;
       if (newlength == 0) {
@@ -137,7 +117,7 @@ public class FastSparseSetFactory<E> {
         newlength *= 2;
       }
 
-      int[] newdata = new int[newlength];
+      long[] newdata = new long[newlength];
       System.arraycopy(data, 0, newdata, 0, data.length);
       data = newdata;
 
@@ -145,41 +125,48 @@ public class FastSparseSetFactory<E> {
       System.arraycopy(next, 0, newnext, 0, next.length);
       next = newnext;
 
+      shared = false;
+
       return newdata;
     }
 
     public void add(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      int index = factory.getOrAddIndex(element);
 
-      int block = index[0];
+      int block = index >>> 6;
       if (block >= data.length) {
         ensureCapacity(block);
       }
+      else if ((data[block] & (1L << index)) != 0) {
+        return;
+      }
 
-      data[block] |= index[1];
+      own();
+      data[block] |= 1L << index;
 
       changeNext(next, block, next[block], block);
     }
 
     public void setAllElements() {
 
-      int lastblock = factory.getLastBlock();
-      int lastmask = factory.getLastMask();
+      int size = factory.getSize();
+      if (size == 0) {
+        return;
+      }
+
+      int lastblock = (size - 1) >>> 6;
 
+      own();
       if (lastblock >= data.length) {
         ensureCapacity(lastblock);
       }
 
       for (int i = lastblock - 1; i >= 0; i--) {
-        data[i] = 0xFFFFFFFF;
+        data[i] = -1L;
         next[i] = i + 1;
       }
 
-      data[lastblock] = lastmask | (lastmask - 1);
+      data[lastblock] = -1L >>> (-size & 63);
       next[lastblock] = 0;
     }
 
@@ -190,15 +177,12 @@ public class FastSparseSetFactory<E> {
     }
 
     public void remove(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
+      int index = factory.getOrAddIndex(element);
 
-      if (index == null) {
-        index = factory.addElement(element);
-      }
-
-      int block = index[0];
-      if (block < data.length) {
-        data[block] &= ~index[1];
+      int block = index >>> 6;
+      if (block < data.length && (data[block] & (1L << index)) != 0) {
+        own();
+        data[block] &= ~(1L << index);
 
         if (data[block] == 0) {
           changeNext(next, block, block, next[block]);
@@ -213,18 +197,15 @@ public class FastSparseSetFactory<E> {
     }
 
     public boolean contains(E element) {
-      int[] index = colValuesInternal.getWithKey(element);
-
-      if (index == null) {
-        index = factory.addElement(element);
-      }
+      int index = factory.getOrAddIndex(element);
 
-      return index[0] >= data.length ? false : ((data[index[0]] & index[1]) != 0);
+      int block = index >>> 6;
+      return block < data.length && (data[block] & (1L << index)) != 0;
     }
 
     public boolean contains(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
@@ -265,12 +246,15 @@ public class FastSparseSetFactory<E> {
       }
     }
 
-    public void union(FastSparseSet<E> set) {
+    // bulk operations modify the set in place and return true if it changed
 
-      int[] extdata = set.getData();
+    public boolean union(FastSparseSet<E> set) {
+
+      long[] extdata = set.getData();
       int[] extnext = set.getNext();
-      int[] intdata = data;
+      long[] intdata = data;
       int intlength = intdata.length;
+      boolean changed = false;
 
       int pointer = 0;
       do {
@@ -278,38 +262,71 @@ public class FastSparseSetFactory<E> {
           intdata = ensureCapacity(extdata.length - 1);
         }
 
-        boolean nextrec = (intdata[pointer] == 0);
-        intdata[pointer] |= extdata[pointer];
+        long word = intdata[pointer];
+        long merged = word | extdata[pointer];
+
+        if (merged != word) {
+          if (shared) {
+            own();
+            intdata = data;
+          }
+          intdata[pointer] = merged;
+          changed = true;
 
-        if (nextrec) {
-          changeNext(next, pointer, next[pointer], pointer);
+          if (word == 0) {
+            changeNext(next, pointer, next[pointer], pointer);
+          }
         }
 
         pointer = extnext[pointer];
       }
       while (pointer != 0);
+
+      return changed;
     }
 
-    public void intersection(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+    public boolean intersection(FastSparseSet<E> set) {
+      long[] extdata = set.getData();
+      long[] intdata = data;
+      boolean changed = false;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
       for (int i = minlength - 1; i >= 0; i--) {
-        intdata[i] &= extdata[i];
+        long word = intdata[i] & extdata[i];
+        if (word != intdata[i]) {
+          if (shared) {
+            own();
+            intdata = data;
+          }
+          intdata[i] = word;
+          changed = true;
+        }
       }
 
       for (int i = intdata.length - 1; i >= minlength; i--) {
-        intdata[i] = 0;
+        if (intdata[i] != 0) {
+          if (shared) {
+            own();
+            intdata = data;
+          }
+          intdata[i] = 0;
+          changed = true;
+        }
       }
 
-      setNext();
+      if (changed) {
+        setNext();
+      }
+
+      return changed;
     }
 
     public void symdiff(FastSparseSet<E> set) {
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      own();
+
+      long[] extdata = set.getData();
+      long[] intdata = data;
 
       int minlength = Math.min(extdata.length, intdata.length);
 
@@ -322,6 +339,7 @@ public class FastSparseSetFactory<E> {
         if (extdata[i] != 0) {
           if (!expanded) {
             intdata = ensureCapacity(extdata.length - 1);
+            expanded = true;
           }
           intdata[i] = extdata[i];
         }
@@ -330,11 +348,12 @@ public class FastSparseSetFactory<E> {
       setNext();
     }
 
-    public void complement(FastSparseSet<E> set) {
+    public boolean complement(FastSparseSet<E> set) {
 
-      int[] extdata = set.getData();
-      int[] intdata = data;
+      long[] extdata = set.getData();
+      long[] intdata = data;
       int extlength = extdata.length;
+      boolean changed = false;
 
       int pointer = 0;
       do {
@@ -342,14 +361,25 @@ public class FastSparseSetFactory<E> {
           break;
         }
 
-        intdata[pointer] &= ~extdata[pointer];
-        if (intdata[pointer] == 0) {
-          changeNext(next, pointer, pointer, next[pointer]);
+        long word = intdata[pointer] & ~extdata[pointer];
+        if (word != intdata[pointer]) {
+          if (shared) {
+            own();
+            intdata = data;
+          }
+          intdata[pointer] = word;
+          changed = true;
+
+          if (word == 0) {
+            changeNext(next, pointer, pointer, next[pointer]);
+          }
         }
 
         pointer = next[pointer];
       }
       while (pointer != 0);
+
+      return changed;
     }
 
 
@@ -357,8 +387,12 @@ public class FastSparseSetFactory<E> {
       if (o == this) return true;
       if (o == null || !(o instanceof FastSparseSet)) return false;
 
-      int[] longdata = ((FastSparseSet)o).getData();
-      int[] shortdata = data;
+      long[] longdata = ((FastSparseSet)o).getData();
+      long[] shortdata = data;
+
+      if (longdata == shortdata) {
+        return true;
+      }
 
       if (data.length > longdata.length) {
         shortdata = longdata;
@@ -383,22 +417,15 @@ public class FastSparseSetFactory<E> {
     public int getCardinality() {
 
       boolean found = false;
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = intdata.length - 1; i >= 0; i--) {
-        int block = intdata[i];
+        long block = intdata[i];
         if (block != 0) {
-          if (found) {
+          if (found || (block & (block - 1)) != 0) {
             return 2;
           }
-          else {
-            if ((block & (block - 1)) == 0) {
-              found = true;
-            }
-            else {
-              return 2;
-            }
-          }
+          found = true;
         }
       }
 
@@ -416,18 +443,12 @@ public class FastSparseSetFactory<E> {
     public Set<E> toPlainSet() {
       HashSet<E> set = new HashSet<E>();
 
-      int[] intdata = data;
-
-      int size = data.length * 32;
-      if (size > colValuesInternal.size()) {
-        size = colValuesInternal.size();
-      }
-
-      for (int i = size - 1; i >= 0; i--) {
-        int[] index = colValuesInternal.get(i);
-
-        if ((intdata[index[0]] & index[1]) != 0) {
-          set.add(colValuesInternal.getKey(i));
+      long[] intdata = data;
+      for (int bindex = 0; bindex < intdata.length; bindex++) {
+        long block = intdata[bindex];
+        while (block != 0) {
+          set.add(factory.getElement((bindex << 6) + Long.numberOfTrailingZeros(block)));
+          block &= block - 1;
         }
       }
 
@@ -441,16 +462,16 @@ public class FastSparseSetFactory<E> {
     public String toBinary() {
 
       StringBuilder buffer = new StringBuilder();
-      int[] intdata = data;
+      long[] intdata = data;
 
       for (int i = 0; i < intdata.length; i++) {
-        buffer.append(" ").append(Integer.toBinaryString(intdata[i]));
+        buffer.append(" ").append(Long.toBinaryString(intdata[i]));
       }
 
       return buffer.toString();
     }
 
-    private int[] getData() {
+    private long[] getData() {
       return data;
     }
 
@@ -459,7 +480,7 @@ public class FastSparseSetFactory<E> {
     }
 
     public int[] getLoad() {
-      int[] intdata = data;
+      long[] intdata = data;
       int notempty = 0;
 
       for (int i = 0; i < intdata.length; i++) {
@@ -478,8 +499,9 @@ public class FastSparseSetFactory<E> {
 
   public static class FastSparseSetIterator<E> implements Iterator<E> {
 
-    private VBStyleCollection<int[], E> colValuesInternal;
-    private int[] data;
+    private FastSparseSet<E> set;
+    private FastSparseSetFactory<E> factory;
+    private long[] data;
     private int[] next;
     private int size;
 
@@ -487,41 +509,33 @@ public class FastSparseSetFactory<E> {
     private int next_pointer = -1;
 
     private FastSparseSetIterator(FastSparseSet<E> set) {
-      colValuesInternal = set.getFactory().getInternalValuesCollection();
+      this.set = set;
+      factory = set.getFactory();
       data = set.getData();
       next = set.getNext();
-      size = colValuesInternal.size();
+      size = factory.getSize();
     }
 
     private int getNextIndex(int index) {
 
       index++;
-      int bindex = index >>> 5;
-      int dindex = index & 0x1F;
+      int bindex = index >>> 6;
 
-      while (bindex < data.length) {
-        int block = data[bindex];
+      if (bindex >= data.length) {
+        return -1;
+      }
 
-        if (block != 0) {
-          block >>>= dindex;
-          while (dindex < 32) {
-            if ((block & 1) != 0) {
-              return (bindex << 5) + dindex;
-            }
-            block >>>= 1;
-            dindex++;
-          }
-        }
+      long block = data[bindex] & (-1L << index);
 
-        dindex = 0;
+      while (block == 0) {
         bindex = next[bindex];
-
         if (bindex == 0) {
-          break;
+          return -1;
         }
+        block = data[bindex];
       }
 
-      return -1;
+      return (bindex << 6) + Long.numberOfTrailingZeros(block);
     }
 
     public boolean hasNext() {
@@ -541,13 +555,12 @@ public class FastSparseSetFactory<E> {
       }
 
       next_pointer = -1;
-      return pointer < size ? colValuesInternal.getKey(pointer) : null;
+      return pointer < size ? factory.getElement(pointer) : null;
     }
 
     public void remove() {
-      int[] index = colValuesInternal.get(pointer);
-      data[index[0]] &= ~index[1];
+      set.own();
+      set.getData()[pointer >>> 6] &= ~(1L << pointer);
     }
   }
 }
-
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+ * Keyed list with the same contract as VBStyleCollection. Every element has an entry remembering its key
+ * and position. Positions are not rewritten on insertion or removal in the middle of the list, instead
+ * they are validated on lookup and the shifted tail is renumbered once when a stale position is found.
+ * Keyed element access doesn't need positions at all.
+ */
+public class IndexedCollection<E, K> extends ArrayList<E> {
+
+  private static final long serialVersionUID = 1L;
+
+  private ArrayList<Entry<K>> entries;
+
+  private HashMap<K, Entry<K>> map;
+
+  // positions of entries before this index are up to date
+  private int dirtyFrom = Integer.MAX_VALUE;
+
+  public IndexedCollection() {
+    super();
+    entries = new ArrayList<Entry<K>>();
+  }
+
+  public IndexedCollection(int initialCapacity) {
+    super(initialCapacity);
+    entries = new ArrayList<Entry<K>>(initialCapacity);
+  }
+
+  public boolean add(E element) {
+    entries.add(new Entry<K>(null, super.size()));
+    super.add(element);
+    return true;
+  }
+
+  public boolean remove(Object element) {
+    int index = indexOf(element);
+    if (index < 0) {
+      return false;
+    }
+    remove(index);
+    return true;
+  }
+
+  public boolean addAll(Collection<? extends E> c) {
+    int index = super.size();
+    for (int i = c.size() - 1; i >= 0; i--) {
+      entries.add(new Entry<K>(null, index++));
+    }
+    return super.addAll(c);
+  }
+
+  public void addAllWithKey(IndexedCollection<E, K> c) {
+    for (int i = 0; i < c.size(); i++) {
+      addWithKey(c.get(i), c.getKey(i));
+    }
+  }
+
+  public void addAllWithKey(Collection<E> elements, Collection<K> keys) {
+    int index = super.size();
+
+    for (K key : keys) {
+      Entry<K> entry = new Entry<K>(key, index++);
+      entries.add(entry);
+      registerEntry(entry);
+    }
+
+    super.addAll(elements);
+  }
+
+  public void addWithKey(E element, K key) {
+    Entry<K> entry = new Entry<K>(key, super.size());
+    entries.add(entry);
+    registerEntry(entry);
+    super.add(element);
+  }
+
+  public E putWithKey(E element, K key) {
+    Entry<K> entry = findEntry(key);
+    if (entry == null) {
+      addWithKey(element, key);
+      return null;
+    }
+    return super.set(getIndex(entry), element);
+  }
+
+  public void add(int index, E element) {
+    markDirty(index);
+    entries.add(index, new Entry<K>(null, index));
+    super.add(index, element);
+  }
+
+  public void addWithKeyAndIndex(int index, E element, K key) {
+    markDirty(index);
+    Entry<K> entry = new Entry<K>(key, index);
+    entries.add(index, entry);
+    registerEntry(entry);
+    super.add(index, element);
+  }
+
+  public void removeWithKey(K key) {
+    remove(getIndex(findEntry(key)));
+  }
+
+  public E remove(int index) {
+    markDirty(index);
+    Entry<K> entry = entries.remove(index);
+    if (entry.key != null && findEntry(entry.key) == entry) {
+      unregisterEntry(entry);
+
+      // keys may be duplicated (e.g. statement ids), the last remaining element with the key takes over
+      for (int i = entries.size() - 1; i >= 0; i--) {
+        Entry<K> other = entries.get(i);
+        if (entry.key.equals(other.key)) {
+          registerEntry(other);
+          break;
+        }
+      }
+    }
+    return super.remove(index);
+  }
+
+  public E getWithKey(K key) {
+    Entry<K> entry = findEntry(key);
+    if (entry == null) {
+      return null;
+    }
+    return super.get(getIndex(entry));
+  }
+
+  public int getIndexByKey(K key) {
+    return getIndex(findEntry(key));
+  }
+
+  public E getLast() {
+    return super.get(super.size() - 1);
+  }
+
+  public boolean containsKey(K key) {
+    return findEntry(key) != null;
+  }
+
+  public void clear() {
+    clearEntries();
+    entries.clear();
+    dirtyFrom = Integer.MAX_VALUE;
+    super.clear();
+  }
+
+  public IndexedCollection<E, K> clone() {
+    IndexedCollection<E, K> c = newInstance();
+    c.copyFrom(this);
+    return c;
+  }
+
+  public void swap(int index1, int index2) {
+    Collections.swap(this, index1, index2);
+    Collections.swap(entries, index1, index2);
+
+    entries.get(index1).index = index1;
+    entries.get(index2).index = index2;
+  }
+
+  public K getKey(int index) {
+    return entries.get(index).key;
+  }
+
+  public List<K> getLstKeys() {
+    return new AbstractList<K>() {
+      public K get(int index) {
+        return entries.get(index).key;
+      }
+
+      public int size() {
+        return entries.size();
+      }
+    };
+  }
+
+  protected IndexedCollection<E, K> newInstance() {
+    return new IndexedCollection<E, K>(super.size());
+  }
+
+  protected void copyFrom(IndexedCollection<E, K> c) {
+    for (int i = 0; i < c.size(); i++) {
+      K key = c.getKey(i);
+      if (key == null) {
+        add(c.get(i));
+      }
+      else {
+        addWithKey(c.get(i), key);
+      }
+    }
+  }
+
+  // key lookup, overridden by specializations
+
+  protected Entry<K> findEntry(Object key) {
+    return map == null ? null : map.get(key);
+  }
+
+  protected void registerEntry(Entry<K> entry) {
+    if (map == null) {
+      map = new HashMap<K, Entry<K>>();
+    }
+    map.put(entry.key, entry);
+  }
+
+  protected void unregisterEntry(Entry<K> entry) {
+    map.remove(entry.key);
+  }
+
+  protected void clearEntries() {
+    if (map != null) {
+      map.clear();
+    }
+  }
+
+  private void markDirty(int index) {
+    if (index < dirtyFrom && index < entries.size()) {
+      dirtyFrom = index;
+    }
+  }
+
+  private int getIndex(Entry<K> entry) {
+    int index = entry.index;
+    if (index < entries.size() && entries.get(index) == entry) {
+      return index;
+    }
+
+    // stale position: renumber the shifted tail once
+    for (int i = dirtyFrom; i < entries.size(); i++) {
+      entries.get(i).index = i;
+    }
+    dirtyFrom = Integer.MAX_VALUE;
+
+    return entry.index;
+  }
+
+  protected static class Entry<K> {
+    public final K key;
+    public int index;
+
+    public Entry(K key, int index) {
+      this.key = key;
+      this.index = index;
+    }
+  }
+}
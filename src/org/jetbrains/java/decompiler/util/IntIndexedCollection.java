@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+// IndexedCollection specialized for int ids of blocks and statements, keys are hashed without boxing
+public class IntIndexedCollection<E> extends IndexedCollection<E, Integer> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final IntObjectMap<Entry<Integer>> map = new IntObjectMap<Entry<Integer>>();
+
+  public IntIndexedCollection() {
+    super();
+  }
+
+  public IntIndexedCollection(int initialCapacity) {
+    super(initialCapacity);
+  }
+
+  public IntIndexedCollection<E> clone() {
+    return (IntIndexedCollection<E>)super.clone();
+  }
+
+  protected IndexedCollection<E, Integer> newInstance() {
+    return new IntIndexedCollection<E>(size());
+  }
+
+  protected Entry<Integer> findEntry(Object key) {
+    return key == null ? null : map.get(((Integer)key).intValue());
+  }
+
+  protected void registerEntry(Entry<Integer> entry) {
+    map.put(entry.key.intValue(), entry);
+  }
+
+  protected void unregisterEntry(Entry<Integer> entry) {
+    map.remove(entry.key.intValue());
+  }
+
+  protected void clearEntries() {
+    map.clear();
+  }
+}
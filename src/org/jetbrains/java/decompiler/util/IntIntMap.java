@@ -0,0 +1,153 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+// open addressing map with primitive int keys and values
+public class IntIntMap {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  public IntIntMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public IntIntMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+  }
+
+  public int get(int key, int defaultValue) {
+    int slot = find(key);
+    return slot < 0 ? defaultValue : values[slot];
+  }
+
+  public boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  public void put(int key, int value) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+    }
+
+    keys[i] = key;
+    values[i] = value;
+    used[i] = true;
+
+    if (++size * 4 > keys.length * 3) {
+      resize(keys.length << 1);
+    }
+  }
+
+  public boolean remove(int key) {
+    int slot = find(key);
+    if (slot < 0) {
+      return false;
+    }
+    deleteSlot(slot);
+    size--;
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int[] keys() {
+    int[] res = new int[size];
+    int j = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i]) {
+        res[j++] = keys[i];
+      }
+    }
+    return res;
+  }
+
+  private int find(int key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // backward shift deletion, keeps probe sequences intact without tombstones
+  private void deleteSlot(int slot) {
+    int mask = keys.length - 1;
+    int hole = slot;
+
+    for (int i = (slot + 1) & mask; used[i]; i = (i + 1) & mask) {
+      int home = hash(keys[i]) & mask;
+      if (((i - home) & mask) >= ((i - hole) & mask)) {
+        keys[hole] = keys[i];
+        values[hole] = values[i];
+        hole = i;
+      }
+    }
+
+    used[hole] = false;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = hash(oldKeys[j]) & mask;
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+        used[i] = true;
+      }
+    }
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
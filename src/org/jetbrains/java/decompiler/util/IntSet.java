@@ -0,0 +1,104 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+// open addressing set of primitive ints
+public class IntSet {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private int[] keys;
+  private boolean[] used;
+  private int size;
+
+  public IntSet() {
+    keys = new int[MIN_CAPACITY];
+    used = new boolean[MIN_CAPACITY];
+  }
+
+  public boolean contains(int key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean add(int key) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (; used[i]; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return false;
+      }
+    }
+
+    keys[i] = key;
+    used[i] = true;
+
+    if (++size * 4 > keys.length * 3) {
+      resize(keys.length << 1);
+    }
+
+    return true;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int[] toArray() {
+    int[] res = new int[size];
+    int j = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i]) {
+        res[j++] = keys[i];
+      }
+    }
+    return res;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    boolean[] oldUsed = used;
+
+    keys = new int[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = hash(oldKeys[j]) & mask;
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        used[i] = true;
+      }
+    }
+  }
+
+  private static int hash(int key) {
+    int h = key * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -21,6 +21,8 @@ import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
 import java.io.*;
 import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -90,6 +92,33 @@ public class InterpreterUtil {
     }
   }
 
+  // hexadecimal SHA-1 hash
+  public static String getDigest(byte[] bytes) {
+    byte[] hash;
+    try {
+      hash = MessageDigest.getInstance("SHA-1").digest(bytes);
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new RuntimeException(ex);
+    }
+
+    StringBuilder buffer = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      buffer.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return buffer.toString();
+  }
+
+  // hexadecimal SHA-1 hash of the UTF-8 encoding
+  public static String getDigest(String value) {
+    try {
+      return getDigest(value.getBytes("UTF-8"));
+    }
+    catch (UnsupportedEncodingException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
   public static String getIndentString(int length) {
     if (length == 0) return "";
     StringBuilder buf = new StringBuilder();
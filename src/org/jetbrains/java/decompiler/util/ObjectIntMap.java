@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+// open addressing map from non-null object keys to primitive int values, no entry objects
+public class ObjectIntMap<K> {
+
+  private static final int MIN_CAPACITY = 8;
+
+  private Object[] keys;
+  private int[] values;
+  private int size;
+
+  public ObjectIntMap() {
+    this(MIN_CAPACITY);
+  }
+
+  public ObjectIntMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    keys = new Object[capacity];
+    values = new int[capacity];
+  }
+
+  public int get(Object key, int defaultValue) {
+    int slot = find(key);
+    return slot < 0 ? defaultValue : values[slot];
+  }
+
+  public boolean containsKey(Object key) {
+    return find(key) >= 0;
+  }
+
+  public void put(K key, int value) {
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    for (Object k; (k = keys[i]) != null; i = (i + 1) & mask) {
+      if (k.equals(key)) {
+        values[i] = value;
+        return;
+      }
+    }
+
+    keys[i] = key;
+    values[i] = value;
+
+    if (++size * 4 > keys.length * 3) {
+      resize(keys.length << 1);
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private int find(Object key) {
+    int mask = keys.length - 1;
+    for (int i = hash(key) & mask; keys[i] != null; i = (i + 1) & mask) {
+      if (keys[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void resize(int capacity) {
+    Object[] oldKeys = keys;
+    int[] oldValues = values;
+
+    keys = new Object[capacity];
+    values = new int[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldKeys[j] != null) {
+        int i = hash(oldKeys[j]) & mask;
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  private static int hash(Object key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
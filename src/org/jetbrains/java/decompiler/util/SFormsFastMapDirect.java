@@ -91,6 +91,7 @@ public class SFormsFastMapDirect {
         do {
           FastSparseSet<Integer> set = arr[pointer];
           if (set != null) {
+            // copy on write, the bit arrays are shared until one of the sets is modified
             arrnew[pointer] = set.getCopy();
           }
 
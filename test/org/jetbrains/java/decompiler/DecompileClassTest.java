@@ -0,0 +1,208 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler;
+
+import org.jetbrains.java.decompiler.main.DecompiledClass;
+import org.jetbrains.java.decompiler.main.decompiler.BaseDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class DecompileClassTest {
+  private static final String[] CLASSES = {"TestEnum", "TestEnum$1", "TestEnum$2", "TestClassLoop", "TestClassSwitch", "TestClassVar"};
+
+  private DecompilerTestFixture fixture;
+  private RecordingLogger logger;
+  private BaseDecompiler decompiler;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+
+    logger = new RecordingLogger();
+    decompiler = createDecompiler(Collections.<String, Object>emptyMap());
+  }
+
+  @After
+  public void tearDown() {
+    decompiler.close();
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testSameAsFullRun() throws IOException {
+    // decompileContext runs on the current context, so the full run gets a decompiler created after the resident one
+    DecompilerTestFixture fullRun = new DecompilerTestFixture();
+    fullRun.setUp();
+    String expected;
+    try {
+      for (File file : getClassFiles()) {
+        fullRun.getDecompiler().addSpace(file, true);
+      }
+      fullRun.getDecompiler().decompileContext();
+
+      File decompiledFile = new File(fullRun.getTargetDir(), "TestEnum.java");
+      assertTrue(decompiledFile.isFile());
+      expected = new String(InterpreterUtil.getBytes(decompiledFile), "UTF-8");
+    }
+    finally {
+      fullRun.tearDown();
+    }
+
+    DecompiledClass decompiled = decompiler.decompileClass("pkg/TestEnum");
+    assertNotNull(decompiled);
+    assertEquals("pkg/TestEnum", decompiled.getQualifiedName());
+    assertEquals(expected, decompiled.getContent());
+  }
+
+  @Test
+  public void testLineMapping() throws IOException {
+    BaseDecompiler unformatted = createDecompiler(Collections.<String, Object>singletonMap(IFernflowerPreferences.ECLIPSE_FORMAT, "0"));
+    try {
+      DecompiledClass decompiled = unformatted.decompileClass("pkg/TestClassLoop");
+      String[] lines = decompiled.getContent().split("\r?\n");
+      Map<String, Map<Integer, Integer>> mapping = decompiled.getLineMapping().get("pkg/TestClassLoop");
+      assertNotNull(mapping);
+
+      // invokevirtual println at 3 in testSimpleInfinite, the store of the random flag at 13 in testFinally
+      Integer line = mapping.get(InterpreterUtil.makeUniqueKey("testSimpleInfinite", "()V")).get(3);
+      assertNotNull(line);
+      assertTrue(lines[line], lines[line].contains("System.out.println()"));
+
+      line = mapping.get(InterpreterUtil.makeUniqueKey("testFinally", "()V")).get(13);
+      assertNotNull(line);
+      assertTrue(lines[line], lines[line].contains("Math.random()"));
+    }
+    finally {
+      unformatted.close();
+    }
+
+    // the formatter moves lines, no mapping is returned with formatted content
+    assertTrue(decompiler.decompileClass("pkg/TestClassLoop").getLineMapping().isEmpty());
+  }
+
+  @Test
+  public void testCacheHit() {
+    DecompiledClass decompiled = decompiler.decompileClass("pkg/TestEnum");
+    assertNotNull(decompiled.getContent());
+
+    // nested classes are decompiled with their root class
+    assertSame(decompiled, decompiler.decompileClass("pkg/TestEnum"));
+    assertSame(decompiled, decompiler.decompileClass("pkg/TestEnum$1"));
+    assertEquals(Collections.singletonList("pkg/TestEnum"), logger.getStartedClasses());
+
+    assertNull(decompiler.decompileClass("pkg/Unknown"));
+  }
+
+  @Test(timeout = 60000)
+  public void testPrefetch() throws InterruptedException {
+    decompiler.setPrefetchEnabled(true);
+    decompiler.decompileClass("pkg/TestClassLoop");
+
+    // the other classes of the package are decompiled in the background
+    List<String> expected = Arrays.asList("pkg/TestClassLoop", "pkg/TestClassSwitch", "pkg/TestClassVar", "pkg/TestEnum");
+    while (!new HashSet<String>(logger.getStartedClasses()).equals(new HashSet<String>(expected))) {
+      Thread.sleep(10);
+    }
+
+    decompiler.decompileClass("pkg/TestClassVar");
+    decompiler.close();
+
+    assertEquals(expected.size(), logger.getStartedClasses().size());
+  }
+
+  @Test(timeout = 60000)
+  public void testPrefetchDisabled() {
+    decompiler.setPrefetchEnabled(true);
+    decompiler.setPrefetchEnabled(false);
+    decompiler.decompileClass("pkg/TestClassLoop");
+    decompiler.close();
+
+    assertEquals(Collections.singletonList("pkg/TestClassLoop"), logger.getStartedClasses());
+  }
+
+  @Test(timeout = 60000)
+  public void testCloseStopsPrefetch() {
+    decompiler.setPrefetchEnabled(true);
+    decompiler.decompileClass("pkg/TestClassLoop");
+    decompiler.close();
+
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      assertFalse(thread.getName().equals("Fernflower prefetch") && thread.isAlive());
+    }
+    int started = logger.getStartedClasses().size();
+
+    // a request after closing decompiles on demand again
+    assertNotNull(decompiler.decompileClass("pkg/TestClassLoop"));
+    assertEquals(started + 1, logger.getStartedClasses().size());
+  }
+
+  // same options as the fixture, the console decompiler serves as bytecode provider and result saver
+  private BaseDecompiler createDecompiler(Map<String, Object> extraOptions) throws IOException {
+    Map<String, Object> options = new HashMap<String, Object>();
+    options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+    options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+    options.put(IFernflowerPreferences.REMOVE_BRIDGE, "1");
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    options.putAll(extraOptions);
+
+    BaseDecompiler result = new BaseDecompiler(fixture.getDecompiler(), fixture.getDecompiler(), options, logger);
+    for (File file : getClassFiles()) {
+      result.addSpace(file, true);
+    }
+    return result;
+  }
+
+  private List<File> getClassFiles() {
+    List<File> files = new ArrayList<File>();
+    for (String name : CLASSES) {
+      File file = new File(fixture.getTestDataDir(), "classes/pkg/" + name + ".class");
+      assertTrue(file.isFile());
+      files.add(file);
+    }
+    return files;
+  }
+
+  private static class RecordingLogger extends IFernflowerLogger {
+    private final List<String> startedClasses = new ArrayList<String>();
+
+    @Override
+    public void writeMessage(String message, Severity severity) { }
+
+    @Override
+    public void writeMessage(String message, Throwable t) { }
+
+    @Override
+    public synchronized void startReadingClass(String className) {
+      startedClasses.add(className);
+    }
+
+    public synchronized List<String> getStartedClasses() {
+      return new ArrayList<String>(startedClasses);
+    }
+  }
+}
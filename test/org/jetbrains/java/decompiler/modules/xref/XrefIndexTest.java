@@ -0,0 +1,113 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.modules.xref;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.code.CodeConstants;
+import org.jetbrains.java.decompiler.main.DecompilerContext;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.decompiler.PrintStreamLogger;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class XrefIndexTest {
+  private DecompilerTestFixture fixture;
+  private Fernflower fernflower;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+
+    fernflower = new Fernflower(fixture.getDecompiler(), fixture.getDecompiler(), Collections.<String, Object>emptyMap(),
+                                new PrintStreamLogger(System.out));
+    fernflower.getStructContext().addSpace(new File(fixture.getTestDataDir(), "classes/pkg/TestClassLoop.class"), true);
+    DecompilerContext.setStructContext(fernflower.getStructContext());
+  }
+
+  @After
+  public void tearDown() {
+    fernflower.clearContext();
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    StructClass cl = fernflower.getStructContext().getClass("pkg/TestClassLoop");
+    assertNotNull(cl);
+
+    XrefIndex index = new XrefIndex();
+    index.addClass(cl);
+    assertReferences(index);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.write(out);
+    XrefIndex read = XrefIndex.read(new ByteArrayInputStream(out.toByteArray()));
+
+    assertEquals(index.getReferenceCount(), read.getReferenceCount());
+    assertReferences(read);
+    assertEquals(index.getReferences("java/io/PrintStream", "println", "(Ljava/lang/String;)V").toString(),
+                 read.getReferences("java/io/PrintStream", "println", "(Ljava/lang/String;)V").toString());
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadOtherFile() throws IOException {
+    XrefIndex.read(new ByteArrayInputStream(new byte[]{(byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0, 0, 0, 0}));
+  }
+
+  private static void assertReferences(XrefIndex index) {
+    // invokevirtual println at 3 in testSimpleInfinite, line 23
+    List<XrefIndex.Reference> references = index.getReferences("java/io/PrintStream", "println", "()V");
+    assertEquals(1, references.size());
+    XrefIndex.Reference reference = references.get(0);
+    assertEquals("pkg/TestClassLoop", reference.owner);
+    assertEquals("testSimpleInfinite", reference.name);
+    assertEquals("()V", reference.descriptor);
+    assertEquals(CodeConstants.opc_invokevirtual, reference.opcode);
+    assertEquals(3, reference.offset);
+    assertEquals(23, reference.line);
+
+    // three calls in testFinally ordered by offset, all on line 38
+    int count = 0;
+    for (XrefIndex.Reference ref : index.getReferences("java/io/PrintStream", "println", "(Ljava/lang/String;)V")) {
+      if (ref.name.equals("testFinally")) {
+        assertEquals(new int[]{23, 32, 44}[count++], ref.offset);
+        assertEquals(38, ref.line);
+      }
+    }
+    assertEquals(3, count);
+
+    // the constructor invoking the super constructor
+    references = index.getReferences("java/lang/Object", "<init>", "()V");
+    assertEquals(1, references.size());
+    assertEquals(CodeConstants.opc_invokespecial, references.get(0).opcode);
+    assertEquals(18, references.get(0).line);
+
+    assertTrue(index.getReferences("java/io/PrintStream", "print", "()V").isEmpty());
+  }
+}
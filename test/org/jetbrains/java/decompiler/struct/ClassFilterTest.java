@@ -0,0 +1,89 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFilterTest {
+  private static final String STUB = "throw new UnsupportedOperationException();";
+
+  @Test
+  public void testMethodPattern() {
+    ClassFilter filter = ClassFilter.create("pkg.TestClassLoop#test*", null);
+
+    assertTrue(filter.acceptsClass("pkg/TestClassLoop"));
+    assertFalse(filter.acceptsClass("pkg/TestClassVar"));
+    assertTrue(filter.acceptsMethod("pkg/TestClassLoop", "testFinally", "()V"));
+    assertTrue(filter.acceptsMethod("pkg/TestClassLoop", "test", "()V"));
+    assertFalse(filter.acceptsMethod("pkg/TestClassLoop", "run", "()V"));
+  }
+
+  @Test
+  public void testExcludedMethodPattern() {
+    ClassFilter filter = ClassFilter.create(null, "pkg.TestClassLoop#testFinally*()V");
+
+    assertTrue(filter.acceptsClass("pkg/TestClassLoop"));
+    assertFalse(filter.acceptsMethod("pkg/TestClassLoop", "testFinally", "()V"));
+    assertFalse(filter.acceptsMethod("pkg/TestClassLoop", "testFinallyContinue", "()V"));
+    assertTrue(filter.acceptsMethod("pkg/TestClassLoop", "testFinally", "(I)V"));
+    assertTrue(filter.acceptsMethod("pkg/TestClassLoop", "testSimpleInfinite", "()V"));
+  }
+
+  @Test
+  public void testDecompileMethodPattern() throws Exception {
+    // every method matches, none is written as a stub
+    String content = decompileTestClassLoop("pkg.TestClassLoop#test*");
+    assertTrue(content.contains("testSimpleInfinite()"));
+    assertFalse(content.contains(STUB));
+
+    // testSimpleInfinite is not selected, both testFinally methods are decompiled
+    content = decompileTestClassLoop("pkg.TestClassLoop#testFinally*");
+    int simpleInfinite = content.indexOf("testSimpleInfinite()");
+    int finallyMethod = content.indexOf("testFinally()");
+    int finallyContinue = content.indexOf("testFinallyContinue()");
+    assertTrue(simpleInfinite >= 0 && finallyMethod > simpleInfinite && finallyContinue > finallyMethod);
+    assertTrue(content.substring(simpleInfinite, finallyMethod).contains(STUB));
+    assertFalse(content.substring(finallyMethod).contains(STUB));
+    assertTrue(content.substring(finallyMethod, finallyContinue).contains("finally"));
+  }
+
+  private static String decompileTestClassLoop(String include) throws Exception {
+    DecompilerTestFixture fixture = new DecompilerTestFixture();
+    fixture.setUp(Collections.<String, Object>singletonMap(IFernflowerPreferences.INCLUDE_CLASSES, include));
+    try {
+      ConsoleDecompiler decompiler = fixture.getDecompiler();
+      decompiler.addSpace(new File(fixture.getTestDataDir(), "classes/pkg/TestClassLoop.class"), true);
+      decompiler.decompileContext();
+
+      File decompiledFile = new File(fixture.getTargetDir(), "TestClassLoop.java");
+      assertTrue(decompiledFile.isFile());
+      return new String(InterpreterUtil.getBytes(decompiledFile), "UTF-8");
+    }
+    finally {
+      fixture.tearDown();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ClassHierarchyTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  // java/lang/Object as an own class has no superclass, invocations on it and its subclasses must still be written
+  @Test
+  public void testObjectAsOwnClass() throws IOException {
+    File sourceDir = new File(fixture.getTempDir(), "classes");
+    File objectFile = new File(sourceDir, "java/lang/Object.class");
+    assertTrue(objectFile.getParentFile().mkdirs());
+
+    InputStream in = ClassLoader.getSystemResourceAsStream("java/lang/Object.class");
+    assertNotNull(in);
+    try {
+      OutputStream out = new FileOutputStream(objectFile);
+      try {
+        InterpreterUtil.copyStream(in, out);
+      }
+      finally {
+        out.close();
+      }
+    }
+    finally {
+      in.close();
+    }
+
+    File classFile = new File(sourceDir, "pkg/TestClassLoop.class");
+    assertTrue(classFile.getParentFile().mkdirs());
+    InterpreterUtil.copyFile(new File(fixture.getTestDataDir(), "classes/pkg/TestClassLoop.class"), classFile);
+
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    decompiler.addSpace(sourceDir, true);
+    decompiler.decompileContext();
+
+    assertDecompiled(new File(fixture.getTargetDir(), "java/lang/Object.java"), "getClass().getName()");
+    assertDecompiled(new File(fixture.getTargetDir(), "pkg/TestClassLoop.java"), "System.out.println(");
+  }
+
+  private static void assertDecompiled(File file, String text) throws IOException {
+    assertTrue(file.getPath(), file.isFile());
+    String content = new String(InterpreterUtil.getBytes(file), "UTF-8");
+    assertTrue(content, content.contains(text));
+    assertFalse(content, content.contains("$FF: Couldn't be decompiled"));
+  }
+}
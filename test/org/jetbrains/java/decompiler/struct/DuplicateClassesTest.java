@@ -0,0 +1,140 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.*;
+
+public class DuplicateClassesTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testDuplicateAndConflictingClasses() throws IOException {
+    byte[] loop = readClass("TestClassLoop");
+    byte[] var = readClass("TestClassVar");
+
+    // same class file in both archives, TestClassVar differs in its minor version only
+    byte[] otherVar = var.clone();
+    otherVar[5]++;
+
+    File first = writeJar("first.jar", loop, var);
+    File second = writeJar("second.jar", loop, otherVar);
+
+    RecordingLogger logger = new RecordingLogger();
+    ConsoleDecompiler decompiler = new ConsoleDecompiler(fixture.getTargetDir(), Collections.<String, Object>emptyMap(), logger) { };
+    decompiler.addSpace(first, true);
+    decompiler.addSpace(second, true);
+    decompiler.decompileContext();
+
+    String firstLoop = readEntry(new File(fixture.getTargetDir(), "first.jar"), "pkg/TestClassLoop.java");
+    String secondLoop = readEntry(new File(fixture.getTargetDir(), "second.jar"), "pkg/TestClassLoop.java");
+    assertTrue(firstLoop.contains("class TestClassLoop"));
+    assertEquals(firstLoop, secondLoop);
+
+    String firstVar = readEntry(new File(fixture.getTargetDir(), "first.jar"), "pkg/TestClassVar.java");
+    String secondVar = readEntry(new File(fixture.getTargetDir(), "second.jar"), "pkg/TestClassVar.java");
+    assertTrue(firstVar.contains("class TestClassVar"));
+    assertEquals(firstVar, secondVar);
+
+    // the identical class is decompiled once, the conflicting one for each copy
+    assertEquals(1, Collections.frequency(logger.startedClasses, "pkg/TestClassLoop"));
+    assertEquals(2, Collections.frequency(logger.startedClasses, "pkg/TestClassVar"));
+
+    assertEquals(1, logger.warnings.size());
+    assertTrue(logger.warnings.get(0), logger.warnings.get(0).contains("pkg/TestClassVar"));
+  }
+
+  private byte[] readClass(String name) throws IOException {
+    return InterpreterUtil.getBytes(new File(fixture.getTestDataDir(), "classes/pkg/" + name + ".class"));
+  }
+
+  private File writeJar(String name, byte[] loop, byte[] var) throws IOException {
+    File file = new File(fixture.getTempDir(), name);
+    JarOutputStream out = new JarOutputStream(new FileOutputStream(file));
+    try {
+      out.putNextEntry(new ZipEntry("pkg/TestClassLoop.class"));
+      out.write(loop);
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("pkg/TestClassVar.class"));
+      out.write(var);
+      out.closeEntry();
+    }
+    finally {
+      out.close();
+    }
+    return file;
+  }
+
+  private static String readEntry(File file, String entryName) throws IOException {
+    assertTrue(file.getPath(), file.isFile());
+    ZipFile archive = new ZipFile(file);
+    try {
+      ZipEntry entry = archive.getEntry(entryName);
+      assertNotNull(entryName, entry);
+      return new String(InterpreterUtil.getBytes(archive, entry), "UTF-8");
+    }
+    finally {
+      archive.close();
+    }
+  }
+
+  private static class RecordingLogger extends IFernflowerLogger {
+    private final List<String> startedClasses = new ArrayList<String>();
+    private final List<String> warnings = new ArrayList<String>();
+
+    @Override
+    public void writeMessage(String message, Severity severity) {
+      if (severity == Severity.WARN) {
+        warnings.add(message);
+      }
+    }
+
+    @Override
+    public void writeMessage(String message, Throwable t) { }
+
+    @Override
+    public void startReadingClass(String className) {
+      startedClasses.add(className);
+    }
+  }
+}
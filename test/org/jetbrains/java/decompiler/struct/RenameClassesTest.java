@@ -0,0 +1,110 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.struct;
+
+import org.jetbrains.java.decompiler.DecompilerTestFixture;
+import org.jetbrains.java.decompiler.main.decompiler.ConsoleDecompiler;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.util.InterpreterUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+// classes are renamed in place, the names must be consistent in declarations and in references of other classes
+public class RenameClassesTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp(Collections.<String, Object>singletonMap(IFernflowerPreferences.RENAME_ENTITIES, "1"));
+
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    for (String name : new String[]{"TestConstants", "TestConstants$A", "TestEnum", "TestEnum$1", "TestEnum$2"}) {
+      decompiler.addSpace(new File(fixture.getTestDataDir(), "classes/pkg/" + name + ".class"), true);
+    }
+    decompiler.decompileContext();
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testRenamedClass() throws IOException {
+    String content = readClass("TestConstants");
+
+    // the annotation type TestConstants$A is renamed, TestConstants refers to it through its own constant pool
+    String name = find(content, "@interface (class_\\d+) \\{");
+    assertFalse(content.contains("TestConstants.A"));
+    assertTrue(content.contains("@TestConstants." + name + "(byte.class)"));
+    assertTrue(content.contains("@TestConstants." + name + "(Date.class)"));
+
+    // fields and methods with short names
+    String field = find(content, "// \\$FF: renamed from: T boolean\\s+static final boolean (field_\\d+) = true;");
+    assertFalse(content.contains(" T = true"));
+    assertTrue(field.startsWith("field_"));
+    find(content, "// \\$FF: renamed from: m1 \\(\\) void\\s+@TestConstants\\." + name + "\\(byte\\.class\\)\\s+void (method_\\d+)\\(\\)");
+  }
+
+  @Test
+  public void testRenamedMembers() throws IOException {
+    String content = readClass("TestEnum");
+
+    // the field is renamed in its declaration and in the constructor assigning it
+    String field = find(content, "// \\$FF: renamed from: s java\\.lang\\.String\\s+private String (field_\\d+);");
+    assertTrue(content.contains("this." + field + " = s;"));
+
+    // the overriding methods of the constant bodies get the name of the overridden method
+    String method = find(content, "// \\$FF: renamed from: m \\(\\) void\\s+public void (method_\\d+)\\(\\)");
+    assertEquals(3, count(content, "public void " + method + "()"));
+    assertFalse(content.contains("void m()"));
+
+    // enum constants
+    assertTrue(content.contains("// $FF: renamed from: E3 pkg.TestEnum"));
+    assertFalse(content.contains("E3(\"-\")"));
+  }
+
+  private String readClass(String name) throws IOException {
+    File file = new File(fixture.getTargetDir(), name + ".java");
+    assertTrue(file.getPath(), file.isFile());
+    return new String(InterpreterUtil.getBytes(file), "UTF-8");
+  }
+
+  private static String find(String content, String regex) {
+    Matcher matcher = Pattern.compile(regex).matcher(content);
+    assertTrue(regex + "\n" + content, matcher.find());
+    return matcher.group(1);
+  }
+
+  private static int count(String content, String text) {
+    int count = 0;
+    for (int i = content.indexOf(text); i >= 0; i = content.indexOf(text, i + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedCollectionTest {
+  @Test
+  public void testRemoveAndLookup() {
+    IndexedCollection<String, String> c = new IndexedCollection<String, String>();
+    c.addWithKey("a", "ka");
+    c.addWithKey("b", "kb");
+    c.addWithKey("c", "kc");
+    c.add(0, "x");
+
+    c.remove(1);
+
+    assertEquals(3, c.size());
+    assertNull(c.getWithKey("ka"));
+    assertFalse(c.containsKey("ka"));
+    assertEquals(1, c.getIndexByKey("kb"));
+    assertEquals(2, c.getIndexByKey("kc"));
+    assertEquals("c", c.getWithKey("kc"));
+  }
+
+  @Test
+  public void testRemoveShadowedDuplicate() {
+    testRemoveShadowedDuplicate(new IndexedCollection<String, Integer>());
+    testRemoveShadowedDuplicate(new IntIndexedCollection<String>());
+  }
+
+  private static void testRemoveShadowedDuplicate(IndexedCollection<String, Integer> c) {
+    c.addWithKey("first", 1);
+    c.addWithKey("other", 2);
+    c.addWithKey("second", 1);
+
+    // the later element is found by key, removing the earlier one must not lose it
+    c.remove(0);
+
+    assertEquals("second", c.getWithKey(1));
+    assertEquals(1, c.getIndexByKey(1));
+    assertEquals(0, c.getIndexByKey(2));
+  }
+
+  @Test
+  public void testRemoveVisibleDuplicate() {
+    testRemoveVisibleDuplicate(new IndexedCollection<String, Integer>());
+    testRemoveVisibleDuplicate(new IntIndexedCollection<String>());
+  }
+
+  private static void testRemoveVisibleDuplicate(IndexedCollection<String, Integer> c) {
+    c.addWithKey("first", 1);
+    c.addWithKey("other", 2);
+    c.addWithKey("second", 1);
+
+    // the remaining element with the same key takes over
+    c.removeWithKey(1);
+
+    assertEquals(2, c.size());
+    assertTrue(c.containsKey(1));
+    assertEquals("first", c.getWithKey(1));
+    assertEquals(0, c.getIndexByKey(1));
+
+    c.removeWithKey(1);
+
+    assertFalse(c.containsKey(1));
+    assertEquals("other", c.getWithKey(2));
+    assertEquals(0, c.getIndexByKey(2));
+  }
+
+  @Test
+  public void testRemoveElement() {
+    IndexedCollection<String, String> c = new IndexedCollection<String, String>();
+    c.addWithKey("a", "ka");
+    c.addWithKey("b", "kb");
+
+    assertTrue(c.remove("a"));
+    assertFalse(c.remove("a"));
+    assertFalse(c.containsKey("ka"));
+    assertEquals(0, c.getIndexByKey("kb"));
+  }
+}
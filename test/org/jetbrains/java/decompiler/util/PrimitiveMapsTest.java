@@ -0,0 +1,211 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jetbrains.java.decompiler.util;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+// random operations checked against the java.util collections, small key ranges force collisions and
+// backward shifts on removal, growing from the minimum capacity covers resizing
+public class PrimitiveMapsTest {
+  private static final int STEPS = 20000;
+
+  @Test
+  public void testIntIntMap() {
+    Random random = new Random(1);
+    IntIntMap map = new IntIntMap();
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+
+    for (int step = 0; step < STEPS; step++) {
+      int key = nextKey(random, step);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, map.remove(key));
+      }
+      else {
+        int value = random.nextInt();
+        expected.put(key, value);
+        map.put(key, value);
+      }
+
+      int probe = nextKey(random, step);
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertEquals(expected.containsKey(probe) ? expected.get(probe) : -1, map.get(probe, -1));
+      assertEquals(expected.size(), map.size());
+    }
+
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals(entry.getValue().intValue(), map.get(entry.getKey(), -1));
+    }
+    assertEquals(expected.keySet(), toSet(map.keys()));
+  }
+
+  @Test
+  public void testIntObjectMap() {
+    Random random = new Random(2);
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    Map<Integer, String> expected = new HashMap<Integer, String>();
+
+    for (int step = 0; step < STEPS; step++) {
+      int key = nextKey(random, step);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+      else {
+        String value = String.valueOf(random.nextInt());
+        assertEquals(expected.put(key, value), map.put(key, value));
+      }
+
+      int probe = nextKey(random, step);
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertEquals(expected.get(probe), map.get(probe));
+      assertEquals(expected.size(), map.size());
+    }
+
+    assertEquals(expected.keySet(), toSet(map.keys()));
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.keys().length);
+  }
+
+  @Test
+  public void testIntSet() {
+    Random random = new Random(3);
+    IntSet set = new IntSet();
+    Set<Integer> expected = new HashSet<Integer>();
+
+    for (int step = 0; step < STEPS; step++) {
+      int key = nextKey(random, step);
+      assertEquals(expected.add(key), set.add(key));
+
+      int probe = nextKey(random, step);
+      assertEquals(expected.contains(probe), set.contains(probe));
+      assertEquals(expected.size(), set.size());
+    }
+
+    assertEquals(expected, toSet(set.toArray()));
+  }
+
+  @Test
+  public void testLongIntMap() {
+    Random random = new Random(4);
+    LongIntMap map = new LongIntMap();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+
+    for (int step = 0; step < STEPS; step++) {
+      long key = nextLongKey(random, step);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key) != null, map.remove(key));
+      }
+      else {
+        int value = random.nextInt();
+        expected.put(key, value);
+        map.put(key, value);
+      }
+
+      long probe = nextLongKey(random, step);
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertEquals(expected.containsKey(probe) ? expected.get(probe) : -1, map.get(probe, -1));
+      assertEquals(expected.size(), map.size());
+    }
+
+    assertEquals(expected.keySet(), toSet(map.keys()));
+  }
+
+  @Test
+  public void testLongObjectMap() {
+    Random random = new Random(5);
+    LongObjectMap<String> map = new LongObjectMap<String>();
+    Map<Long, String> expected = new HashMap<Long, String>();
+
+    for (int step = 0; step < STEPS; step++) {
+      long key = nextLongKey(random, step);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+      else {
+        String value = String.valueOf(random.nextInt());
+        assertEquals(expected.put(key, value), map.put(key, value));
+      }
+
+      long probe = nextLongKey(random, step);
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertEquals(expected.get(probe), map.get(probe));
+      assertEquals(expected.size(), map.size());
+    }
+
+    assertEquals(expected.keySet(), toSet(map.keys()));
+    List<String> values = map.values();
+    Collections.sort(values);
+    List<String> expectedValues = new ArrayList<String>(expected.values());
+    Collections.sort(expectedValues);
+    assertEquals(expectedValues, values);
+  }
+
+  @Test
+  public void testObjectIntMap() {
+    Random random = new Random(6);
+    ObjectIntMap<String> map = new ObjectIntMap<String>();
+    Map<String, Integer> expected = new HashMap<String, Integer>();
+
+    for (int step = 0; step < STEPS; step++) {
+      String key = String.valueOf(nextKey(random, step));
+      int value = random.nextInt();
+      expected.put(key, value);
+      map.put(key, value);
+
+      String probe = String.valueOf(nextKey(random, step));
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertEquals(expected.containsKey(probe) ? expected.get(probe) : -1, map.get(probe, -1));
+      assertEquals(expected.size(), map.size());
+    }
+
+    assertFalse(map.isEmpty());
+  }
+
+  // the key range grows with the steps, so the tables resize while entries are removed
+  private static int nextKey(Random random, int step) {
+    int range = 16 + step / 4;
+    return random.nextBoolean() ? random.nextInt(range) : -random.nextInt(range) * 1024;
+  }
+
+  private static long nextLongKey(Random random, int step) {
+    long key = nextKey(random, step);
+    // variable version pairs are packed as (var << 32) | version
+    return random.nextBoolean() ? key : (key << 32) | random.nextInt(4);
+  }
+
+  private static Set<Integer> toSet(int[] array) {
+    Set<Integer> set = new HashSet<Integer>();
+    for (int value : array) {
+      assertTrue(set.add(value));
+    }
+    return set;
+  }
+
+  private static Set<Long> toSet(long[] array) {
+    Set<Long> set = new HashSet<Long>();
+    for (long value : array) {
+      assertTrue(set.add(value));
+    }
+    return set;
+  }
+}